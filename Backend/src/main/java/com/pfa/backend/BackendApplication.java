@@ -3,11 +3,13 @@ package com.pfa.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.pfa.backend.repository")
 @EnableTransactionManagement
+@EnableScheduling
 public class BackendApplication {
 
     public static void main(String[] args) {
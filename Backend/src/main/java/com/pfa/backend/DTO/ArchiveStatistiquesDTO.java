@@ -0,0 +1,14 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class ArchiveStatistiquesDTO {
+    private long actives;
+    private long supprimeesEnAttente;
+    private long cesseesEnAttente;
+    private long archivees;
+    // Part des entreprises connues que les requêtes par défaut ne parcourent plus
+    private double reductionScan;
+    private boolean archivageEnCours;
+}
@@ -0,0 +1,18 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Data
+public class ChangementEntrepriseDTO {
+    // Même valeur que le champ id de l'événement SSE (Last-Event-ID)
+    private String id;
+    private String type;
+    private Long entrepriseId;
+    private Set<String> attributsModifies = new TreeSet<>();
+    private Map<String, Object> valeurs = new LinkedHashMap<>();
+}
@@ -0,0 +1,13 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ChangementsDTO {
+    private long token;
+    private boolean suite;
+    private List<DeltaEntrepriseDTO> changements = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class CompactionHistoriqueDTO {
+    // Lignes antérieures passées au format compact
+    private long lignesConverties;
+    // Lignes d'attributs techniques ou dérivés (ValeurHistorique.IGNOREES)
+    private long lignesSupprimees;
+    // Lignes au-delà de historique.retention.jours
+    private long lignesExpirees;
+    // Taille des colonnes de valeurs avant et après la compaction
+    private long octetsAvant;
+    private long octetsApres;
+    private double gain;
+}
@@ -0,0 +1,13 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class DeltaEntrepriseDTO {
+    private Long entrepriseId;
+    private String operation;
+    private Long version;
+    private Map<String, Object> entreprise;
+}
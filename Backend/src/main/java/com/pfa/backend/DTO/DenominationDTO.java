@@ -0,0 +1,10 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class DenominationDTO {
+    private Long id;
+    private String denomination;
+    private String ville;
+}
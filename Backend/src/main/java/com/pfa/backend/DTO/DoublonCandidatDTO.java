@@ -0,0 +1,14 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class DoublonCandidatDTO {
+    private Long id;
+    private String denomination;
+    private String ville;
+    private Integer ice;
+    private Integer identifiantFiscal;
+    private double score;
+    private String raison;
+}
@@ -0,0 +1,12 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DoublonClusterDTO {
+    private double score;
+    private List<DoublonCandidatDTO> entreprises = new ArrayList<>();
+}
@@ -0,0 +1,18 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class EnregistrementJfrDTO {
+    private long id;
+    // NEW, RUNNING, STOPPED ou CLOSED (jdk.jfr.RecordingState)
+    private String etat;
+    // default (~1 % de surcoût) ou profile (plus d'échantillons, ~2 %)
+    private String configuration;
+    private Instant debut;
+    private long dureeSecondes;
+    // Taille écrite sur disque jusqu'ici
+    private long octets;
+}
@@ -25,7 +25,7 @@ public class EntrepriseDTO {
     private String latitude;
     private String longitude;
     private Date dateCreation;
-    private String logo;
+    private String logoUrl; // vignettes : logoUrl + "?size=32|64|128"
     private Date dateCessationActivite;
     private SecteurDactiviteDTO secteurDactivite; // Modifié pour être un objet
     private FormeJuridiqueDTO formeJuridique;  // Modifié pour être un objet
@@ -33,4 +33,5 @@ public class EntrepriseDTO {
     private List<FaxDTO> faxes = new ArrayList<>();
     private List<GerantDTO> gerants = new ArrayList<>();
     private List<HistoriqueDentrepriseDTO> historiqueDentreprise;
+    private Date dateArchivage; // renseignée seulement avec includeArchived
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.pfa.backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntrepriseResumeDTO {
+    private Long id;
+    private String denomination;
+    private String ville;
+}
@@ -0,0 +1,13 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class EntreprisesParIdsDTO {
+    private List<Map<String, Object>> entreprises = new ArrayList<>();
+    private List<Long> introuvables = new ArrayList<>();
+}
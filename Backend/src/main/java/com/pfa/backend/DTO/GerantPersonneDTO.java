@@ -0,0 +1,11 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class GerantPersonneDTO {
+    private String cle;
+    private String nom;
+    private String prenom;
+    private int nombreEntreprises;
+}
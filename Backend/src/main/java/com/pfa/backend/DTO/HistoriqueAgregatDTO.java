@@ -0,0 +1,10 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class HistoriqueAgregatDTO {
+    private Object groupe;   // attribut, id d'entreprise ou période (yyyy-MM-dd / yyyy-MM)
+    private String libelle;  // dénomination pour les entreprises
+    private long nombre;
+}
@@ -8,6 +8,7 @@ import java.util.Date;
 public class HistoriqueDentrepriseDTO {
     private Long id;
     private String attributModifie;
+    private String typeValeur;
     private String ancienneValeur;
     private String nouvelleValeur;
     private Date dateModification;
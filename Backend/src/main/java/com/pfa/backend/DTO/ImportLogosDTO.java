@@ -0,0 +1,18 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ImportLogosDTO {
+    private int traites;
+    private int attaches;
+    private int inchanges;
+    private List<String> introuvables = new ArrayList<>();
+    private List<String> ambigus = new ArrayList<>();
+    private Map<String, String> rejetes = new LinkedHashMap<>();
+}
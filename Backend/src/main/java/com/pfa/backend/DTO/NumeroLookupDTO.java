@@ -0,0 +1,13 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class NumeroLookupDTO {
+    private String numero;
+    private String numeroNormalise;
+    private List<NumeroProprietaireDTO> proprietaires = new ArrayList<>();
+}
@@ -0,0 +1,11 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class NumeroProprietaireDTO {
+    private String type;
+    private Long id;
+    private Long entrepriseId;
+    private String denomination;
+}
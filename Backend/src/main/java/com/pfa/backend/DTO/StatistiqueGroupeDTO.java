@@ -0,0 +1,18 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class StatistiqueGroupeDTO {
+    private Object groupe;
+    private String libelle;
+    private long nombre;
+    private Double somme;
+    private Double moyenne;
+    private Double min;
+    private Double max;
+    private Map<String, Double> percentiles = new LinkedHashMap<>();
+}
@@ -0,0 +1,9 @@
+package com.pfa.backend.DTO;
+
+import lombok.Data;
+
+@Data
+public class VilleDTO {
+    private Long id;
+    private String nom;
+}
@@ -0,0 +1,34 @@
+package com.pfa.backend.config;
+
+import com.pfa.backend.service.HistoriqueAgregatService;
+import com.pfa.backend.service.IdentifiantService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Set;
+
+// Profil demarrage-rapide (application-demarrage-rapide.yml) : les beans sont créés à leur premier usage,
+// sauf ceux qui doivent agir avant toute requête ou que personne ne réclamerait jamais
+@Configuration(proxyBeanMethods = false)
+@Profile("demarrage-rapide")
+public class DemarrageRapideConfig {
+
+    // Compteurs d'identifiants recalés avant la première insertion ; écouteur Hibernate des agrégats
+    private static final Set<Class<?>> BEANS_CRITIQUES = Set.of(IdentifiantService.class, HistoriqueAgregatService.class);
+
+    @Bean
+    static LazyInitializationExcludeFilter beansCritiques() {
+        return (nom, definition, type) -> BEANS_CRITIQUES.contains(type) || planifie(type);
+    }
+
+    // Un bean paresseux n'est jamais créé s'il ne sert qu'à ses tâches @Scheduled : elles ne tourneraient pas
+    private static boolean planifie(Class<?> type) {
+        return !MethodIntrospector.selectMethods(type, (MethodIntrospector.MetadataLookup<Boolean>) methode ->
+                AnnotatedElementUtils.hasAnnotation(methode, Scheduled.class) ? Boolean.TRUE : null).isEmpty();
+    }
+}
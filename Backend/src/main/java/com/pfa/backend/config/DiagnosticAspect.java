@@ -0,0 +1,164 @@
+package com.pfa.backend.config;
+
+import com.pfa.backend.event.Diagnostic;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+// Chaque appel de contrôleur, de service ou de dépôt devient un événement JFR cartographie.Couche et,
+// si diagnostic.spans.actif, une Observation Micrometer (span dès qu'un pont de traçage est présent,
+// ex. micrometer-tracing-bridge-otel). Sans enregistrement JFR ni spans, l'appel passe directement.
+@Aspect
+@Component
+@ConditionalOnProperty(name = "diagnostic.instrumentation.actif", havingValue = "true", matchIfMissing = true)
+public class DiagnosticAspect {
+
+    @Value("${diagnostic.spans.actif:false}")
+    private boolean spans;
+
+    @Autowired
+    private ObjectProvider<ObservationRegistry> observationRegistry;
+
+    @Around("within(com.pfa.backend.controller..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object controleur(ProceedingJoinPoint appel) throws Throwable {
+        try {
+            return mesurer("controleur", appel);
+        } finally {
+            Diagnostic.Contexte contexte = Diagnostic.contexte();
+            if (contexte != null) {
+                contexte.finControleurNs = System.nanoTime();
+            }
+        }
+    }
+
+    @Around("within(com.pfa.backend.service..*) && @within(org.springframework.stereotype.Service)")
+    public Object service(ProceedingJoinPoint appel) throws Throwable {
+        return mesurer("service", appel);
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object depot(ProceedingJoinPoint appel) throws Throwable {
+        return mesurer("depot", appel);
+    }
+
+    private Object mesurer(String couche, ProceedingJoinPoint appel) throws Throwable {
+        Diagnostic.Couche evenement = new Diagnostic.Couche();
+        if (!evenement.isEnabled() && !spans) {
+            return appel.proceed();
+        }
+
+        Long entrepriseId = entrepriseId(appel);
+        Diagnostic.Contexte contexte = Diagnostic.contexte();
+        if (contexte != null && contexte.entrepriseId == null) {
+            contexte.entrepriseId = entrepriseId;
+        }
+        String operation = type(appel.getTarget()) + "." + appel.getSignature().getName();
+        String endpoint = contexte != null ? contexte.endpoint() : null;
+
+        Observation observation = spans ? Observation.createNotStarted("cartographie." + couche,
+                        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                .contextualName(operation)
+                .lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue("endpoint", endpoint != null ? endpoint : "aucun")
+                .highCardinalityKeyValue("entreprise.id", entrepriseId != null ? entrepriseId.toString() : "aucune")
+                .start() : null;
+        evenement.begin();
+        Object resultat = null;
+        Throwable echec = null;
+        try (Observation.Scope ignored = observation != null ? observation.openScope() : null) {
+            resultat = appel.proceed();
+            return resultat;
+        } catch (Throwable t) {
+            echec = t;
+            throw t;
+        } finally {
+            long lignes = echec == null ? lignes(resultat) : 0;
+            if (evenement.shouldCommit()) {
+                evenement.couche = couche;
+                evenement.operation = operation;
+                evenement.endpoint = endpoint;
+                evenement.entrepriseId = entrepriseId != null ? entrepriseId : Diagnostic.entrepriseId();
+                evenement.lignes = lignes;
+                evenement.echec = echec != null;
+                evenement.commit();
+            }
+            if (observation != null) {
+                observation.highCardinalityKeyValue("lignes", Long.toString(lignes));
+                if (echec != null) {
+                    observation.error(echec);
+                }
+                observation.stop();
+            }
+        }
+    }
+
+    // Premier paramètre Long nommé id ou entrepriseId (noms conservés par -parameters)
+    private static Long entrepriseId(ProceedingJoinPoint appel) {
+        if (!(appel.getSignature() instanceof MethodSignature signature)) {
+            return null;
+        }
+        String[] noms = signature.getParameterNames();
+        Object[] arguments = appel.getArgs();
+        for (int i = 0; noms != null && i < noms.length; i++) {
+            if ((noms[i].equals("id") || noms[i].equals("entrepriseId")) && arguments[i] instanceof Long id) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    // Les dépôts Spring Data sont des proxys JDK : leur nom est celui de l'interface du projet
+    private static String type(Object cible) {
+        Class<?> classe = cible.getClass();
+        if (Proxy.isProxyClass(classe)) {
+            for (Class<?> interfaceProxy : classe.getInterfaces()) {
+                if (interfaceProxy.getName().startsWith("com.pfa.backend.")) {
+                    return interfaceProxy.getSimpleName();
+                }
+            }
+        }
+        return ClassUtils.getUserClass(classe).getSimpleName();
+    }
+
+    // Éléments renvoyés, lignes modifiées (int des requêtes @Modifying) ou 1 pour une valeur seule
+    private static long lignes(Object resultat) {
+        if (resultat instanceof ResponseEntity<?> reponse) {
+            return lignes(reponse.getBody());
+        }
+        if (resultat instanceof Collection<?> elements) {
+            return elements.size();
+        }
+        if (resultat instanceof Map<?, ?> elements) {
+            return elements.size();
+        }
+        if (resultat instanceof Slice<?> page) {
+            return page.getNumberOfElements();
+        }
+        if (resultat instanceof Object[] elements) {
+            return elements.length;
+        }
+        if (resultat instanceof Optional<?> valeur) {
+            return valeur.isPresent() ? 1 : 0;
+        }
+        if (resultat instanceof Integer || resultat instanceof Long) {
+            return ((Number) resultat).longValue();
+        }
+        return resultat != null ? 1 : 0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.pfa.backend.config;
+
+import com.pfa.backend.event.Diagnostic;
+import org.hibernate.SessionEventListener;
+
+// Un par session Hibernate (hibernate.session.events.auto) : chaque flush devient un événement JFR
+// cartographie.Flush, avec le nombre d'entités et de collections parcourues par le dirty checking
+public class DiagnosticFlushListener implements SessionEventListener {
+
+    private Diagnostic.Flush flush;
+
+    @Override
+    public void flushStart() {
+        Diagnostic.Flush evenement = new Diagnostic.Flush();
+        if (evenement.isEnabled()) {
+            evenement.begin();
+            flush = evenement;
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        Diagnostic.Flush evenement = flush;
+        flush = null;
+        if (evenement != null && evenement.shouldCommit()) {
+            evenement.endpoint = Diagnostic.endpoint();
+            evenement.entrepriseId = Diagnostic.entrepriseId();
+            evenement.entites = numberOfEntities;
+            evenement.collections = numberOfCollections;
+            evenement.commit();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.service.AdmissionService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+// Applique AdmissionService à /api/** : 429 + Retry-After quand le client dépasse son débit
+// ou quand la classe d'endpoint est saturée
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String ORIGINE_FRONTEND = "http://localhost:3000";
+
+    // Scans de table, exports et traitements en masse ; le reste (détail, référentiels, autocomplétion) est léger
+    private static final Set<String> LOURDES = Set.of(
+            "GET /api/entreprises",
+            "GET /api/entreprises/filter",
+            "GET /api/entreprises/changes",
+            "POST /api/entreprises/batch-get",
+            "POST /api/entreprises/logos",
+            "POST /api/entreprises/archives/executer",
+            "POST /api/statistiques/historique/compaction",
+            "GET /api/doublons/clusters",
+            "POST /api/doublons/verifier",
+            "POST /api/telephones/lookup");
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String chemin = chemin(request);
+        // Le flux SSE est une connexion longue sans requête en base
+        return !chemin.startsWith("/api/") || chemin.equals("/api/entreprises/stream")
+                || request.getMethod().equals("OPTIONS");
+    }
+
+    static AdmissionService.Classe classe(HttpServletRequest request) {
+        return LOURDES.contains(request.getMethod().toUpperCase(Locale.ROOT) + " " + chemin(request))
+                ? AdmissionService.Classe.LOURDE : AdmissionService.Classe.LEGERE;
+    }
+
+    // Chemin tel que le voit le routage (décodé, sans ;jsessionid, "//" fusionnés), puis sans casse ni "/" final :
+    // /api/entreprises/filter/ ou /API/Entreprises/Filter restent des requêtes lourdes
+    static String chemin(HttpServletRequest request) {
+        String chemin = UrlPathHelper.defaultInstance.getPathWithinApplication(request).toLowerCase(Locale.ROOT);
+        while (chemin.length() > 1 && chemin.endsWith("/")) {
+            chemin = chemin.substring(0, chemin.length() - 1);
+        }
+        return chemin;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdmissionService.Classe classe = classe(request);
+
+        String client = admissionService.client(request.getHeader("X-API-Key"), request.getRemoteAddr());
+        long attente = admissionService.consommer(client, classe);
+        if (attente > 0) {
+            refuser(request, response, attente, "Trop de requêtes pour ce client");
+            return;
+        }
+
+        AdmissionService.Resultat resultat;
+        try {
+            resultat = admissionService.entrer(classe);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        if (resultat != AdmissionService.Resultat.ADMISE) {
+            refuser(request, response, 1000, "Service saturé, réessayer plus tard");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            admissionService.sortir(classe);
+        }
+    }
+
+    private void refuser(HttpServletRequest request, HttpServletResponse response, long attenteMs, String message)
+            throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(Math.max(1, (attenteMs + 999) / 1000)));
+        // Le filtre répond avant @CrossOrigin : sans ces en-têtes le navigateur masquerait le 429
+        if (ORIGINE_FRONTEND.equals(request.getHeader("Origin"))) {
+            response.setHeader("Access-Control-Allow-Origin", ORIGINE_FRONTEND);
+            response.setHeader("Access-Control-Expose-Headers", "Retry-After");
+        }
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write("{\"erreur\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,81 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.DTO.EnregistrementJfrDTO;
+import com.pfa.backend.service.DiagnosticService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+// Enregistrements JFR à la demande ; le fichier .jfr s'ouvre dans JDK Mission Control ou avec `jfr print`.
+// ex. POST /api/diagnostic/enregistrements?duree=120&configuration=profile, puis GET .../{id}
+@RestController
+@RequestMapping("/api/diagnostic/enregistrements")
+public class DiagnosticController {
+
+    @Autowired
+    private DiagnosticService diagnosticService;
+
+    @PostMapping
+    public ResponseEntity<EnregistrementJfrDTO> demarrer(
+            @RequestParam(value = "duree", defaultValue = "60") long dureeSecondes,
+            @RequestParam(value = "configuration", defaultValue = "default") String configuration) throws IOException {
+        if (!diagnosticService.isActif()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(diagnosticService.demarrer(dureeSecondes, configuration));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<EnregistrementJfrDTO>> lister() {
+        if (!diagnosticService.isActif()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(diagnosticService.lister());
+    }
+
+    // Fichier temporaire supprimé une fois envoyé
+    @GetMapping("/{id}")
+    public ResponseEntity<StreamingResponseBody> telecharger(@PathVariable("id") long enregistrementId) throws IOException {
+        Optional<Path> fichier = diagnosticService.isActif() ? diagnosticService.extraire(enregistrementId) : Optional.empty();
+        if (fichier.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path chemin = fichier.get();
+        StreamingResponseBody corps = sortie -> {
+            try {
+                Files.copy(chemin, sortie);
+            } finally {
+                Files.deleteIfExists(chemin);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(chemin))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cartographie-" + enregistrementId + ".jfr\"")
+                .body(corps);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> supprimer(@PathVariable("id") long enregistrementId) {
+        if (!diagnosticService.isActif() || !diagnosticService.supprimer(enregistrementId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
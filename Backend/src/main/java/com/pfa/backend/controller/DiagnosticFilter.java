@@ -0,0 +1,48 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.event.Diagnostic;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Ouvre le contexte de diagnostic de la requête et émet l'événement JFR cartographie.Requete.
+// Avant AdmissionFilter : les requêtes refusées (429) apparaissent aussi dans l'enregistrement.
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(name = "diagnostic.instrumentation.actif", havingValue = "true", matchIfMissing = true)
+public class DiagnosticFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Le flux SSE reste ouvert des heures : sa durée ne dit rien
+        return !request.getRequestURI().startsWith("/api/") || request.getRequestURI().equals("/api/entreprises/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Diagnostic.Requete evenement = new Diagnostic.Requete();
+        Diagnostic.Contexte contexte = Diagnostic.ouvrir(request);
+        evenement.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Diagnostic.fermer();
+            if (evenement.shouldCommit()) {
+                evenement.endpoint = contexte.endpoint();
+                evenement.statut = response.getStatus();
+                evenement.entrepriseId = contexte.entrepriseId != null ? contexte.entrepriseId : 0;
+                evenement.ecritureReponse = contexte.finControleurNs > 0 ? System.nanoTime() - contexte.finControleurNs : 0;
+                evenement.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.event.Diagnostic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+// Durée de la lecture Jackson des @RequestBody (événement JFR cartographie.LiaisonJson)
+@ControllerAdvice
+@ConditionalOnProperty(name = "diagnostic.instrumentation.actif", havingValue = "true", matchIfMissing = true)
+public class DiagnosticLiaisonAdvice extends RequestBodyAdviceAdapter {
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        Diagnostic.Contexte contexte = Diagnostic.contexte();
+        Diagnostic.LiaisonJson evenement = new Diagnostic.LiaisonJson();
+        // Corps illisible : l'événement commencé reste dans le contexte, abandonné avec lui
+        if (contexte != null && evenement.isEnabled()) {
+            evenement.begin();
+            contexte.liaison = evenement;
+        }
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        terminer(targetType);
+        return body;
+    }
+
+    @Override
+    public Object handleEmptyBody(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                  Class<? extends HttpMessageConverter<?>> converterType) {
+        terminer(targetType);
+        return body;
+    }
+
+    private static void terminer(Type targetType) {
+        Diagnostic.Contexte contexte = Diagnostic.contexte();
+        if (contexte == null || contexte.liaison == null) {
+            return;
+        }
+        Diagnostic.LiaisonJson evenement = contexte.liaison;
+        contexte.liaison = null;
+        if (evenement.shouldCommit()) {
+            evenement.endpoint = contexte.endpoint();
+            evenement.type = targetType.getTypeName();
+            evenement.commit();
+        }
+    }
+}
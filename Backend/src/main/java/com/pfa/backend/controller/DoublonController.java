@@ -0,0 +1,52 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.DTO.DoublonCandidatDTO;
+import com.pfa.backend.DTO.DoublonClusterDTO;
+import com.pfa.backend.DTO.EntrepriseDTO;
+import com.pfa.backend.service.DoublonService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/doublons")
+public class DoublonController {
+
+    private static final int TAILLE_MAX_IMPORT = 5000;
+
+    @Autowired
+    private DoublonService doublonService;
+
+    @GetMapping("/clusters")
+    public List<DoublonClusterDTO> getClusters(
+            @RequestParam(value = "seuil", defaultValue = "" + DoublonService.SEUIL_PAR_DEFAUT) double seuil,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return doublonService.clusters(seuil, limit);
+    }
+
+    @GetMapping("/candidats/{id}")
+    public List<DoublonCandidatDTO> getCandidats(
+            @PathVariable Long id,
+            @RequestParam(value = "seuil", defaultValue = "" + DoublonService.SEUIL_PAR_DEFAUT) double seuil,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return doublonService.candidats(id, seuil, limit);
+    }
+
+    // Vérification avant import : une liste de candidats par entreprise soumise, dans le même ordre
+    @PostMapping("/verifier")
+    public ResponseEntity<List<List<DoublonCandidatDTO>>> verifier(
+            @RequestBody List<EntrepriseDTO> entreprises,
+            @RequestParam(value = "seuil", defaultValue = "" + DoublonService.SEUIL_PAR_DEFAUT) double seuil,
+            @RequestParam(value = "limit", defaultValue = "5") int limit) {
+        if (entreprises.size() > TAILLE_MAX_IMPORT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(entreprises.stream()
+                .map(e -> doublonService.verifier(e.getDenomination(), e.getIce(), e.getIdentifiantFiscal(), e.getVille(), seuil, limit))
+                .collect(Collectors.toList()));
+    }
+}
@@ -1,17 +1,27 @@
 package com.pfa.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfa.backend.DTO.ArchiveStatistiquesDTO;
+import com.pfa.backend.DTO.ChangementsDTO;
+import com.pfa.backend.DTO.DenominationDTO;
+import com.pfa.backend.DTO.DoublonCandidatDTO;
 import com.pfa.backend.DTO.EntrepriseDTO;
+import com.pfa.backend.DTO.EntreprisesParIdsDTO;
 import com.pfa.backend.DTO.HistoriqueDentrepriseDTO;
+import com.pfa.backend.DTO.ImportLogosDTO;
 import com.pfa.backend.entity.*;
 import com.pfa.backend.repository.EntrepriseRepository;
 import com.pfa.backend.repository.FormeJuridiqueRepository;
 import com.pfa.backend.repository.SecteurDactiviteRepository;
 import com.pfa.backend.service.*;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,15 +29,21 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @RestController
-@CrossOrigin(origins = "http://localhost:3000")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = "X-Doublons-Potentiels")
 @RequestMapping("/api/entreprises")
 public class EntrepriseController {
 
+    // Au-delà, le client découpe sa liste : la réponse complète reste de taille raisonnable
+    private static final int MAX_IDS_BATCH = 5000;
+
     @Autowired
     private EntrepriseService entrepriseService;
 
@@ -50,6 +66,20 @@ public class EntrepriseController {
     private EntrepriseRepository entrepriseRepository;
     @Autowired
     private GerantService GerantService;
+    @Autowired
+    private DoublonService doublonService;
+    @Autowired
+    private JournalService journalService;
+    @Autowired
+    private ArchiveService archiveService;
+    @Autowired
+    private LogoService logoService;
+    @Autowired
+    private EntrepriseProjectionService entrepriseProjectionService;
+    @Autowired
+    private CacheReponseService cacheReponseService;
+    @Value("${logos.import.taille-max-mo:512}")
+    private long tailleMaxImportMo;
 
     @PutMapping("/gerants/{entrepriseId}")
     public ResponseEntity<List<Gerant>> updateGerantsByEntrepriseId(
@@ -119,14 +149,25 @@ public class EntrepriseController {
             entreprise.addGerants(gerants);
         }
         if (logo != null && !logo.isEmpty()) {
-            try {
-                entreprise.setLogo(logo.getBytes());
+            try (InputStream flux = logo.getInputStream()) {
+                LogoService.LogoRecu logoRecu = logoService.lire(flux);
+                entreprise.setLogo(logoRecu.donnees());
+                entreprise.setLogoEmpreinte(logoRecu.empreinte());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
 
         Entreprise savedEntreprise = entrepriseService.createEntreprise(entreprise);
+
+        // Signale les doublons probables sans bloquer la création
+        List<DoublonCandidatDTO> doublons = doublonService.candidats(savedEntreprise.getId(), DoublonService.SEUIL_PAR_DEFAUT, 5);
+        if (!doublons.isEmpty()) {
+            String ids = doublons.stream().map(d -> d.getId().toString()).collect(Collectors.joining(","));
+            return ResponseEntity.ok().header("X-Doublons-Potentiels", ids).body(savedEntreprise);
+        }
         return ResponseEntity.ok(savedEntreprise);
     }
 
@@ -135,20 +176,145 @@ public class EntrepriseController {
 
 
 
+    // Synchronisation incrémentale : rejouer avec le token renvoyé tant que "suite" est vrai
+    @GetMapping("/changes")
+    public ResponseEntity<ChangementsDTO> getChangements(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        return ResponseEntity.ok(journalService.getChangements(since, Math.min(Math.max(limit, 1), 5000)));
+    }
+
+    @GetMapping("/archives/statistiques")
+    public ArchiveStatistiquesDTO getStatistiquesArchives() {
+        return archiveService.getStatistiques();
+    }
+
+    // Archivage en arrière-plan : l'avancement se lit sur /archives/statistiques
+    @PostMapping("/archives/executer")
+    public ResponseEntity<Void> executerArchivage() {
+        if (!archiveService.lancerArchivage()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/denominations/autocomplete")
+    public List<DenominationDTO> autocompleteDenomination(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return entrepriseService.autocompleterDenomination(q, Math.min(Math.max(limit, 1), 100));
+    }
+
     @GetMapping("/villes")
     public List<String> getAllVilles() {
         return entrepriseService.getAllVilles();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<EntrepriseDTO> getEntrepriseById(@PathVariable Long id) {
-        Optional<EntrepriseDTO> entrepriseOpt = entrepriseService.getEntrepriseById(id);
-        if (entrepriseOpt.isPresent()) {
-            return ResponseEntity.ok(entrepriseOpt.get());
-        } else {
+    public ResponseEntity<?> getEntrepriseById(
+            @PathVariable Long id,
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "embed", required = false) String embed,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        EntrepriseProjectionService.Projection projection;
+        try {
+            projection = EntrepriseProjectionService.Projection.analyser(fields, embed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Entreprises actives : corps déjà sérialisé par CacheReponseService
+        Optional<CacheReponseService.Reponse> reponse = cacheReponseService.obtenir(id,
+                projection != null ? projection.cle() : "complet", accepteGzip(acceptEncoding),
+                () -> projection != null ? entrepriseProjectionService.getById(id, projection)
+                        : entrepriseService.getEntrepriseById(id));
+        if (reponse.isPresent()) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (reponse.get().gzip()) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return builder.body(reponse.get().corps());
+        }
+
+        if (!includeArchived) {
             return ResponseEntity.notFound().build();
         }
+        Optional<EntrepriseDTO> archive = archiveService.getArchive(id);
+        if (projection != null) {
+            return archive.map(dto -> entrepriseProjectionService.projeter(dto, projection))
+                    .<ResponseEntity<?>>map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        }
+        return archive.<ResponseEntity<?>>map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static boolean accepteGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.contains("gzip") && !acceptEncoding.contains("gzip;q=0");
     }
+
+    // Fiches de plusieurs entreprises en un appel (volet de détail, exports) : corps [12, 345, ...].
+    // Mêmes ?fields= et ?embed= que le détail ; sans embed, téléphones, fax et gérants sont inclus.
+    @PostMapping("/batch-get")
+    public ResponseEntity<EntreprisesParIdsDTO> getEntreprisesParIds(
+            @RequestBody List<Long> ids,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "embed", required = false) String embed) {
+        if (ids.size() > MAX_IDS_BATCH) {
+            return ResponseEntity.badRequest().build();
+        }
+        EntrepriseProjectionService.Projection projection;
+        try {
+            projection = EntrepriseProjectionService.Projection.analyser(fields, embed != null ? embed : "telephones,faxes,gerants");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        EntreprisesParIdsDTO resultat = new EntreprisesParIdsDTO();
+        resultat.setEntreprises(entrepriseProjectionService.getByIds(ids, projection));
+        Set<Object> trouves = resultat.getEntreprises().stream().map(e -> e.get("id")).collect(Collectors.toSet());
+        ids.stream().filter(id -> id != null && !trouves.contains(id)).distinct().forEach(resultat.getIntrouvables()::add);
+        return ResponseEntity.ok(resultat);
+    }
+
+    // Rattachement en masse : une archive ZIP de logos nommés par ICE (12345.png) ou par id (cle=id).
+    // L'archive est le corps brut de la requête (ex. curl --data-binary @logos.zip -H 'Content-Type: application/zip'),
+    // lue au fil de l'eau : la limite du multipart reste celle d'un logo
+    @PostMapping(value = "/logos", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ImportLogosDTO> importerLogos(
+            HttpServletRequest requete,
+            @RequestParam(value = "cle", defaultValue = "ice") String cle) throws IOException {
+        if (!cle.equals("ice") && !cle.equals("id")) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Sans Content-Length (envoi par morceaux), la taille ne serait connue qu'à la fin de la lecture
+        long taille = requete.getContentLengthLong();
+        if (taille < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        if (taille > tailleMaxImportMo * 1024 * 1024) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        try (InputStream flux = requete.getInputStream()) {
+            return ResponseEntity.ok(logoService.importerZip(flux, cle.equals("ice")));
+        }
+    }
+
+    // ?size= sert la plus petite vignette couvrant la taille demandée, ou l'original tant qu'elle n'existe pas.
+    // nosniff : un logo de type non reconnu (application/octet-stream) n'est jamais interprété par le navigateur
+    @GetMapping("/{id}/logo")
+    public ResponseEntity<byte[]> getLogo(@PathVariable Long id,
+                                          @RequestParam(value = "size", required = false) Integer size) {
+        return logoService.getLogo(id, size)
+                .map(logo -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(logo.contentType()))
+                        .header("X-Content-Type-Options", "nosniff")
+                        .cacheControl(logo.derive()
+                                ? CacheControl.maxAge(Duration.ofDays(1))
+                                : CacheControl.noCache())
+                        .body(logo.donnees()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{id}/telephones")
     public ResponseEntity<List<Telephone>> getTelephonesByEntrepriseId(@PathVariable Long id) {
         List<Telephone> telephones = telephoneService.getTelephonesByEntrepriseId(id);
@@ -176,9 +342,30 @@ public class EntrepriseController {
             return ResponseEntity.ok(gerants);
         }
     }
+    // ?fields=denomination,ville,secteurDactivite&embed=telephones : seules ces colonnes sont lues en base
     @GetMapping
-    public ResponseEntity<List<EntrepriseDTO>> getAllEntreprises() {
+    public ResponseEntity<?> getAllEntreprises(
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "embed", required = false) String embed) {
+        EntrepriseProjectionService.Projection projection;
+        try {
+            projection = EntrepriseProjectionService.Projection.analyser(fields, embed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (projection != null) {
+            List<Map<String, Object>> partielles = entrepriseProjectionService.getAll(projection);
+            if (includeArchived) {
+                archiveService.getArchives().forEach(dto -> partielles.add(entrepriseProjectionService.projeter(dto, projection)));
+            }
+            return ResponseEntity.ok(partielles);
+        }
+
         List<EntrepriseDTO> entreprises = entrepriseService.getAllEntreprises();
+        if (includeArchived) {
+            entreprises.addAll(archiveService.getArchives());
+        }
         return ResponseEntity.ok(entreprises);
     }
 
@@ -189,6 +376,8 @@ public class EntrepriseController {
             return ResponseEntity.ok(entrepriseMiseAJour);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
     @DeleteMapping("/{id}")
@@ -203,13 +392,34 @@ public class EntrepriseController {
         return ResponseEntity.ok(historiqueList);
     }
     @GetMapping("/filter")
-    public ResponseEntity<List<EntrepriseDTO>> filterEntreprises(
+    public ResponseEntity<?> filterEntreprises(
             @RequestParam(value = "ville", required = false) String ville,
             @RequestParam(value = "denomination", required = false) String denomination,
             @RequestParam(value = "secteurNom", required = false) String secteurNom,
-            @RequestParam(value = "formeJuridiqueNom", required = false) String formeJuridiqueNom
+            @RequestParam(value = "formeJuridiqueNom", required = false) String formeJuridiqueNom,
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "embed", required = false) String embed
     ) {
+        EntrepriseProjectionService.Projection projection;
+        try {
+            projection = EntrepriseProjectionService.Projection.analyser(fields, embed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (projection != null) {
+            List<Map<String, Object>> partielles = entrepriseProjectionService.filtrer(ville, denomination, secteurNom, formeJuridiqueNom, projection);
+            if (includeArchived) {
+                archiveService.filtrer(ville, denomination, secteurNom, formeJuridiqueNom)
+                        .forEach(dto -> partielles.add(entrepriseProjectionService.projeter(dto, projection)));
+            }
+            return partielles.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(partielles);
+        }
+
         List<EntrepriseDTO> entreprises = entrepriseService.filterEntreprises(ville, denomination, secteurNom, formeJuridiqueNom);
+        if (includeArchived) {
+            entreprises.addAll(archiveService.filtrer(ville, denomination, secteurNom, formeJuridiqueNom));
+        }
 
         // Retourner une réponse appropriée si la liste est vide
         if (entreprises.isEmpty()) {
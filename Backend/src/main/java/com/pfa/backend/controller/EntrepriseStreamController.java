@@ -0,0 +1,36 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.service.EntrepriseStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/entreprises")
+public class EntrepriseStreamController {
+
+    @Autowired
+    private EntrepriseStreamService entrepriseStreamService;
+
+    // EventSource côté navigateur ; à la reconnexion, Last-Event-ID permet de reprendre sans perte
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @RequestParam(value = "ville", required = false) String ville,
+            @RequestParam(value = "secteurId", required = false) Long secteurId,
+            @RequestParam(value = "bbox", required = false) String bbox,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        EntrepriseStreamService.Filtre filtre;
+        try {
+            filtre = new EntrepriseStreamService.Filtre(ville, secteurId, bbox);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(entrepriseStreamService.abonner(filtre, lastEventId != null ? lastEventId : lastEventIdParam));
+    }
+}
@@ -0,0 +1,35 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.DTO.EntrepriseResumeDTO;
+import com.pfa.backend.DTO.GerantPersonneDTO;
+import com.pfa.backend.service.GerantService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/gerants")
+public class GerantController {
+
+    @Autowired
+    private GerantService gerantService;
+
+    @GetMapping("/search")
+    public List<GerantPersonneDTO> rechercher(
+            @RequestParam("q") String q,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return gerantService.rechercher(q, Math.min(Math.max(limit, 1), 200));
+    }
+
+    @GetMapping("/{key}/entreprises")
+    public ResponseEntity<List<EntrepriseResumeDTO>> getEntreprisesByGerant(@PathVariable String key) {
+        List<EntrepriseResumeDTO> entreprises = gerantService.getEntreprisesByCle(key);
+        if (entreprises.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(entreprises);
+    }
+}
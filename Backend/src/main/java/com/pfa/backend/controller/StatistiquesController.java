@@ -0,0 +1,127 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.DTO.CompactionHistoriqueDTO;
+import com.pfa.backend.DTO.HistoriqueAgregatDTO;
+import com.pfa.backend.DTO.StatistiqueGroupeDTO;
+import com.pfa.backend.DTO.VilleDTO;
+import com.pfa.backend.service.EntrepriseSnapshot;
+import com.pfa.backend.service.HistoriqueAgregatService;
+import com.pfa.backend.service.HistoriqueCompactionService;
+import com.pfa.backend.service.StatistiquesService;
+import com.pfa.backend.service.VilleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/statistiques")
+public class StatistiquesController {
+
+    @Autowired
+    private StatistiquesService statistiquesService;
+    @Autowired
+    private HistoriqueAgregatService historiqueAgregatService;
+    @Autowired
+    private HistoriqueCompactionService historiqueCompactionService;
+    @Autowired
+    private VilleService villeService;
+
+    // ex. /api/statistiques?groupBy=VILLE&mesure=CAPITAL_SOCIAL&percentiles=50,90&secteurId=2
+    @GetMapping
+    public ResponseEntity<List<StatistiqueGroupeDTO>> agreger(
+            @RequestParam(value = "groupBy", defaultValue = "AUCUNE") EntrepriseSnapshot.Dimension groupBy,
+            @RequestParam(value = "mesure", required = false) EntrepriseSnapshot.Mesure mesure,
+            @RequestParam(value = "largeur", required = false) Double largeur,
+            @RequestParam(value = "percentiles", required = false) List<Double> percentiles,
+            @RequestParam(value = "ville", required = false) String ville,
+            @RequestParam(value = "secteurId", required = false) Long secteurId,
+            @RequestParam(value = "formeJuridiqueId", required = false) Long formeJuridiqueId,
+            @RequestParam(value = "anneeMin", required = false) Integer anneeMin,
+            @RequestParam(value = "anneeMax", required = false) Integer anneeMax
+    ) {
+        EntrepriseSnapshot.Filtre filtre = new EntrepriseSnapshot.Filtre();
+        // Le snapshot est encodé par nom canonique : "casa" ou "CASABLANCA" désignent Casablanca
+        filtre.ville = ville != null && !ville.isEmpty() ? villeService.trouver(ville).map(VilleDTO::getNom).orElse(ville) : null;
+        filtre.secteurId = secteurId;
+        filtre.formeId = formeJuridiqueId;
+        filtre.anneeMin = anneeMin;
+        filtre.anneeMax = anneeMax;
+        try {
+            return ResponseEntity.ok(statistiquesService.agreger(groupBy, mesure, largeur, percentiles, filtre));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/total")
+    public Map<String, Integer> total() {
+        return Map.of("nombreEntreprises", statistiquesService.nombreEntreprises());
+    }
+
+    // Statistiques de l'historique, lues sur les agrégats ; période par défaut : les 12 derniers mois
+    @GetMapping("/historique/attributs")
+    public List<HistoriqueAgregatDTO> historiqueParAttribut(
+            @RequestParam(value = "du", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam(value = "au", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au) {
+        return historiqueAgregatService.parAttribut(debut(du), fin(au));
+    }
+
+    // ex. /api/statistiques/historique/attributs/ville?granularite=MOIS
+    @GetMapping("/historique/attributs/{attribut}")
+    public List<HistoriqueAgregatDTO> historiqueSerieAttribut(
+            @PathVariable String attribut,
+            @RequestParam(value = "granularite", defaultValue = "JOUR") String granularite,
+            @RequestParam(value = "du", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam(value = "au", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au) {
+        return historiqueAgregatService.serieAttribut(attribut, debut(du), fin(au), granularite.equalsIgnoreCase("MOIS"));
+    }
+
+    @GetMapping("/historique/entreprises")
+    public List<HistoriqueAgregatDTO> historiqueParEntreprise(
+            @RequestParam(value = "limite", defaultValue = "20") int limite,
+            @RequestParam(value = "du", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam(value = "au", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au) {
+        return historiqueAgregatService.entreprisesLesPlusModifiees(debut(du), fin(au), Math.min(Math.max(limite, 1), 500));
+    }
+
+    @GetMapping("/historique/volume")
+    public List<HistoriqueAgregatDTO> historiqueVolume(
+            @RequestParam(value = "du", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam(value = "au", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au) {
+        return historiqueAgregatService.volumeMensuel(debut(du), fin(au));
+    }
+
+    @PostMapping("/historique/rattrapage")
+    public ResponseEntity<Map<String, Long>> rattraperHistorique() {
+        long lignes = historiqueAgregatService.rattraper();
+        if (lignes < 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(Map.of("lignes", lignes));
+    }
+
+    // Conversion des lignes anciennes au format compact et rétention ; retourne les octets gagnés
+    @PostMapping("/historique/compaction")
+    public ResponseEntity<CompactionHistoriqueDTO> compacterHistorique() {
+        CompactionHistoriqueDTO resultat = historiqueCompactionService.compacter();
+        if (resultat == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(resultat);
+    }
+
+    private static LocalDate debut(LocalDate du) {
+        return du != null ? du : LocalDate.now().minusMonths(12);
+    }
+
+    private static LocalDate fin(LocalDate au) {
+        return au != null ? au : LocalDate.now();
+    }
+}
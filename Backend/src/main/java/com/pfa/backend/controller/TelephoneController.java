@@ -0,0 +1,35 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.DTO.NumeroLookupDTO;
+import com.pfa.backend.service.AnnuaireService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/telephones")
+public class TelephoneController {
+
+    private static final int TAILLE_MAX_LOT = 5000;
+
+    @Autowired
+    private AnnuaireService annuaireService;
+
+    // /api/telephones/lookup?numero=0522123456&numero=0661...
+    @GetMapping("/lookup")
+    public ResponseEntity<List<NumeroLookupDTO>> lookup(@RequestParam("numero") List<String> numeros) {
+        return lookupLot(numeros);
+    }
+
+    // Lot de numéros dans le corps pour les intégrations (centre d'appels)
+    @PostMapping("/lookup")
+    public ResponseEntity<List<NumeroLookupDTO>> lookupLot(@RequestBody List<String> numeros) {
+        if (numeros.size() > TAILLE_MAX_LOT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(annuaireService.rechercher(numeros));
+    }
+}
@@ -0,0 +1,40 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.DTO.VilleDTO;
+import com.pfa.backend.service.VilleService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/villes")
+public class VilleController {
+
+    @Autowired
+    private VilleService villeService;
+
+    @GetMapping
+    public List<VilleDTO> getAllVilles() {
+        return villeService.getAllVilles();
+    }
+
+    @GetMapping("/autocomplete")
+    public List<VilleDTO> autocomplete(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return villeService.autocompleter(q, Math.min(Math.max(limit, 1), 100));
+    }
+
+    @PostMapping("/{id}/alias")
+    public ResponseEntity<VilleDTO> ajouterAlias(@PathVariable Long id, @RequestParam("alias") String alias) {
+        try {
+            return ResponseEntity.ok(villeService.ajouterAlias(id, alias));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,21 +1,42 @@
 package com.pfa.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pfa.backend.util.NumeroTelephone;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.function.Function;
 
 @Entity
 @Data
 @Inheritance(strategy = InheritanceType.JOINED)
+// idx_entreprise_denomination, index sur préfixe, n'est déclaré que dans V3__index_recherche.sql
+@Table(indexes = {
+        @Index(name = "idx_entreprise_ville_id", columnList = "ville_id"),
+        @Index(name = "idx_entreprise_ville", columnList = "ville"),
+        @Index(name = "idx_entreprise_ice", columnList = "ice"),
+        @Index(name = "idx_entreprise_identifiant_fiscal", columnList = "identifiant_fiscal")
+})
 @EntityListeners(EntrepriseListener.class)
+// Les entreprises supprimées restent invisibles jusqu'à leur archivage
+@SQLRestriction("date_suppression IS NULL")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entreprise")
 public class Entreprise {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Identifiants réservés par blocs de 50 (voir IdentifiantService) : les insertions peuvent être groupées
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "entreprise_id")
+    @TableGenerator(name = "entreprise_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "entreprise", allocationSize = 50)
     private Long id;
 
     private String denomination;
@@ -28,13 +49,24 @@ public class Entreprise {
     private String adresse;
     private String ville;
 
+    // Référence normalisée ; "ville" garde le nom canonique pour l'affichage et les filtres
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ville_id")
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Ville villeReference;
+
     @OneToMany(mappedBy = "entreprise", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entreprise_telephones")
     private List<Telephone> telephones = new ArrayList<>();
 
     @OneToMany(mappedBy = "entreprise", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entreprise_faxes")
     private List<Fax> faxes = new ArrayList<>();
 
     @OneToMany(mappedBy = "entreprise", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entreprise_gerants")
     private List<Gerant> gerants = new ArrayList<>();
     public void addTelephones(List<String> telephones) {
         if (telephones != null) {
@@ -62,23 +94,90 @@ public class Entreprise {
         if (gerants != null && !gerants.isEmpty()) {
             String[] gerantsArray = gerants.split(",");
             for (String fullName : gerantsArray) {
-                String[] nameParts = fullName.trim().split(" ");
-                if (nameParts.length == 2) {
-                    Gerant gerant = new Gerant();
-                    gerant.setNom(nameParts[0].trim());
-                    gerant.setPrenom(nameParts[1].trim());
-                    gerant.setEntreprise(this);
-                    this.gerants.add(gerant);
+                String[] nameParts = fullName.trim().split("\\s+");
+                if (nameParts[0].isEmpty()) {
+                    continue;
+                }
+                // "Nom Prénom" ; pour les noms composés, le dernier mot est le prénom
+                Gerant gerant = new Gerant();
+                if (nameParts.length == 1) {
+                    gerant.setNom(nameParts[0]);
                 } else {
-                    System.out.println("Nom complet invalide pour le gérant : " + fullName);
+                    gerant.setNom(String.join(" ", Arrays.copyOf(nameParts, nameParts.length - 1)));
+                    gerant.setPrenom(nameParts[nameParts.length - 1]);
                 }
+                gerant.setEntreprise(this);
+                this.gerants.add(gerant);
+            }
+        }
+    }
+
+    // Synchronisation des collections depuis une liste reçue : un élément dont l'id est connu est mis à jour,
+    // les autres sont ajoutés (les éléments absents de la liste sont conservés). Retourne les ajouts.
+    public List<Telephone> synchroniserTelephones(List<Telephone> recus) {
+        List<Telephone> ajouts = new ArrayList<>();
+        for (Telephone recu : recus) {
+            Telephone existant = trouver(telephones, Telephone::getId, recu.getId());
+            if (existant != null) {
+                existant.setNumero(recu.getNumero());
+            } else {
+                recu.setId(null);
+                recu.setEntreprise(this);
+                telephones.add(recu);
+                ajouts.add(recu);
+            }
+        }
+        return ajouts;
+    }
+
+    public List<Fax> synchroniserFaxes(List<Fax> recus) {
+        List<Fax> ajouts = new ArrayList<>();
+        for (Fax recu : recus) {
+            Fax existant = trouver(faxes, Fax::getId, recu.getId());
+            if (existant != null) {
+                existant.setNumero(recu.getNumero());
+            } else {
+                recu.setId(null);
+                recu.setEntreprise(this);
+                faxes.add(recu);
+                ajouts.add(recu);
+            }
+        }
+        return ajouts;
+    }
+
+    public List<Gerant> synchroniserGerants(List<Gerant> recus) {
+        List<Gerant> ajouts = new ArrayList<>();
+        for (Gerant recu : recus) {
+            Gerant existant = trouver(gerants, Gerant::getId, recu.getId());
+            if (existant != null) {
+                existant.setNom(recu.getNom());
+                existant.setPrenom(recu.getPrenom());
+            } else {
+                recu.setId(null);
+                recu.setEntreprise(this);
+                gerants.add(recu);
+                ajouts.add(recu);
+            }
+        }
+        return ajouts;
+    }
+
+    private static <T> T trouver(List<T> elements, Function<T, Long> id, Long recherche) {
+        if (recherche == null) {
+            return null;
+        }
+        for (T element : elements) {
+            if (recherche.equals(id.apply(element))) {
+                return element;
             }
         }
+        return null;
     }
 
     public void updateTelephone(String oldNumber, String newNumber) {
         for (Telephone telephone : telephones) {
-            if (telephone.getNumero().equals(oldNumber)) {
+            if (NumeroTelephone.memeNumero(telephone.getNumero(), oldNumber)) {
                 telephone.setNumero(newNumber);
                 break;
             }
@@ -87,7 +186,7 @@ public class Entreprise {
 
     public void updateFax(String oldNumber, String newNumber) {
         for (Fax fax : faxes) {
-            if (fax.getNumero().equals(oldNumber)) {
+            if (NumeroTelephone.memeNumero(fax.getNumero(), oldNumber)) {
                 fax.setNumero(newNumber);
                 break;
             }
@@ -113,7 +212,12 @@ public class Entreprise {
     @Lob
     @Column(name = "logo", columnDefinition="LONGBLOB")
     private byte[] logo;
+    // SHA-256 du logo, calculé pendant la lecture de l'envoi : un logo identique n'est pas réécrit
+    @Column(name = "logo_empreinte", length = 64)
+    @JsonIgnore
+    private String logoEmpreinte;
     private Date dateCessationActivite;
+    private Date dateSuppression;
 
     @ManyToOne
     @JoinColumn(name = "secteur_id")
@@ -124,6 +228,7 @@ public class Entreprise {
     private FormeJuridique formeJuridique;
 
     @OneToMany(mappedBy = "entreprise", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entreprise_historique")
     private List<HistoriqueDentreprise> historiqueDentreprise = new ArrayList<>();
 
     @Transient
@@ -0,0 +1,42 @@
+package com.pfa.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.Date;
+
+// Entreprise supprimée ou ayant cessé son activité, sortie de la table principale avec ses enfants.
+// "contenu" est l'EntrepriseDTO complet (téléphones, fax, gérants, historique) sérialisé en JSON.
+@Entity
+@Data
+@Table(indexes = {
+        @Index(name = "idx_entreprise_archive_ville", columnList = "ville"),
+        @Index(name = "idx_entreprise_archive_ice", columnList = "ice")
+})
+public class EntrepriseArchive {
+
+    @Id
+    private Long id;
+
+    private String denomination;
+    private String ville;
+    private Integer ice;
+    private Date dateCessationActivite;
+    private Date dateSuppression;
+    private Date dateArchivage;
+    private String motif;
+    // Entité d'origine (EntrepriseCommerciale, EntrepriseIndustrielle, EntrepriseDeService ou Entreprise) ;
+    // null pour les archives antérieures à la colonne
+    private String typeEntreprise;
+
+    @Lob
+    @Column(columnDefinition = "LONGTEXT")
+    @ToString.Exclude
+    private String contenu;
+
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    @ToString.Exclude
+    private byte[] logo;
+}
@@ -1,31 +1,50 @@
 package com.pfa.backend.entity;
 
+import com.pfa.backend.event.Diagnostic;
+import com.pfa.backend.util.ValeurHistorique;
 import jakarta.persistence.*;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.Date;
 @Component
 public class EntrepriseListener {
 
+    @Value("${historique.compression.seuil:512}")
+    private int seuilCompression;
+
     @PreUpdate
     public void preUpdate(Entreprise entreprise) {
+        Diagnostic.Historique evenement = new Diagnostic.Historique();
+        evenement.begin();
+        int lignes = 0;
         BeanWrapper beanWrapper = new BeanWrapperImpl(entreprise);
         for (String propertyName : entreprise.getOriginalValues().keySet()) {
             Object originalValue = entreprise.getOriginalValues().get(propertyName);
+            // Collections modifiées sur place : historisées par EntrepriseService à partir d'une image
+            if (originalValue == null || originalValue instanceof Collection || ValeurHistorique.IGNOREES.contains(propertyName)) {
+                continue;
+            }
             Object newValue = beanWrapper.getPropertyValue(propertyName);
 
-            if (originalValue != null && !originalValue.equals(newValue)) {
+            ValeurHistorique.Changement changement = ValeurHistorique.encoder(originalValue, newValue, seuilCompression);
+            if (changement != null) {
                 HistoriqueDentreprise historique = new HistoriqueDentreprise();
                 historique.setEntreprise(entreprise);
                 historique.setAttributModifie(propertyName);
-                historique.setAncienneValeur(originalValue.toString());
-                historique.setNouvelleValeur(newValue != null ? newValue.toString() : null);
+                historique.setTypeValeur(changement.type());
+                historique.setAncienneValeur(changement.ancienne());
+                historique.setNouvelleValeur(changement.nouvelle());
+                historique.setValeursCompressees(changement.compresse());
                 historique.setDateModification(new Date());
 
                 entreprise.getHistoriqueDentreprise().add(historique);
+                lignes++;
             }
         }
+        evenement.terminer("EntrepriseListener", entreprise.getId(), entreprise.getOriginalValues().size(), lignes);
     }
 }
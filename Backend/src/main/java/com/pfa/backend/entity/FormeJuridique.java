@@ -5,16 +5,21 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "forme_juridique")
 public class FormeJuridique {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "forme_juridique_id")
+    @TableGenerator(name = "forme_juridique_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "forme_juridique", allocationSize = 50)
     private Long id;
 
     private String nom;
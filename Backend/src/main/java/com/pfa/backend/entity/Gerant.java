@@ -1,20 +1,40 @@
 package com.pfa.backend.entity;
 
+import com.pfa.backend.util.Normalisation;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_gerant_cle_nom", columnList = "cle_nom"),
+        @Index(name = "idx_gerant_entreprise_id", columnList = "entreprise_id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "gerant")
 public class Gerant {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "gerant_id")
+    @TableGenerator(name = "gerant_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "gerant", allocationSize = 50)
     private Long id;
 
     private String nom;
     private String prenom;
 
+    // Clé de l'index des personnes, recalculée à chaque écriture
+    @Column(name = "cle_nom")
+    private String cleNom;
+
     @ManyToOne
     @JoinColumn(name = "entreprise_id")
     private Entreprise entreprise;
-}
\ No newline at end of file
+
+    @PrePersist
+    @PreUpdate
+    public void calculerCleNom() {
+        this.cleNom = Normalisation.clePersonne(nom, prenom);
+    }
+}
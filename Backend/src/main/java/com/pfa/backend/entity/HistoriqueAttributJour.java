@@ -0,0 +1,27 @@
+package com.pfa.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Agrégat de l'historique : nombre de modifications d'un attribut par jour.
+// Tenu à jour par HistoriqueAgregatService à chaque écriture d'historique.
+@Entity
+@Data
+@Table(indexes = @Index(name = "idx_historique_attribut_jour_jour", columnList = "jour"))
+public class HistoriqueAttributJour {
+
+    @EmbeddedId
+    private Cle id;
+
+    private long nombre;
+
+    @Embeddable
+    @Data
+    public static class Cle implements Serializable {
+        private String attribut;
+        private LocalDate jour;
+    }
+}
@@ -1,16 +1,26 @@
 package com.pfa.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import com.pfa.backend.util.ValeurHistorique;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.util.Date;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_historique_entreprise_date", columnList = "entreprise_id, date_modification"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "historique_dentreprise")
 public class HistoriqueDentreprise {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "historique_dentreprise_id")
+    @TableGenerator(name = "historique_dentreprise_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "historique_dentreprise", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -18,9 +28,23 @@ public class HistoriqueDentreprise {
     private Entreprise entreprise;
 
     private String attributModifie; // Nom de l'attribut modifié
+    @Column(length = ValeurHistorique.LONGUEUR_MAX)
     private String ancienneValeur;    // Valeur avant modification
+    @Column(length = ValeurHistorique.LONGUEUR_MAX)
     private String nouvelleValeur;    // Valeur après modification
+    // Format des deux valeurs ; null pour les lignes antérieures, converties par HistoriqueCompactionService
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 16)
+    private ValeurHistorique.Type typeValeur;
+    // Deflate + Base64 : à relire avec ValeurHistorique.decoder
+    private Boolean valeursCompressees;
     private Date dateModification;  // Date de la modification
+
+    // Déjà compté dans les agrégats : vrai pour toute ligne écrite depuis leur création,
+    // null pour les lignes antérieures que le rattrapage doit encore traiter
+    @JsonIgnore
+    private Boolean agrege = true;
 }
 
 
@@ -0,0 +1,28 @@
+package com.pfa.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Agrégat de l'historique : nombre de modifications d'une entreprise par mois (mois = 1er jour du mois).
+// Tenu à jour par HistoriqueAgregatService à chaque écriture d'historique.
+@Entity
+@Data
+@Table(indexes = @Index(name = "idx_historique_entreprise_mois_mois", columnList = "mois"))
+public class HistoriqueEntrepriseMois {
+
+    @EmbeddedId
+    private Cle id;
+
+    private long nombre;
+
+    @Embeddable
+    @Data
+    public static class Cle implements Serializable {
+        @Column(name = "entreprise_id")
+        private Long entrepriseId;
+        private LocalDate mois;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pfa.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Invalidations publiées par BusInvalidationJdbc ; chaque nœud relève périodiquement
+// les lignes d'id supérieur à son curseur.
+@Entity
+@Data
+@Table(indexes = @Index(name = "idx_invalidation_diffusee_horodatage", columnList = "horodatage"))
+public class InvalidationDiffusee {
+
+    // IDENTITY, comme le journal des modifications : les nœuds lisent la table dans l'ordre des ids
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 32)
+    private String region;
+
+    // Ids séparés par des virgules ; vide : toute la région
+    @Column(length = 4000)
+    private String cles;
+
+    private String origine;
+
+    @Column(nullable = false)
+    private long horodatage;
+}
@@ -0,0 +1,31 @@
+package com.pfa.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+// Journal (outbox) écrit dans la même transaction que chaque modification d'entreprise ;
+// son id croissant sert de jeton de synchronisation aux clients.
+@Entity
+@Data
+@Table(indexes = @Index(name = "idx_journal_entreprise_id", columnList = "entreprise_id"))
+public class JournalModification {
+
+    // Reste en IDENTITY : des blocs préalloués par instance rendraient le jeton non monotone
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entreprise_id", nullable = false)
+    private Long entrepriseId;
+
+    private String operation;
+
+    @Column(length = 1000)
+    private String attributs;
+
+    // Valeur par défaut de la colonne : heure de la base au moment de l'insertion
+    @Column(insertable = false, updatable = false)
+    private Date dateModification;
+}
@@ -0,0 +1,36 @@
+package com.pfa.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.Date;
+
+// Version réduite (PNG carré) du logo d'une entreprise, générée en arrière-plan par LogoService
+@Entity
+@Data
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_logo_derive_entreprise_taille",
+        columnNames = {"entreprise_id", "taille"}))
+public class LogoDerive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "logo_derive_id")
+    @TableGenerator(name = "logo_derive_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "logo_derive", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "entreprise_id", nullable = false)
+    private Long entrepriseId;
+
+    @Column(nullable = false)
+    private Integer taille;
+
+    private String contentType;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    @ToString.Exclude
+    private byte[] donnees;
+
+    private Date dateCreation;
+}
@@ -1,16 +1,21 @@
 package com.pfa.backend.entity;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "secteur_dactivite")
 public class SecteurDactivite {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "secteur_dactivite_id")
+    @TableGenerator(name = "secteur_dactivite_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "secteur_dactivite", allocationSize = 50)
     private Long id;
 
     private String nom;
@@ -1,19 +1,39 @@
 package com.pfa.backend.entity;
 
+import com.pfa.backend.util.NumeroTelephone;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_telephone_numero_normalise", columnList = "numero_normalise"),
+        @Index(name = "idx_telephone_entreprise_id", columnList = "entreprise_id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "telephone")
 public class Telephone {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "telephone_id")
+    @TableGenerator(name = "telephone_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "telephone", allocationSize = 50)
     private Long id;
 
     private String numero;
 
+    // Forme E.164 utilisée pour la recherche inverse
+    @Column(name = "numero_normalise", length = 16)
+    private String numeroNormalise;
+
     @ManyToOne
     @JoinColumn(name = "entreprise_id")
     private Entreprise entreprise;
+
+    @PrePersist
+    @PreUpdate
+    public void normaliserNumero() {
+        this.numeroNormalise = NumeroTelephone.normaliser(numero);
+    }
 }
@@ -0,0 +1,38 @@
+package com.pfa.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Entity
+@Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ville")
+public class Ville {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ville_id")
+    @TableGenerator(name = "ville_id", table = "id_generateur", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "ville", allocationSize = 50)
+    private Long id;
+
+    private String nom;
+
+    // Clé de rapprochement : sans accents, minuscules, espaces normalisés
+    @Column(unique = true, nullable = false)
+    private String nomNormalise;
+
+    // Autres graphies (déjà normalisées) rattachées à cette ville, ex. "casa" -> Casablanca
+    @ElementCollection(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ville_alias")
+    @CollectionTable(name = "ville_alias", joinColumns = @JoinColumn(name = "ville_id"))
+    @Column(name = "alias", unique = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<String> alias = new HashSet<>();
+}
@@ -0,0 +1,184 @@
+package com.pfa.backend.event;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jdk.jfr.*;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Événements JDK Flight Recorder du chemin requête / persistance, lus dans JDK Mission Control
+// (catégorie Cartographie). Hors enregistrement, isEnabled() est faux et rien n'est mesuré.
+// Le contexte de la requête (endpoint, entreprise) est porté par le thread qui la traite.
+public final class Diagnostic {
+
+    private static final ThreadLocal<Contexte> CONTEXTE = new ThreadLocal<>();
+
+    private Diagnostic() {
+    }
+
+    public static final class Contexte {
+        private final HttpServletRequest requete;
+        public Long entrepriseId;
+        // Retour du contrôleur : la suite de la requête est l'écriture de la réponse
+        public long finControleurNs;
+        // Lecture du corps en cours (DiagnosticLiaisonAdvice)
+        public LiaisonJson liaison;
+
+        Contexte(HttpServletRequest requete) {
+            this.requete = requete;
+        }
+
+        // Motif de la route une fois le contrôleur choisi (cardinalité bornée), l'URI avant
+        public String endpoint() {
+            Object motif = requete.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return requete.getMethod() + " " + (motif != null ? motif : requete.getRequestURI());
+        }
+    }
+
+    public static Contexte ouvrir(HttpServletRequest requete) {
+        Contexte contexte = new Contexte(requete);
+        CONTEXTE.set(contexte);
+        return contexte;
+    }
+
+    public static void fermer() {
+        CONTEXTE.remove();
+    }
+
+    // null hors requête HTTP (tâches planifiées, écouteurs asynchrones)
+    public static Contexte contexte() {
+        return CONTEXTE.get();
+    }
+
+    public static String endpoint() {
+        Contexte contexte = CONTEXTE.get();
+        return contexte != null ? contexte.endpoint() : null;
+    }
+
+    public static long entrepriseId() {
+        Contexte contexte = CONTEXTE.get();
+        return contexte != null && contexte.entrepriseId != null ? contexte.entrepriseId : 0;
+    }
+
+    @Name("cartographie.Requete")
+    @Label("Requête HTTP")
+    @Category({"Cartographie", "Web"})
+    @StackTrace(false)
+    public static class Requete extends Event {
+        @Label("Endpoint")
+        public String endpoint;
+        @Label("Statut")
+        public int statut;
+        @Label("Entreprise")
+        public long entrepriseId;
+        @Label("Écriture de la réponse")
+        @Description("Du retour du contrôleur à la fin de la requête : sérialisation JSON et envoi")
+        @Timespan
+        public long ecritureReponse;
+    }
+
+    @Name("cartographie.LiaisonJson")
+    @Label("Lecture du corps JSON")
+    @Category({"Cartographie", "Web"})
+    @StackTrace(false)
+    public static class LiaisonJson extends Event {
+        @Label("Endpoint")
+        public String endpoint;
+        @Label("Type cible")
+        public String type;
+    }
+
+    @Name("cartographie.SerialisationJson")
+    @Label("Sérialisation JSON")
+    @Category({"Cartographie", "Web"})
+    @StackTrace(false)
+    public static class SerialisationJson extends Event {
+        @Label("Endpoint")
+        public String endpoint;
+        @Label("Entreprise")
+        public long entrepriseId;
+        @Label("Taille JSON")
+        @DataAmount
+        public long octets;
+        @Label("Gzip")
+        public boolean gzip;
+    }
+
+    // Un appel de contrôleur, de service ou de dépôt (DiagnosticAspect)
+    @Name("cartographie.Couche")
+    @Label("Appel de couche")
+    @Category({"Cartographie", "Couches"})
+    @StackTrace(false)
+    public static class Couche extends Event {
+        @Label("Couche")
+        public String couche;
+        @Label("Opération")
+        public String operation;
+        @Label("Endpoint")
+        public String endpoint;
+        @Label("Entreprise")
+        public long entrepriseId;
+        @Label("Lignes")
+        @Description("Éléments renvoyés (collection, page, tableau) ou lignes modifiées")
+        public long lignes;
+        @Label("Échec")
+        public boolean echec;
+    }
+
+    @Name("cartographie.Flush")
+    @Label("Flush Hibernate")
+    @Category({"Cartographie", "Persistance"})
+    @StackTrace(false)
+    public static class Flush extends Event {
+        @Label("Endpoint")
+        public String endpoint;
+        @Label("Entreprise")
+        public long entrepriseId;
+        @Label("Entités")
+        public int entites;
+        @Label("Collections")
+        public int collections;
+    }
+
+    // Comparaison des valeurs par BeanWrapper et lignes d'historique produites
+    @Name("cartographie.Historique")
+    @Label("Écriture de l'historique")
+    @Category({"Cartographie", "Persistance"})
+    @StackTrace(false)
+    public static class Historique extends Event {
+        @Label("Origine")
+        public String origine;
+        @Label("Endpoint")
+        public String endpoint;
+        @Label("Entreprise")
+        public long entrepriseId;
+        @Label("Attributs comparés")
+        public int attributs;
+        @Label("Lignes")
+        public int lignes;
+
+        public void terminer(String origine, Long entrepriseId, int attributs, int lignes) {
+            if (shouldCommit()) {
+                this.origine = origine;
+                this.endpoint = Diagnostic.endpoint();
+                this.entrepriseId = entrepriseId != null ? entrepriseId : 0;
+                this.attributs = attributs;
+                this.lignes = lignes;
+                commit();
+            }
+        }
+    }
+
+    @Name("cartographie.EncodageLogo")
+    @Label("Encodage des vignettes d'un logo")
+    @Category({"Cartographie", "Logos"})
+    @StackTrace(false)
+    public static class EncodageLogo extends Event {
+        @Label("Entreprise")
+        public long entrepriseId;
+        @Label("Original")
+        @DataAmount
+        public long octetsOriginal;
+        @Label("Vignettes")
+        @DataAmount
+        public long octetsVignettes;
+    }
+}
@@ -0,0 +1,53 @@
+package com.pfa.backend.event;
+
+import com.pfa.backend.entity.Entreprise;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+// Publié par EntrepriseService à chaque écriture ; les écouteurs
+// @TransactionalEventListener ne le reçoivent qu'après le commit.
+@Getter
+public class EntrepriseEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Long entrepriseId;
+    private final Entreprise entreprise;
+    private final Set<String> attributsModifies;
+    // Valeurs d'avant la modification, pour les attributs modifiés que l'émetteur connaît (vide sinon)
+    private final Map<String, Object> valeursPrecedentes;
+
+    public EntrepriseEvent(Type type, Long entrepriseId, Entreprise entreprise, Set<String> attributsModifies) {
+        this(type, entrepriseId, entreprise, attributsModifies, null);
+    }
+
+    public EntrepriseEvent(Type type, Long entrepriseId, Entreprise entreprise, Set<String> attributsModifies,
+                           Map<String, Object> valeursPrecedentes) {
+        this.type = type;
+        this.entrepriseId = entrepriseId;
+        this.entreprise = entreprise;
+        this.attributsModifies = attributsModifies != null ? attributsModifies : Collections.emptySet();
+        this.valeursPrecedentes = valeursPrecedentes != null ? valeursPrecedentes : Collections.emptyMap();
+    }
+
+    public static EntrepriseEvent created(Entreprise entreprise) {
+        return new EntrepriseEvent(Type.CREATED, entreprise.getId(), entreprise, null);
+    }
+
+    public static EntrepriseEvent updated(Entreprise entreprise, Set<String> attributsModifies) {
+        return new EntrepriseEvent(Type.UPDATED, entreprise.getId(), entreprise, attributsModifies);
+    }
+
+    public static EntrepriseEvent updated(Entreprise entreprise, Set<String> attributsModifies,
+                                          Map<String, Object> valeursPrecedentes) {
+        return new EntrepriseEvent(Type.UPDATED, entreprise.getId(), entreprise, attributsModifies, valeursPrecedentes);
+    }
+
+    public static EntrepriseEvent deleted(Long entrepriseId) {
+        return new EntrepriseEvent(Type.DELETED, entrepriseId, null, null);
+    }
+}
@@ -0,0 +1,24 @@
+package com.pfa.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Diffusée aux autres nœuds par le BusInvalidation après une écriture validée : ils retirent ces
+// entrées de leur cache de second niveau. Sans ids, toute la région est vidée.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Invalidation {
+
+    public enum Region { ENTREPRISE, TELEPHONE, FAX, GERANT, SECTEUR_DACTIVITE, FORME_JURIDIQUE, HISTORIQUE_DENTREPRISE }
+
+    private Region region;
+    private List<Long> ids;
+    // Nœud émetteur : il a déjà mis son propre cache à jour
+    private String origine;
+    // Heure de publication (ms) pour la mesure du délai de propagation ; 0 si non mesurable
+    private long horodatage;
+}
@@ -0,0 +1,201 @@
+package com.pfa.backend.generateur;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.random.RandomGenerator;
+
+// Distributions du jeu de données synthétique, calées sur le tissu d'entreprises marocain :
+// poids des villes proches de leur part d'entreprises, secteurs dominés par le commerce et le BTP,
+// SARL majoritaires, effectifs et capitaux log-normaux (beaucoup de petites structures, longue traîne).
+final class Distributions {
+
+    enum SousType { COMMERCIALE, INDUSTRIELLE, SERVICE }
+
+    // indicatif : deux chiffres du fixe après 05
+    record VilleRef(String nom, double latitude, double longitude, String indicatif, double poids) {
+    }
+
+    record SecteurRef(String nom, SousType sousType, String mot, double poids) {
+    }
+
+    // sigle : repris dans la dénomination ; null pour une personne physique
+    record FormeRef(String nom, String sigle, double capitalMedian, double poids) {
+    }
+
+    static final List<VilleRef> VILLES = List.of(
+            new VilleRef("Casablanca", 33.5731, -7.5898, "22", 30),
+            new VilleRef("Rabat", 34.0209, -6.8416, "37", 9),
+            new VilleRef("Tanger", 35.7595, -5.8340, "39", 8),
+            new VilleRef("Marrakech", 31.6295, -7.9811, "24", 8),
+            new VilleRef("Fès", 34.0181, -5.0078, "35", 7),
+            new VilleRef("Agadir", 30.4278, -9.5981, "28", 5),
+            new VilleRef("Meknès", 33.8935, -5.5473, "35", 4),
+            new VilleRef("Oujda", 34.6814, -1.9086, "36", 3),
+            new VilleRef("Kénitra", 34.2610, -6.5802, "37", 3),
+            new VilleRef("Tétouan", 35.5889, -5.3626, "39", 3),
+            new VilleRef("Salé", 34.0531, -6.7985, "37", 3),
+            new VilleRef("Mohammedia", 33.6861, -7.3829, "23", 3),
+            new VilleRef("El Jadida", 33.2316, -8.5007, "23", 2),
+            new VilleRef("Safi", 32.2994, -9.2372, "24", 2),
+            new VilleRef("Nador", 35.1681, -2.9335, "36", 2),
+            new VilleRef("Béni Mellal", 32.3373, -6.3498, "23", 2),
+            new VilleRef("Laâyoune", 27.1253, -13.1625, "28", 1),
+            new VilleRef("Khouribga", 32.8811, -6.9063, "23", 1),
+            new VilleRef("Settat", 33.0010, -7.6166, "23", 1),
+            new VilleRef("Errachidia", 31.9314, -4.4244, "35", 1));
+
+    static final List<SecteurRef> SECTEURS = List.of(
+            new SecteurRef("Commerce de gros et de détail", SousType.COMMERCIALE, "Négoce", 22),
+            new SecteurRef("BTP", SousType.INDUSTRIELLE, "Travaux", 12),
+            new SecteurRef("Services aux entreprises", SousType.SERVICE, "Conseil", 11),
+            new SecteurRef("Industrie agroalimentaire", SousType.INDUSTRIELLE, "Agro", 8),
+            new SecteurRef("Transport et logistique", SousType.SERVICE, "Logistique", 7),
+            new SecteurRef("Informatique et télécommunications", SousType.SERVICE, "Digital", 7),
+            new SecteurRef("Tourisme et restauration", SousType.SERVICE, "Voyages", 7),
+            new SecteurRef("Textile et habillement", SousType.INDUSTRIELLE, "Textile", 5),
+            new SecteurRef("Immobilier", SousType.COMMERCIALE, "Immobilier", 5),
+            new SecteurRef("Agriculture et pêche", SousType.INDUSTRIELLE, "Agri", 4),
+            new SecteurRef("Santé", SousType.SERVICE, "Médical", 4),
+            new SecteurRef("Enseignement et formation", SousType.SERVICE, "Formation", 3),
+            new SecteurRef("Services financiers", SousType.SERVICE, "Finance", 2),
+            new SecteurRef("Industrie chimique", SousType.INDUSTRIELLE, "Chimie", 2),
+            new SecteurRef("Énergie", SousType.INDUSTRIELLE, "Énergie", 1));
+
+    static final List<FormeRef> FORMES = List.of(
+            new FormeRef("SARL", "SARL", 100_000, 55),
+            new FormeRef("SARL AU", "SARL AU", 10_000, 25),
+            new FormeRef("Personne physique", null, 5_000, 10),
+            new FormeRef("SA", "SA", 3_000_000, 6),
+            new FormeRef("SAS", "SAS", 500_000, 2),
+            new FormeRef("SNC", "SNC", 50_000, 2));
+
+    static final String[] PREFIXES = {"Atlas", "Sahara", "Maghreb", "Oasis", "Anfa", "Rif", "Souss", "Argana", "Medina",
+            "Bahia", "Zitoun", "Al Amal", "Noor", "Yasmine", "Tafilalet", "Andalous", "Chellah", "Majorelle", "Oudaya",
+            "Assalam", "Dar", "Al Baraka", "Ifrane", "Toubkal", "Draa", "Moulouya", "Ouarzazate", "Sebou", "Zagora", "Tingis"};
+    static final String[] SUFFIXES = {"", "", "", " Maroc", " & Fils", " Services", " Group", " International", " Plus"};
+    static final String[] NOMS = {"Alaoui", "Bennani", "El Idrissi", "Tazi", "Berrada", "Cherkaoui", "Benjelloun",
+            "El Amrani", "Fassi Fihri", "Chraibi", "Lahlou", "Ouazzani", "Sqalli", "Kettani", "Benkirane", "El Mansouri",
+            "Zniber", "Naciri", "Belhaj", "Bouzidi", "Hajji", "Tahiri", "Rami", "Ziani", "Benali", "Amrani", "Saidi",
+            "El Fassi", "Bouazza", "Mouline", "Guessous", "Lazrak", "Sebti", "Benchekroun", "Filali", "Jettou"};
+    static final String[] PRENOMS = {"Mohamed", "Ahmed", "Youssef", "Fatima", "Khadija", "Amine", "Hamza", "Salma",
+            "Imane", "Omar", "Karim", "Nadia", "Rachid", "Samira", "Hassan", "Meryem", "Mehdi", "Soukaina", "Adil",
+            "Zineb", "Said", "Hind", "Anas", "Laila", "Driss", "Sanaa", "Othmane", "Houda", "Yassine", "Ghita"};
+    static final String[] VOIES = {"Rue", "Avenue", "Boulevard", "Résidence", "Lotissement", "Zone industrielle"};
+    static final String[] NOMS_VOIES = {"Mohammed V", "Hassan II", "des FAR", "Zerktouni", "Al Massira", "Ibn Sina",
+            "Moulay Youssef", "Abdelmoumen", "Al Qods", "Anoual", "Ibn Batouta", "Al Wahda", "Oued Sebou", "Al Fida"};
+
+    // Effectifs par entreprise : 0, 1, 2, ... (probabilités)
+    static final double[] NB_TELEPHONES = {0.08, 0.45, 0.30, 0.12, 0.03, 0.02};
+    static final double[] NB_FAXES = {0.60, 0.35, 0.05};
+    static final double[] NB_GERANTS = {0, 0.55, 0.28, 0.10, 0.05, 0.02};
+
+    // Attributs modifiés dans l'historique, avec leur fréquence relative
+    static final String[] ATTRIBUTS_HISTORIQUE = {"adresse", "capitalSocial", "nombreEmployes", "denomination", "mail",
+            "siteWeb", "ville"};
+    static final double[] POIDS_ATTRIBUTS = {25, 20, 20, 8, 8, 6, 8};
+
+    private Distributions() {
+    }
+
+    static <T> T tirer(RandomGenerator alea, List<T> elements, ToDoubleFunction<T> poids) {
+        double total = 0;
+        for (T element : elements) {
+            total += poids.applyAsDouble(element);
+        }
+        double seuil = alea.nextDouble() * total;
+        for (T element : elements) {
+            seuil -= poids.applyAsDouble(element);
+            if (seuil < 0) {
+                return element;
+            }
+        }
+        return elements.get(elements.size() - 1);
+    }
+
+    // Indice tiré selon des poids (pas forcément normalisés)
+    static int tirerIndice(RandomGenerator alea, double[] poids) {
+        double total = 0;
+        for (double p : poids) {
+            total += p;
+        }
+        double seuil = alea.nextDouble() * total;
+        for (int i = 0; i < poids.length; i++) {
+            seuil -= poids[i];
+            if (seuil < 0) {
+                return i;
+            }
+        }
+        return poids.length - 1;
+    }
+
+    static String tirer(RandomGenerator alea, String[] valeurs) {
+        return valeurs[alea.nextInt(valeurs.length)];
+    }
+
+    static double lognormale(RandomGenerator alea, double mediane, double sigma) {
+        return mediane * Math.exp(sigma * alea.nextGaussian());
+    }
+
+    // Fixe de la ville (05xx) ou mobile (06/07), sous les graphies courantes des saisies
+    static String numero(RandomGenerator alea, VilleRef ville, boolean mobileAutorise) {
+        String chiffres = mobileAutorise && alea.nextDouble() < 0.3
+                ? (alea.nextBoolean() ? "06" : "07") + chiffres(alea.nextInt(100_000_000), 8)
+                : "05" + ville.indicatif() + chiffres(alea.nextInt(1_000_000), 6);
+        return switch (tirerIndice(alea, new double[]{40, 30, 20, 10})) {
+            case 0 -> chiffres;
+            case 1 -> String.join(" ", chiffres.substring(0, 2), chiffres.substring(2, 4), chiffres.substring(4, 6),
+                    chiffres.substring(6, 8), chiffres.substring(8));
+            case 2 -> String.join("-", chiffres.substring(0, 4), chiffres.substring(4, 6), chiffres.substring(6, 8),
+                    chiffres.substring(8));
+            default -> "+212 " + chiffres.substring(1, 4) + "-" + chiffres.substring(4);
+        };
+    }
+
+    // Zéros à gauche, sans String.format (appelé des millions de fois)
+    private static String chiffres(int valeur, int longueur) {
+        String texte = Integer.toString(valeur);
+        return "0".repeat(longueur - texte.length()) + texte;
+    }
+
+    // Six décimales (une dizaine de centimètres)
+    static String coordonnee(double valeur) {
+        return Double.toString(Math.round(valeur * 1e6) / 1e6);
+    }
+
+    static String adresse(RandomGenerator alea) {
+        return (1 + alea.nextInt(250)) + " " + tirer(alea, VOIES) + " " + tirer(alea, NOMS_VOIES);
+    }
+
+    // Logos PNG de 48 à 512 px, plus ou moins chargés : de quelques centaines d'octets à quelques
+    // centaines de Ko, la plupart entre 5 et 50 Ko. Réutilisés d'une entreprise à l'autre.
+    static final double[] POIDS_LOGOS = {4, 8, 12, 14, 14, 12, 9, 6, 3, 1};
+
+    static List<byte[]> logos(RandomGenerator alea) {
+        int[] cotes = {48, 64, 96, 128, 160, 200, 256, 320, 400, 512};
+        List<byte[]> logos = new ArrayList<>();
+        for (int cote : cotes) {
+            BufferedImage image = new BufferedImage(cote, cote, BufferedImage.TYPE_INT_RGB);
+            int fond = alea.nextInt(0x1000000);
+            double densite = 0.05 + alea.nextDouble() * 0.5;
+            for (int y = 0; y < cote; y++) {
+                boolean bruit = alea.nextDouble() < densite;
+                for (int x = 0; x < cote; x++) {
+                    image.setRGB(x, y, bruit ? alea.nextInt(0x1000000) : fond);
+                }
+            }
+            ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+            try {
+                ImageIO.write(image, "png", sortie);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            logos.add(sortie.toByteArray());
+        }
+        return logos;
+    }
+}
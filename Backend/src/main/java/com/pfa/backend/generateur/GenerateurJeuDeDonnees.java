@@ -0,0 +1,393 @@
+package com.pfa.backend.generateur;
+
+import com.pfa.backend.DTO.VilleDTO;
+import com.pfa.backend.entity.FormeJuridique;
+import com.pfa.backend.entity.SecteurDactivite;
+import com.pfa.backend.repository.FormeJuridiqueRepository;
+import com.pfa.backend.repository.SecteurDactiviteRepository;
+import com.pfa.backend.service.VilleService;
+import com.pfa.backend.util.Normalisation;
+import com.pfa.backend.util.NumeroTelephone;
+import com.pfa.backend.util.ValeurHistorique;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Jeu de données synthétique pour les mesures à grande échelle, au démarrage sous le profil "generateur" :
+//   java -jar Backend.jar --spring.profiles.active=generateur --generateur.entreprises=1000000 --generateur.graine=42
+// Même graine et même nombre : mêmes entreprises, aux ids près (réservés à la suite de l'existant).
+// Les référentiels passent par les services ; le volume par SortieJdbc ou SortieFichiers.
+@Component
+@Profile("generateur")
+public class GenerateurJeuDeDonnees implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerateurJeuDeDonnees.class);
+
+    // allocationSize des @TableGenerator : une plage réservée ne recoupe aucun bloc déjà pris par un nœud
+    private static final int PAS_ALLOCATION = 50;
+
+    // Marque de fin pour les écrivains (comparée par identité)
+    private static final Map<SortieDonnees.Table, List<Object[]>> FIN = new EnumMap<>(SortieDonnees.Table.class);
+
+    @Value("${generateur.entreprises:10000}")
+    private int nombreEntreprises;
+    @Value("${generateur.graine:42}")
+    private long graine;
+    // jdbc ou fichiers
+    @Value("${generateur.sortie:jdbc}")
+    private String sortie;
+    @Value("${generateur.repertoire:jeu-de-donnees}")
+    private String repertoire;
+    @Value("${generateur.taille-lot:1000}")
+    private int tailleLot;
+    // Connexions d'écriture en parallèle de la génération (sortie jdbc ; un seul écrivain pour les fichiers)
+    @Value("${generateur.ecrivains:4}")
+    private int ecrivains;
+    @Value("${generateur.logos.proportion:0.05}")
+    private double proportionLogos;
+    // Dates tirées avant cette date fixe, pour qu'une même graine redonne les mêmes données
+    @Value("${generateur.date-reference:2025-01-01}")
+    private String dateReference;
+    @Value("${generateur.quitter:true}")
+    private boolean quitter;
+    @Value("${historique.compression.seuil:512}")
+    private int seuilCompression;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private VilleService villeService;
+    @Autowired
+    private SecteurDactiviteRepository secteurDactiviteRepository;
+    @Autowired
+    private FormeJuridiqueRepository formeJuridiqueRepository;
+    @Autowired
+    private ApplicationContext contexte;
+
+    private record VilleGeneree(Distributions.VilleRef ref, VilleDTO ville) {
+    }
+
+    private record Logo(byte[] donnees, String empreinte) {
+    }
+
+    // Une entreprise avant l'attribution des ids ; historique : attribut, type, ancienne, nouvelle, compressées, date
+    private record EntrepriseGeneree(Distributions.SousType sousType, Object[] colonnes, List<String> telephones,
+                                     List<String> faxes, List<String[]> gerants, List<Object[]> historique) {
+    }
+
+    private List<VilleGeneree> villes;
+    private Map<String, Long> secteurs;
+    private Map<String, Long> formes;
+    private List<Logo> logos;
+    private long finPeriode;
+    // Peu de combinaisons de noms : normalisées une fois
+    private final Map<String, String> domaines = new HashMap<>();
+    private final Map<String, String> clesGerants = new HashMap<>();
+
+    @Override
+    public void run(ApplicationArguments arguments) {
+        long debutMs = System.currentTimeMillis();
+        SplittableRandom alea = new SplittableRandom(graine);
+        preparerReferentiels();
+        logos = Distributions.logos(alea).stream().map(donnees -> new Logo(donnees, sha256(donnees))).toList();
+        finPeriode = LocalDate.parse(dateReference).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        // La génération et la réservation des ids restent séquentielles (reproductibles) ;
+        // seules les écritures, indépendantes d'un lot à l'autre, sont réparties
+        boolean fichiers = sortie.equalsIgnoreCase("fichiers");
+        int nbEcrivains = fichiers ? 1 : Math.max(1, ecrivains);
+        BlockingQueue<Map<SortieDonnees.Table, List<Object[]>>> file = new ArrayBlockingQueue<>(2 * nbEcrivains);
+        ExecutorService executeur = Executors.newFixedThreadPool(nbEcrivains);
+        List<Future<?>> ecritures = new ArrayList<>();
+        for (int i = 0; i < nbEcrivains; i++) {
+            ecritures.add(executeur.submit(() -> {
+                try (SortieDonnees destination = fichiers ? new SortieFichiers(Path.of(repertoire)) : new SortieJdbc(dataSource)) {
+                    for (Map<SortieDonnees.Table, List<Object[]>> lot = file.take(); lot != FIN; lot = file.take()) {
+                        lot.forEach((table, lignesTable) -> lignesTable.forEach(ligne -> destination.ecrire(table, ligne)));
+                        destination.terminerLot();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long lignes = 0;
+        try {
+            for (int fait = 0; fait < nombreEntreprises; fait += tailleLot) {
+                List<EntrepriseGeneree> lot = new ArrayList<>();
+                for (int i = 0; i < Math.min(tailleLot, nombreEntreprises - fait); i++) {
+                    lot.add(generer(alea));
+                }
+                Map<SortieDonnees.Table, List<Object[]>> lignesLot = lignes(lot);
+                for (List<Object[]> lignesTable : lignesLot.values()) {
+                    lignes += lignesTable.size();
+                }
+                deposer(file, lignesLot, ecritures);
+                int total = fait + lot.size();
+                if (total % (tailleLot * 50) == 0 || total == nombreEntreprises) {
+                    long ecouleMs = Math.max(1, System.currentTimeMillis() - debutMs);
+                    logger.info("Jeu de données : {} / {} entreprises, {} lignes ({} entreprises/s)",
+                            total, nombreEntreprises, lignes, total * 1000L / ecouleMs);
+                }
+            }
+            for (int i = 0; i < nbEcrivains; i++) {
+                deposer(file, FIN, ecritures);
+            }
+            for (Future<?> ecriture : ecritures) {
+                ecriture.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Génération interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Écriture du jeu de données impossible", e.getCause());
+        } finally {
+            executeur.shutdownNow();
+        }
+        logger.info("Jeu de données généré : {} entreprises, {} lignes, graine {}, sortie {} ({} ms)",
+                nombreEntreprises, lignes, graine, sortie, System.currentTimeMillis() - debutMs);
+        if (quitter) {
+            System.exit(SpringApplication.exit(contexte, () -> 0));
+        }
+    }
+
+    // Bloque tant que les écrivains sont en retard, mais échoue dès que l'un d'eux a échoué
+    private static void deposer(BlockingQueue<Map<SortieDonnees.Table, List<Object[]>>> file,
+                                Map<SortieDonnees.Table, List<Object[]>> lot, List<Future<?>> ecritures)
+            throws InterruptedException, ExecutionException {
+        while (!file.offer(lot, 1, TimeUnit.SECONDS)) {
+            for (Future<?> ecriture : ecritures) {
+                if (ecriture.isDone()) {
+                    ecriture.get();
+                    throw new IllegalStateException("Écrivain du jeu de données arrêté");
+                }
+            }
+        }
+    }
+
+    private void preparerReferentiels() {
+        villes = Distributions.VILLES.stream().map(v -> new VilleGeneree(v, villeService.resoudre(v.nom()))).toList();
+
+        Map<String, Long> secteursExistants = new HashMap<>();
+        secteurDactiviteRepository.findAll().forEach(s -> secteursExistants.putIfAbsent(Normalisation.cle(s.getNom()), s.getId()));
+        secteurs = new HashMap<>();
+        for (Distributions.SecteurRef ref : Distributions.SECTEURS) {
+            secteurs.put(ref.nom(), secteursExistants.computeIfAbsent(Normalisation.cle(ref.nom()), cle -> {
+                SecteurDactivite secteur = new SecteurDactivite();
+                secteur.setNom(ref.nom());
+                return secteurDactiviteRepository.save(secteur).getId();
+            }));
+        }
+
+        Map<String, Long> formesExistantes = new HashMap<>();
+        formeJuridiqueRepository.findAll().forEach(f -> formesExistantes.putIfAbsent(Normalisation.cle(f.getNom()), f.getId()));
+        formes = new HashMap<>();
+        for (Distributions.FormeRef ref : Distributions.FORMES) {
+            formes.put(ref.nom(), formesExistantes.computeIfAbsent(Normalisation.cle(ref.nom()), cle -> {
+                FormeJuridique forme = new FormeJuridique();
+                forme.setNom(ref.nom());
+                return formeJuridiqueRepository.save(forme).getId();
+            }));
+        }
+    }
+
+    private EntrepriseGeneree generer(SplittableRandom alea) {
+        VilleGeneree ville = Distributions.tirer(alea, villes, v -> v.ref().poids());
+        Distributions.SecteurRef secteur = Distributions.tirer(alea, Distributions.SECTEURS, Distributions.SecteurRef::poids);
+        Distributions.FormeRef forme = Distributions.tirer(alea, Distributions.FORMES, Distributions.FormeRef::poids);
+
+        String nom = Distributions.tirer(alea, Distributions.PREFIXES) + " " + secteur.mot()
+                + Distributions.tirer(alea, Distributions.SUFFIXES);
+        String denomination = forme.sigle() != null ? nom + " " + forme.sigle()
+                : Distributions.tirer(alea, Distributions.PRENOMS) + " " + Distributions.tirer(alea, Distributions.NOMS);
+        String domaine = domaines.computeIfAbsent(forme.sigle() != null ? nom : denomination,
+                n -> Normalisation.cle(n).replaceAll("[^a-z0-9]+", "-") + ".ma");
+        float capital = (float) (Math.round(Distributions.lognormale(alea, forme.capitalMedian(), 1.0) / 1000) * 1000 + 1000);
+        int effectif = 1 + (int) Math.min(20_000, Distributions.lognormale(alea, 4, 1.3));
+        // Plus d'entreprises récentes que d'anciennes
+        long creation = finPeriode - (long) (Math.min(60, alea.nextExponential() * 9) * 365.25 * 86_400_000L);
+        Long cessation = alea.nextDouble() < 0.06 ? creation + (long) (alea.nextDouble() * (finPeriode - creation)) : null;
+        boolean coordonnees = alea.nextDouble() < 0.85;
+        Logo logo = alea.nextDouble() < proportionLogos
+                ? logos.get(Distributions.tirerIndice(alea, Distributions.POIDS_LOGOS)) : null;
+
+        Object[] colonnes = {
+                denomination,
+                capital,
+                alea.nextDouble() < 0.7 ? 1 + alea.nextInt(999_999) : null,
+                alea.nextDouble() < 0.6 ? 1 + alea.nextInt(99_999_999) : null,
+                alea.nextDouble() < 0.5 ? 1 + alea.nextInt(9_999_999) : null,
+                Distributions.adresse(alea),
+                ville.ville().getNom(),
+                ville.ville().getId(),
+                alea.nextDouble() < 0.6 ? "contact@" + domaine : null,
+                alea.nextDouble() < 0.35 ? "www." + domaine : null,
+                effectif,
+                coordonnees ? Distributions.coordonnee(ville.ref().latitude() + alea.nextGaussian() * 0.04) : null,
+                coordonnees ? Distributions.coordonnee(ville.ref().longitude() + alea.nextGaussian() * 0.04) : null,
+                new Timestamp(creation),
+                cessation != null ? new Timestamp(cessation) : null,
+                secteurs.get(secteur.nom()),
+                formes.get(forme.nom()),
+                logo != null ? logo.donnees() : null,
+                logo != null ? logo.empreinte() : null};
+
+        List<String> telephones = new ArrayList<>();
+        for (int i = Distributions.tirerIndice(alea, Distributions.NB_TELEPHONES); i > 0; i--) {
+            telephones.add(Distributions.numero(alea, ville.ref(), true));
+        }
+        List<String> faxes = new ArrayList<>();
+        for (int i = Distributions.tirerIndice(alea, Distributions.NB_FAXES); i > 0; i--) {
+            faxes.add(Distributions.numero(alea, ville.ref(), false));
+        }
+        List<String[]> gerants = new ArrayList<>();
+        for (int i = Distributions.tirerIndice(alea, Distributions.NB_GERANTS); i > 0; i--) {
+            gerants.add(new String[]{Distributions.tirer(alea, Distributions.NOMS), Distributions.tirer(alea, Distributions.PRENOMS)});
+        }
+
+        return new EntrepriseGeneree(secteur.sousType(), colonnes, telephones, faxes, gerants,
+                historique(alea, colonnes, creation, cessation != null ? cessation : finPeriode));
+    }
+
+    // Remonte le temps depuis les valeurs actuelles : la dernière modification de chaque attribut
+    // aboutit à la valeur enregistrée, la précédente à l'ancienne valeur de celle-ci, etc.
+    private List<Object[]> historique(SplittableRandom alea, Object[] colonnes, long debut, long fin) {
+        int profondeur = (int) Math.min(40, alea.nextExponential() * 2.5);
+        Map<String, Object> courantes = new HashMap<>(Map.of("denomination", colonnes[0], "capitalSocial", colonnes[1],
+                "adresse", colonnes[5], "ville", colonnes[6], "nombreEmployes", colonnes[10]));
+        Optional.ofNullable(colonnes[8]).ifPresent(mail -> courantes.put("mail", mail));
+        Optional.ofNullable(colonnes[9]).ifPresent(site -> courantes.put("siteWeb", site));
+
+        long[] dates = new long[profondeur];
+        for (int i = 0; i < profondeur; i++) {
+            dates[i] = debut + (long) (alea.nextDouble() * (fin - debut));
+        }
+        Arrays.sort(dates);
+        List<Object[]> lignes = new ArrayList<>();
+        for (int i = profondeur - 1; i >= 0; i--) {
+            String attribut = Distributions.ATTRIBUTS_HISTORIQUE[Distributions.tirerIndice(alea, Distributions.POIDS_ATTRIBUTS)];
+            Object nouvelle = courantes.get(attribut);
+            Object ancienne = ancienneValeur(alea, attribut, nouvelle);
+            courantes.put(attribut, ancienne);
+            ValeurHistorique.Changement changement = ValeurHistorique.encoder(ancienne, nouvelle, seuilCompression);
+            if (changement != null) {
+                lignes.add(new Object[]{attribut, changement.type().name(), changement.ancienne(), changement.nouvelle(),
+                        changement.compresse(), new Timestamp(dates[i])});
+            }
+        }
+        Collections.reverse(lignes);
+        return lignes;
+    }
+
+    private Object ancienneValeur(SplittableRandom alea, String attribut, Object actuelle) {
+        return switch (attribut) {
+            case "capitalSocial" -> (float) Math.max(1000, Math.round(((Float) actuelle) * (0.3 + alea.nextDouble() * 0.7) / 1000) * 1000);
+            case "nombreEmployes" -> Math.max(1, (int) (((Integer) actuelle) * (0.5 + alea.nextDouble() * 0.6)));
+            case "adresse" -> Distributions.adresse(alea);
+            case "ville" -> Distributions.tirer(alea, villes, v -> v.ref().poids()).ville().getNom();
+            case "denomination" -> Distributions.tirer(alea, Distributions.PREFIXES) + " " + Distributions.tirer(alea, Distributions.NOMS);
+            // mail, siteWeb : renseignés après coup
+            default -> actuelle == null || alea.nextDouble() < 0.5 ? null : "ancien." + actuelle;
+        };
+    }
+
+    // Lignes du lot par table, ids attribués
+    private Map<SortieDonnees.Table, List<Object[]>> lignes(List<EntrepriseGeneree> lot) {
+        int nbTelephones = 0, nbFaxes = 0, nbGerants = 0, nbHistorique = 0;
+        for (EntrepriseGeneree entreprise : lot) {
+            nbTelephones += entreprise.telephones().size();
+            nbFaxes += entreprise.faxes().size();
+            nbGerants += entreprise.gerants().size();
+            nbHistorique += entreprise.historique().size();
+        }
+        long entrepriseId = reserver("entreprise", lot.size());
+        long telephoneId = reserver("telephone", nbTelephones);
+        long faxId = reserver("fax", nbFaxes);
+        long gerantId = reserver("gerant", nbGerants);
+        long historiqueId = reserver("historique_dentreprise", nbHistorique);
+
+        Map<SortieDonnees.Table, List<Object[]>> lignes = new EnumMap<>(SortieDonnees.Table.class);
+        for (SortieDonnees.Table table : SortieDonnees.Table.values()) {
+            lignes.put(table, new ArrayList<>());
+        }
+        for (EntrepriseGeneree entreprise : lot) {
+            long id = entrepriseId++;
+            Object[] ligne = new Object[entreprise.colonnes().length + 3];
+            ligne[0] = id;
+            // Uniques d'une génération à l'autre, puisque dérivés de l'id
+            ligne[1] = (int) (100_000_000 + (id * 7919) % 900_000_000);
+            ligne[2] = (int) (10_000_000 + (id * 104_729) % 90_000_000);
+            System.arraycopy(entreprise.colonnes(), 0, ligne, 3, entreprise.colonnes().length);
+            lignes.get(SortieDonnees.Table.ENTREPRISE).add(ligne);
+            lignes.get(switch (entreprise.sousType()) {
+                case COMMERCIALE -> SortieDonnees.Table.ENTREPRISE_COMMERCIALE;
+                case INDUSTRIELLE -> SortieDonnees.Table.ENTREPRISE_INDUSTRIELLE;
+                case SERVICE -> SortieDonnees.Table.ENTREPRISE_DE_SERVICE;
+            }).add(new Object[]{id});
+            for (String numero : entreprise.telephones()) {
+                lignes.get(SortieDonnees.Table.TELEPHONE).add(
+                        new Object[]{telephoneId++, id, numero, NumeroTelephone.normaliser(numero)});
+            }
+            for (String numero : entreprise.faxes()) {
+                lignes.get(SortieDonnees.Table.FAX).add(new Object[]{faxId++, id, numero, NumeroTelephone.normaliser(numero)});
+            }
+            for (String[] gerant : entreprise.gerants()) {
+                String cle = clesGerants.computeIfAbsent(gerant[0] + "|" + gerant[1],
+                        k -> Normalisation.clePersonne(gerant[0], gerant[1]));
+                lignes.get(SortieDonnees.Table.GERANT).add(new Object[]{gerantId++, id, gerant[0], gerant[1], cle});
+            }
+            for (Object[] historique : entreprise.historique()) {
+                lignes.get(SortieDonnees.Table.HISTORIQUE_DENTREPRISE).add(new Object[]{historiqueId++, id,
+                        historique[0], historique[1], historique[2], historique[3], historique[4], historique[5], null});
+            }
+        }
+        return lignes;
+    }
+
+    // Premier id d'une plage de nombre ids, avancée dans id_generateur au-delà d'un pas d'allocation
+    // pour que les blocs pris ensuite par Hibernate commencent après elle
+    private long reserver(String sequence, int nombre) {
+        if (nombre == 0) {
+            return 0;
+        }
+        return transactionTemplate.execute(status -> {
+            Long suivant = jdbcTemplate.queryForObject(
+                    "SELECT next_val FROM id_generateur WHERE sequence_name = ? FOR UPDATE", Long.class, sequence);
+            long debut = (suivant != null ? suivant : 0) + 1;
+            jdbcTemplate.update("UPDATE id_generateur SET next_val = ? WHERE sequence_name = ?",
+                    debut + nombre + PAS_ALLOCATION, sequence);
+            return debut;
+        });
+    }
+
+    private static String sha256(byte[] donnees) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(donnees));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
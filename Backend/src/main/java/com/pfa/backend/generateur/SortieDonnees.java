@@ -0,0 +1,44 @@
+package com.pfa.backend.generateur;
+
+import java.util.List;
+import java.util.Set;
+
+// Destination des lignes générées : insertions JDBC groupées ou fichiers à charger par LOAD DATA
+interface SortieDonnees extends AutoCloseable {
+
+    // Colonnes écrites, dans l'ordre des lignes ; ordre des tables compatible avec les clés étrangères
+    enum Table {
+        ENTREPRISE("entreprise", List.of("id", "ice", "identifiant_fiscal", "denomination", "capital_social",
+                "num_registre_commerce", "num_patente", "num_affiliation_cnss", "adresse", "ville", "ville_id", "mail",
+                "site_web", "nombre_employes", "latitude", "longitude", "date_creation", "date_cessation_activite",
+                "secteur_id", "forme_juridique_id", "logo", "logo_empreinte")),
+        ENTREPRISE_COMMERCIALE("entreprise_commerciale", List.of("id")),
+        ENTREPRISE_INDUSTRIELLE("entreprise_industrielle", List.of("id")),
+        ENTREPRISE_DE_SERVICE("entreprise_de_service", List.of("id")),
+        TELEPHONE("telephone", List.of("id", "entreprise_id", "numero", "numero_normalise")),
+        FAX("fax", List.of("id", "entreprise_id", "numero", "numero_normalise")),
+        GERANT("gerant", List.of("id", "entreprise_id", "nom", "prenom", "cle_nom")),
+        // agrege null : comptées dans les agrégats par le rattrapage au prochain démarrage
+        HISTORIQUE_DENTREPRISE("historique_dentreprise", List.of("id", "entreprise_id", "attribut_modifie", "type_valeur",
+                "ancienne_valeur", "nouvelle_valeur", "valeurs_compressees", "date_modification", "agrege"));
+
+        static final Set<String> BINAIRES = Set.of("logo");
+        static final Set<String> BITS = Set.of("valeurs_compressees", "agrege");
+
+        final String nom;
+        final List<String> colonnes;
+
+        Table(String nom, List<String> colonnes) {
+            this.nom = nom;
+            this.colonnes = colonnes;
+        }
+    }
+
+    void ecrire(Table table, Object[] ligne);
+
+    // Fin d'un lot d'entreprises complet (entreprises, sous-types, filles)
+    void terminerLot();
+
+    @Override
+    void close();
+}
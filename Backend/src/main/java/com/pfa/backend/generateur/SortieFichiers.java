@@ -0,0 +1,112 @@
+package com.pfa.backend.generateur;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+// Un fichier TSV par table et un script charger.sql (LOAD DATA LOCAL INFILE), à lancer depuis le
+// répertoire : mysql --local-infile=1 Cartographie < charger.sql. Les ids sont réservés dans la base
+// qui a servi à la génération : le chargement vise cette même base.
+class SortieFichiers implements SortieDonnees {
+
+    private final Path repertoire;
+    private final Map<Table, Writer> fichiers = new EnumMap<>(Table.class);
+
+    SortieFichiers(Path repertoire) {
+        this.repertoire = repertoire;
+        try {
+            Files.createDirectories(repertoire);
+            for (Table table : Table.values()) {
+                fichiers.put(table, new BufferedWriter(Files.newBufferedWriter(repertoire.resolve(table.nom + ".tsv"),
+                        StandardCharsets.UTF_8), 1 << 16));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void ecrire(Table table, Object[] ligne) {
+        try {
+            Writer fichier = fichiers.get(table);
+            for (int i = 0; i < ligne.length; i++) {
+                if (i > 0) {
+                    fichier.write('\t');
+                }
+                fichier.write(champ(ligne[i]));
+            }
+            fichier.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Format par défaut de LOAD DATA : \N pour null, antislash d'échappement
+    private static String champ(Object valeur) {
+        if (valeur == null) {
+            return "\\N";
+        }
+        if (valeur instanceof byte[] octets) {
+            return HexFormat.of().formatHex(octets);
+        }
+        if (valeur instanceof Boolean booleen) {
+            return booleen ? "1" : "0";
+        }
+        if (valeur instanceof Float nombre) {
+            return BigDecimal.valueOf(nombre).toPlainString();
+        }
+        return valeur.toString().replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    @Override
+    public void terminerLot() {
+        // Rien à valider : les tampons sont vidés à la fermeture
+    }
+
+    @Override
+    public void close() {
+        try {
+            for (Writer fichier : fichiers.values()) {
+                fichier.close();
+            }
+            List<String> script = new ArrayList<>();
+            script.add("-- Jeu de données synthétique : mysql --local-infile=1 Cartographie < charger.sql");
+            script.add("SET foreign_key_checks = 0;");
+            script.add("SET unique_checks = 0;");
+            for (Table table : Table.values()) {
+                List<String> colonnes = new ArrayList<>();
+                List<String> conversions = new ArrayList<>();
+                for (String colonne : table.colonnes) {
+                    if (Table.BINAIRES.contains(colonne)) {
+                        colonnes.add("@" + colonne);
+                        conversions.add(colonne + " = UNHEX(@" + colonne + ")");
+                    } else if (Table.BITS.contains(colonne)) {
+                        // Un '1' texte chargé tel quel dans un BIT vaudrait b'110001'
+                        colonnes.add("@" + colonne);
+                        conversions.add(colonne + " = CAST(@" + colonne + " AS UNSIGNED)");
+                    } else {
+                        colonnes.add(colonne);
+                    }
+                }
+                script.add("LOAD DATA LOCAL INFILE '" + table.nom + ".tsv' INTO TABLE " + table.nom +
+                        " CHARACTER SET utf8mb4 (" + String.join(", ", colonnes) + ")" +
+                        (conversions.isEmpty() ? "" : " SET " + String.join(", ", conversions)) + ";");
+            }
+            script.add("SET unique_checks = 1;");
+            script.add("SET foreign_key_checks = 1;");
+            Files.write(repertoire.resolve("charger.sql"), script, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
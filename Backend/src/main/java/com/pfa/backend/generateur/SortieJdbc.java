@@ -0,0 +1,69 @@
+package com.pfa.backend.generateur;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Insertions groupées (rewriteBatchedStatements) sur une connexion dédiée, une transaction par lot
+class SortieJdbc implements SortieDonnees {
+
+    private final Connection connexion;
+    private final Map<Table, PreparedStatement> requetes = new EnumMap<>(Table.class);
+
+    SortieJdbc(DataSource dataSource) {
+        try {
+            connexion = dataSource.getConnection();
+            connexion.setAutoCommit(false);
+            for (Table table : Table.values()) {
+                requetes.put(table, connexion.prepareStatement("INSERT INTO " + table.nom + " (" +
+                        String.join(", ", table.colonnes) + ") VALUES (" +
+                        String.join(", ", Collections.nCopies(table.colonnes.size(), "?")) + ")"));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Connexion pour le jeu de données impossible", e);
+        }
+    }
+
+    @Override
+    public void ecrire(Table table, Object[] ligne) {
+        try {
+            PreparedStatement requete = requetes.get(table);
+            for (int i = 0; i < ligne.length; i++) {
+                requete.setObject(i + 1, ligne[i]);
+            }
+            requete.addBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void terminerLot() {
+        try {
+            // EnumMap : entreprises avant leurs sous-types et leurs filles
+            for (PreparedStatement requete : requetes.values()) {
+                requete.executeBatch();
+            }
+            connexion.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Écriture d'un lot du jeu de données impossible", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            for (PreparedStatement requete : requetes.values()) {
+                requete.close();
+            }
+            connexion.setAutoCommit(true);
+            connexion.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
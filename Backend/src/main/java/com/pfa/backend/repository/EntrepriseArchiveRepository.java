@@ -0,0 +1,31 @@
+package com.pfa.backend.repository;
+
+import com.pfa.backend.entity.EntrepriseArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EntrepriseArchiveRepository extends JpaRepository<EntrepriseArchive, Long> {
+
+    // Lignes (id, contenu, dateArchivage, présence du logo) : le logo lui-même n'est pas lu
+    @Query("SELECT a.id, a.contenu, a.dateArchivage, CASE WHEN a.logo IS NULL THEN false ELSE true END " +
+            "FROM EntrepriseArchive a")
+    List<Object[]> findResumes();
+
+    @Query("SELECT a.id, a.contenu, a.dateArchivage, CASE WHEN a.logo IS NULL THEN false ELSE true END " +
+            "FROM EntrepriseArchive a WHERE a.id = :id")
+    List<Object[]> findResumeById(@Param("id") Long id);
+
+    @Query("SELECT a.id, a.contenu, a.dateArchivage, CASE WHEN a.logo IS NULL THEN false ELSE true END " +
+            "FROM EntrepriseArchive a " +
+            "WHERE (:ville IS NULL OR :ville = '' OR a.ville = :ville) " +
+            "AND (:denomination IS NULL OR :denomination = '' OR a.denomination LIKE %:denomination%)")
+    List<Object[]> filtrer(@Param("ville") String ville, @Param("denomination") String denomination);
+
+    @Query("SELECT a.logo FROM EntrepriseArchive a WHERE a.id = :id")
+    byte[] findLogoById(@Param("id") Long id);
+}
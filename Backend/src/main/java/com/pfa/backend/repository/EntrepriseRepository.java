@@ -1,18 +1,70 @@
 package com.pfa.backend.repository;
 
 import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.entity.Ville;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
 public interface EntrepriseRepository extends JpaRepository<Entreprise, Long> {
 
-    @Query("SELECT DISTINCT e.ville FROM Entreprise e WHERE e.ville IS NOT NULL")
-    List<String> findDistinctVille();
+    @Query("SELECT e.id, e.denomination, e.ice, e.identifiantFiscal, e.ville FROM Entreprise e")
+    List<Object[]> findFichesDoublons();
+
+    @Query("SELECT e.id FROM Entreprise e WHERE e.ice = :ice")
+    List<Long> findIdsByIce(@Param("ice") Integer ice);
+
+    @Query("SELECT e.logo FROM Entreprise e WHERE e.id = :id")
+    byte[] findLogoById(@Param("id") Long id);
+
+    @Query("SELECT e.id FROM Entreprise e ORDER BY e.id DESC")
+    List<Long> findIdsRecents(Pageable page);
+
+    @Query("SELECT e.id, e.denomination FROM Entreprise e WHERE e.id IN :ids")
+    List<Object[]> findDenominationsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Requêtes natives : les entreprises supprimées sont invisibles en JPQL (@SQLRestriction)
+    @Query(value = "SELECT id FROM entreprise WHERE date_suppression IS NOT NULL " +
+            "OR date_cessation_activite < :limite ORDER BY id LIMIT :taille", nativeQuery = true)
+    List<Long> findIdsAArchiver(@Param("limite") Date limite, @Param("taille") int taille);
+
+    @Query(value = "SELECT COUNT(*) FROM entreprise WHERE date_suppression IS NOT NULL", nativeQuery = true)
+    long compterSupprimees();
+
+    @Query("SELECT COUNT(e) FROM Entreprise e WHERE e.dateCessationActivite < :limite")
+    long compterCessees(@Param("limite") Date limite);
+
+    @Query("SELECT e.ville, COUNT(e) FROM Entreprise e WHERE e.ville IS NOT NULL AND e.villeReference IS NULL GROUP BY e.ville")
+    List<Object[]> compterVillesNonRattachees();
+
+    @Modifying
+    @Query("UPDATE Entreprise e SET e.ville = :nom, e.villeReference = :ville WHERE e.ville = :graphie AND e.villeReference IS NULL")
+    int rattacherVille(@Param("graphie") String graphie, @Param("nom") String nom, @Param("ville") Ville ville);
+
+    @Query("SELECT e.id FROM Entreprise e WHERE e.villeReference = :ville")
+    List<Long> findIdsByVilleReference(@Param("ville") Ville ville);
+
+    @Modifying
+    @Query("UPDATE Entreprise e SET e.ville = :nom, e.villeReference = :cible WHERE e.villeReference = :source")
+    int fusionnerVille(@Param("source") Ville source, @Param("nom") String nom, @Param("cible") Ville cible);
+
+    // Colonnes scalaires seulement (pas de logo ni de collections) pour le snapshot statistique
+    @Query("SELECT e.id, e.capitalSocial, e.nombreEmployes, e.dateCreation, e.ville, s.id, f.id FROM Entreprise e " +
+            "LEFT JOIN e.secteurDactivite s " +
+            "LEFT JOIN e.formeJuridique f")
+    List<Object[]> findColonnesStatistiques();
+
+    // Saisie de la dénomination au fil de la frappe : un motif sans % initial utilise idx_entreprise_denomination
+    @Query("SELECT e.id, e.denomination, e.ville FROM Entreprise e WHERE e.denomination LIKE :prefixe% ORDER BY e.denomination")
+    List<Object[]> findDenominationsParPrefixe(@Param("prefixe") String prefixe, Pageable page);
 
     @Query("SELECT e FROM Entreprise e " +
             "LEFT JOIN e.secteurDactivite s " +
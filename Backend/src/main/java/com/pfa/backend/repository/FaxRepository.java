@@ -2,9 +2,26 @@ package com.pfa.backend.repository;
 
 import com.pfa.backend.entity.Fax;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface FaxRepository extends JpaRepository<Fax, Long> {
     List<Fax> findByEntrepriseId(Long entrepriseId);
+
+    @Query("SELECT f.entreprise.id, f.id, f.numero FROM Fax f WHERE f.entreprise.id IN :ids ORDER BY f.id")
+    List<Object[]> findNumerosByEntrepriseIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT f.id, f.numeroNormalise, f.entreprise.id FROM Fax f WHERE f.numeroNormalise IS NOT NULL")
+    List<Object[]> findEntreesAnnuaire();
+
+    @Query("SELECT f.id, f.numero FROM Fax f WHERE f.numeroNormalise IS NULL AND f.numero IS NOT NULL")
+    List<Object[]> findNonNormalises();
+
+    @Modifying
+    @Query("UPDATE Fax f SET f.numeroNormalise = :numeroNormalise WHERE f.id = :id")
+    int updateNumeroNormalise(@Param("id") Long id, @Param("numeroNormalise") String numeroNormalise);
 }
@@ -2,9 +2,29 @@ package com.pfa.backend.repository;
 
 import com.pfa.backend.entity.Gerant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface GerantRepository extends JpaRepository<Gerant, Long> {
     List<Gerant> findByEntrepriseId(Long entrepriseId);
+
+    @Query("SELECT g.entreprise.id, g.id, g.nom, g.prenom FROM Gerant g WHERE g.entreprise.id IN :ids ORDER BY g.id")
+    List<Object[]> findNomsByEntrepriseIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT g.id, g.cleNom, g.nom, g.prenom, g.entreprise.id FROM Gerant g WHERE g.cleNom IS NOT NULL")
+    List<Object[]> findEntreesIndex();
+
+    @Query("SELECT g.id, g.nom, g.prenom FROM Gerant g WHERE g.cleNom IS NULL")
+    List<Object[]> findSansCleNom();
+
+    @Modifying
+    @Query("UPDATE Gerant g SET g.cleNom = :cleNom WHERE g.id = :id")
+    int updateCleNom(@Param("id") Long id, @Param("cleNom") String cleNom);
+
+    @Query("SELECT DISTINCT e.id, e.denomination, e.ville FROM Gerant g JOIN g.entreprise e WHERE g.cleNom = :cleNom ORDER BY e.denomination")
+    List<Object[]> findEntreprisesByCleNom(@Param("cleNom") String cleNom);
 }
@@ -0,0 +1,22 @@
+package com.pfa.backend.repository;
+
+import com.pfa.backend.entity.HistoriqueAttributJour;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HistoriqueAttributJourRepository extends JpaRepository<HistoriqueAttributJour, HistoriqueAttributJour.Cle> {
+
+    @Query("SELECT h.id.attribut, SUM(h.nombre) FROM HistoriqueAttributJour h " +
+            "WHERE h.id.jour BETWEEN :du AND :au GROUP BY h.id.attribut ORDER BY SUM(h.nombre) DESC")
+    List<Object[]> sommerParAttribut(@Param("du") LocalDate du, @Param("au") LocalDate au);
+
+    @Query("SELECT h.id.jour, h.nombre FROM HistoriqueAttributJour h " +
+            "WHERE h.id.attribut = :attribut AND h.id.jour BETWEEN :du AND :au ORDER BY h.id.jour")
+    List<Object[]> serie(@Param("attribut") String attribut, @Param("du") LocalDate du, @Param("au") LocalDate au);
+}
@@ -3,13 +3,24 @@ package com.pfa.backend.repository;
 import com.pfa.backend.entity.Entreprise;
 import com.pfa.backend.entity.HistoriqueDentreprise;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface HistoriqueDentrepriseRepository extends JpaRepository<HistoriqueDentreprise, Long> {
     List<HistoriqueDentreprise> findByEntrepriseId(Long entrepriseId);
-    boolean existsByEntrepriseAndAttributModifieAndAncienneValeurAndNouvelleValeur(
-            Entreprise entreprise, String attributModifie, String ancienneValeur, String nouvelleValeur);
+
+    @Query("SELECT h.entreprise.id, h.id, h.attributModifie, h.ancienneValeur, h.nouvelleValeur, h.dateModification, " +
+            "h.typeValeur, h.valeursCompressees " +
+            "FROM HistoriqueDentreprise h WHERE h.entreprise.id IN :ids ORDER BY h.id")
+    List<Object[]> findLignesByEntrepriseIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT h.attributModifie, h.ancienneValeur, h.nouvelleValeur FROM HistoriqueDentreprise h " +
+            "WHERE h.entreprise = :entreprise AND h.attributModifie IN :attributs")
+    List<Object[]> findValeursByEntrepriseAndAttributs(@Param("entreprise") Entreprise entreprise,
+                                                       @Param("attributs") Collection<String> attributs);
 }
\ No newline at end of file
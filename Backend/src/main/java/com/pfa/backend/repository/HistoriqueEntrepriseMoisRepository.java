@@ -0,0 +1,23 @@
+package com.pfa.backend.repository;
+
+import com.pfa.backend.entity.HistoriqueEntrepriseMois;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HistoriqueEntrepriseMoisRepository extends JpaRepository<HistoriqueEntrepriseMois, HistoriqueEntrepriseMois.Cle> {
+
+    @Query("SELECT h.id.entrepriseId, SUM(h.nombre) FROM HistoriqueEntrepriseMois h " +
+            "WHERE h.id.mois BETWEEN :du AND :au GROUP BY h.id.entrepriseId ORDER BY SUM(h.nombre) DESC")
+    List<Object[]> sommerParEntreprise(@Param("du") LocalDate du, @Param("au") LocalDate au, Pageable page);
+
+    @Query("SELECT h.id.mois, SUM(h.nombre) FROM HistoriqueEntrepriseMois h " +
+            "WHERE h.id.mois BETWEEN :du AND :au GROUP BY h.id.mois ORDER BY h.id.mois")
+    List<Object[]> sommerParMois(@Param("du") LocalDate du, @Param("au") LocalDate au);
+}
@@ -0,0 +1,25 @@
+package com.pfa.backend.repository;
+
+import com.pfa.backend.entity.InvalidationDiffusee;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvalidationDiffuseeRepository extends JpaRepository<InvalidationDiffusee, Long> {
+
+    @Query("SELECT i FROM InvalidationDiffusee i WHERE i.id > :curseur ORDER BY i.id")
+    List<InvalidationDiffusee> findSuivantes(@Param("curseur") Long curseur, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(i.id), 0) FROM InvalidationDiffusee i")
+    Long findDernierId();
+
+    @Modifying
+    @Query("DELETE FROM InvalidationDiffusee i WHERE i.horodatage < :avant")
+    int purger(@Param("avant") long avant);
+}
@@ -0,0 +1,35 @@
+package com.pfa.backend.repository;
+
+import com.pfa.backend.entity.JournalModification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface JournalModificationRepository extends JpaRepository<JournalModification, Long> {
+
+    // Dernière entrée par entreprise depuis le jeton, triée par cette dernière entrée :
+    // une entreprise modifiée plusieurs fois n'apparaît qu'une fois.
+    // Les entrées de moins de 2 s (horloge de la base) ne sont pas encore servies : une transaction
+    // qui a obtenu un id plus petit peut encore être en train de valider.
+    @Query(value = "SELECT j.entreprise_id, MAX(j.id) FROM journal_modification j " +
+            "WHERE j.id > :depuis AND j.date_modification <= NOW(6) - INTERVAL 2 SECOND " +
+            "GROUP BY j.entreprise_id ORDER BY MAX(j.id)", nativeQuery = true)
+    List<Object[]> findDernieresModifications(@Param("depuis") Long depuis, Pageable pageable);
+
+    @Query("SELECT j FROM JournalModification j WHERE j.id IN :ids")
+    List<JournalModification> findByIdIn(@Param("ids") List<Long> ids);
+
+    // Supprime les entrées remplacées par une entrée plus récente de la même entreprise
+    @Modifying
+    @Query(value = "DELETE j FROM journal_modification j " +
+            "JOIN journal_modification r ON r.entreprise_id = j.entreprise_id AND r.id > j.id " +
+            "WHERE j.date_modification < :avant", nativeQuery = true)
+    int purgerEntreesRemplacees(@Param("avant") Date avant);
+}
@@ -0,0 +1,28 @@
+package com.pfa.backend.repository;
+
+import com.pfa.backend.entity.LogoDerive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LogoDeriveRepository extends JpaRepository<LogoDerive, Long> {
+
+    // Plus petite version couvrant la taille demandée
+    Optional<LogoDerive> findFirstByEntrepriseIdAndTailleGreaterThanEqualOrderByTailleAsc(Long entrepriseId, Integer taille);
+
+    Optional<LogoDerive> findFirstByEntrepriseIdOrderByTailleDesc(Long entrepriseId);
+
+    @Modifying
+    @Query("DELETE FROM LogoDerive d WHERE d.entrepriseId = :entrepriseId")
+    int deleteByEntrepriseId(@Param("entrepriseId") Long entrepriseId);
+
+    @Query("SELECT e.id FROM Entreprise e WHERE e.logo IS NOT NULL " +
+            "AND NOT EXISTS (SELECT d.id FROM LogoDerive d WHERE d.entrepriseId = e.id)")
+    List<Long> findEntreprisesSansDerives();
+}
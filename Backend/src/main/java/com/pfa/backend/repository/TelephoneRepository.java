@@ -2,9 +2,26 @@ package com.pfa.backend.repository;
 
 import com.pfa.backend.entity.Telephone;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TelephoneRepository extends JpaRepository<Telephone, Long> {
     List<Telephone> findByEntrepriseId(Long entrepriseId);
+
+    @Query("SELECT t.entreprise.id, t.id, t.numero FROM Telephone t WHERE t.entreprise.id IN :ids ORDER BY t.id")
+    List<Object[]> findNumerosByEntrepriseIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT t.id, t.numeroNormalise, t.entreprise.id FROM Telephone t WHERE t.numeroNormalise IS NOT NULL")
+    List<Object[]> findEntreesAnnuaire();
+
+    @Query("SELECT t.id, t.numero FROM Telephone t WHERE t.numeroNormalise IS NULL AND t.numero IS NOT NULL")
+    List<Object[]> findNonNormalises();
+
+    @Modifying
+    @Query("UPDATE Telephone t SET t.numeroNormalise = :numeroNormalise WHERE t.id = :id")
+    int updateNumeroNormalise(@Param("id") Long id, @Param("numeroNormalise") String numeroNormalise);
 }
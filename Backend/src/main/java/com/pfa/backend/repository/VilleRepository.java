@@ -0,0 +1,12 @@
+package com.pfa.backend.repository;
+
+import com.pfa.backend.entity.Ville;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VilleRepository extends JpaRepository<Ville, Long> {
+    Optional<Ville> findByNomNormalise(String nomNormalise);
+}
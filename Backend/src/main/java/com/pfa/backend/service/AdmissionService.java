@@ -0,0 +1,171 @@
+package com.pfa.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Contrôle d'admission devant la base : débit par client (seau à jetons) puis nombre de requêtes
+// simultanées par classe d'endpoint, avec une file d'attente courte et bornée. Ce qui dépasse
+// est refusé tout de suite (429) plutôt que d'attendre une connexion du pool.
+@Service
+public class AdmissionService {
+
+    public enum Classe {
+        LOURDE, LEGERE
+    }
+
+    public enum Resultat {
+        ADMISE, DEBIT_DEPASSE, FILE_PLEINE, ATTENTE_EXPIREE
+    }
+
+    @Value("${admission.debit-par-seconde:20}")
+    private double debitParSeconde;
+    @Value("${admission.rafale:40}")
+    private double rafale;
+    // Une requête lourde consomme plusieurs jetons : un client ne peut pas enchaîner les scans
+    @Value("${admission.cout-lourde:5}")
+    private int coutLourde;
+    @Value("${admission.lourdes.simultanees:4}")
+    private int lourdesSimultanees;
+    @Value("${admission.lourdes.file:16}")
+    private int lourdesFile;
+    @Value("${admission.lourdes.attente-ms:2000}")
+    private long lourdesAttenteMs;
+    @Value("${admission.legeres.simultanees:32}")
+    private int legeresSimultanees;
+    @Value("${admission.legeres.file:64}")
+    private int legeresFile;
+    @Value("${admission.legeres.attente-ms:500}")
+    private long legeresAttenteMs;
+    // Seules ces clés ont leur propre seau ; une autre valeur de X-API-Key compte pour l'adresse IP
+    @Value("${admission.cles-api:}")
+    private Set<String> clesApi;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Seau> seaux = new ConcurrentHashMap<>();
+    private final Map<Classe, Cloison> cloisons = new EnumMap<>(Classe.class);
+
+    @PostConstruct
+    public void initialiser() {
+        cloisons.put(Classe.LOURDE, new Cloison(Classe.LOURDE, lourdesSimultanees, lourdesFile, lourdesAttenteMs));
+        cloisons.put(Classe.LEGERE, new Cloison(Classe.LEGERE, legeresSimultanees, legeresFile, legeresAttenteMs));
+        Gauge.builder("admission.clients", seaux, Map::size).register(meterRegistry);
+    }
+
+    // Une clé inventée à chaque requête donnerait un seau plein à chaque fois (et un seau de plus en mémoire)
+    public String client(String cleApi, String adresse) {
+        return cleApi != null && clesApi.contains(cleApi) ? "cle:" + cleApi : "ip:" + adresse;
+    }
+
+    // Délai (ms) avant que le client dispose de nouveau des jetons nécessaires, 0 s'il est admis
+    public long consommer(String client, Classe classe) {
+        int cout = classe == Classe.LOURDE ? coutLourde : 1;
+        long attente = seaux.computeIfAbsent(client, k -> new Seau(rafale)).consommer(cout, debitParSeconde, rafale);
+        if (attente > 0) {
+            compter(classe, Resultat.DEBIT_DEPASSE);
+        }
+        return attente;
+    }
+
+    public Resultat entrer(Classe classe) throws InterruptedException {
+        Resultat resultat = cloisons.get(classe).entrer();
+        compter(classe, resultat);
+        return resultat;
+    }
+
+    public void sortir(Classe classe) {
+        cloisons.get(classe).permis.release();
+    }
+
+    // Un seau inactif depuis le temps de remplissage complet est plein : le retirer ne change rien
+    // pour le client, qui repart d'un seau plein, et la map ne garde que les clients récents
+    @Scheduled(fixedRate = 10_000)
+    public void oublierClientsInactifs() {
+        long limite = System.nanoTime() - (long) Math.ceil(rafale / debitParSeconde * 1e9);
+        seaux.values().removeIf(seau -> seau.derniereMiseAJour() < limite);
+    }
+
+    private void compter(Classe classe, Resultat resultat) {
+        Counter.builder("admission.requetes")
+                .tag("classe", classe.name().toLowerCase())
+                .tag("resultat", resultat.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private final class Cloison {
+        private final Semaphore permis;
+        private final int fileMax;
+        private final long attenteMs;
+        private final AtomicInteger enFile = new AtomicInteger();
+        private final Timer attente;
+
+        private Cloison(Classe classe, int simultanees, int fileMax, long attenteMs) {
+            this.permis = new Semaphore(simultanees, true);
+            this.fileMax = fileMax;
+            this.attenteMs = attenteMs;
+            String tag = classe.name().toLowerCase();
+            this.attente = Timer.builder("admission.attente").tag("classe", tag).register(meterRegistry);
+            Gauge.builder("admission.en_cours", permis, p -> simultanees - p.availablePermits())
+                    .tag("classe", tag).register(meterRegistry);
+            Gauge.builder("admission.file", enFile, AtomicInteger::get).tag("classe", tag).register(meterRegistry);
+        }
+
+        private Resultat entrer() throws InterruptedException {
+            if (permis.tryAcquire()) {
+                return Resultat.ADMISE;
+            }
+            if (enFile.incrementAndGet() > fileMax) {
+                enFile.decrementAndGet();
+                return Resultat.FILE_PLEINE;
+            }
+            long debut = System.nanoTime();
+            try {
+                return permis.tryAcquire(attenteMs, TimeUnit.MILLISECONDS) ? Resultat.ADMISE : Resultat.ATTENTE_EXPIREE;
+            } finally {
+                enFile.decrementAndGet();
+                attente.record(System.nanoTime() - debut, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static final class Seau {
+        private double jetons;
+        private long derniereMiseAJour = System.nanoTime();
+
+        private Seau(double jetons) {
+            this.jetons = jetons;
+        }
+
+        private synchronized long consommer(int cout, double debitParSeconde, double capacite) {
+            long maintenant = System.nanoTime();
+            jetons = Math.min(capacite, jetons + (maintenant - derniereMiseAJour) / 1e9 * debitParSeconde);
+            derniereMiseAJour = maintenant;
+            if (jetons >= cout) {
+                jetons -= cout;
+                return 0;
+            }
+            return (long) Math.ceil((cout - jetons) / debitParSeconde * 1000);
+        }
+
+        private synchronized long derniereMiseAJour() {
+            return derniereMiseAJour;
+        }
+    }
+}
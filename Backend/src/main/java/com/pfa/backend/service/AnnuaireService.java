@@ -0,0 +1,167 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.NumeroLookupDTO;
+import com.pfa.backend.DTO.NumeroProprietaireDTO;
+import com.pfa.backend.entity.Fax;
+import com.pfa.backend.entity.Telephone;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.repository.FaxRepository;
+import com.pfa.backend.repository.TelephoneRepository;
+import com.pfa.backend.util.NumeroTelephone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Index inverse numéro normalisé -> téléphones et fax des entreprises
+@Service
+public class AnnuaireService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnnuaireService.class);
+
+    public static final String TELEPHONE = "TELEPHONE";
+    public static final String FAX = "FAX";
+
+    @Autowired
+    private TelephoneRepository telephoneRepository;
+    @Autowired
+    private FaxRepository faxRepository;
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+
+    private final Map<String, Set<Entree>> parNumero = new ConcurrentHashMap<>();
+    private final Map<String, Entree> parCle = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> clesParEntreprise = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void chargerIndex() {
+        // Rattrapage des numéros enregistrés avant l'ajout de la colonne normalisée
+        int normalises = 0;
+        for (Object[] ligne : telephoneRepository.findNonNormalises()) {
+            normalises += telephoneRepository.updateNumeroNormalise((Long) ligne[0], NumeroTelephone.normaliser((String) ligne[1]));
+        }
+        for (Object[] ligne : faxRepository.findNonNormalises()) {
+            normalises += faxRepository.updateNumeroNormalise((Long) ligne[0], NumeroTelephone.normaliser((String) ligne[1]));
+        }
+
+        for (Object[] ligne : telephoneRepository.findEntreesAnnuaire()) {
+            indexer(TELEPHONE, (Long) ligne[0], (String) ligne[1], (Long) ligne[2]);
+        }
+        for (Object[] ligne : faxRepository.findEntreesAnnuaire()) {
+            indexer(FAX, (Long) ligne[0], (String) ligne[1], (Long) ligne[2]);
+        }
+        logger.info("Annuaire chargé : {} numéros distincts ({} normalisés au démarrage)", parNumero.size(), normalises);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        if (event.getType() == EntrepriseEvent.Type.DELETED) {
+            retirerEntreprise(event.getEntrepriseId());
+        } else if (event.getType() == EntrepriseEvent.Type.CREATED) {
+            // Numéros créés en cascade par Entreprise.addTelephones / addFaxes
+            event.getEntreprise().getTelephones().forEach(this::indexer);
+            event.getEntreprise().getFaxes().forEach(this::indexer);
+        } else {
+            // Collections chargées par Entreprise.synchroniserTelephones / synchroniserFaxes
+            if (event.getAttributsModifies().contains("telephones")) {
+                event.getEntreprise().getTelephones().forEach(this::indexer);
+            }
+            if (event.getAttributsModifies().contains("faxes")) {
+                event.getEntreprise().getFaxes().forEach(this::indexer);
+            }
+        }
+    }
+
+    public void indexer(Telephone telephone) {
+        if (telephone.getId() != null && telephone.getEntreprise() != null) {
+            indexer(TELEPHONE, telephone.getId(), NumeroTelephone.normaliser(telephone.getNumero()), telephone.getEntreprise().getId());
+        }
+    }
+
+    public void indexer(Fax fax) {
+        if (fax.getId() != null && fax.getEntreprise() != null) {
+            indexer(FAX, fax.getId(), NumeroTelephone.normaliser(fax.getNumero()), fax.getEntreprise().getId());
+        }
+    }
+
+    public synchronized void retirer(String type, Long id) {
+        Entree entree = parCle.remove(type + ":" + id);
+        if (entree == null) {
+            return;
+        }
+        parNumero.computeIfPresent(entree.numeroNormalise, (k, entrees) -> {
+            entrees.remove(entree);
+            return entrees.isEmpty() ? null : entrees;
+        });
+        clesParEntreprise.computeIfPresent(entree.entrepriseId, (k, cles) -> {
+            cles.remove(type + ":" + id);
+            return cles.isEmpty() ? null : cles;
+        });
+    }
+
+    // Une seule requête IN pour les dénominations, quel que soit le nombre de numéros demandés
+    public List<NumeroLookupDTO> rechercher(Collection<String> numeros) {
+        List<NumeroLookupDTO> resultat = new ArrayList<>(numeros.size());
+        Set<Long> entrepriseIds = new HashSet<>();
+        for (String numero : numeros) {
+            NumeroLookupDTO dto = new NumeroLookupDTO();
+            dto.setNumero(numero);
+            dto.setNumeroNormalise(NumeroTelephone.normaliser(numero));
+            if (dto.getNumeroNormalise() != null) {
+                for (Entree entree : parNumero.getOrDefault(dto.getNumeroNormalise(), Collections.emptySet())) {
+                    NumeroProprietaireDTO proprietaire = new NumeroProprietaireDTO();
+                    proprietaire.setType(entree.type);
+                    proprietaire.setId(entree.id);
+                    proprietaire.setEntrepriseId(entree.entrepriseId);
+                    dto.getProprietaires().add(proprietaire);
+                    entrepriseIds.add(entree.entrepriseId);
+                }
+            }
+            resultat.add(dto);
+        }
+
+        if (!entrepriseIds.isEmpty()) {
+            Map<Long, String> denominations = new HashMap<>();
+            for (Object[] ligne : entrepriseRepository.findDenominationsByIdIn(entrepriseIds)) {
+                denominations.put((Long) ligne[0], (String) ligne[1]);
+            }
+            resultat.forEach(dto -> dto.getProprietaires()
+                    .forEach(p -> p.setDenomination(denominations.get(p.getEntrepriseId()))));
+        }
+        return resultat;
+    }
+
+    private synchronized void indexer(String type, Long id, String numeroNormalise, Long entrepriseId) {
+        retirer(type, id);
+        if (numeroNormalise == null) {
+            return;
+        }
+        Entree entree = new Entree(type, id, entrepriseId, numeroNormalise);
+        parCle.put(type + ":" + id, entree);
+        parNumero.computeIfAbsent(numeroNormalise, k -> ConcurrentHashMap.newKeySet()).add(entree);
+        clesParEntreprise.computeIfAbsent(entrepriseId, k -> ConcurrentHashMap.newKeySet()).add(type + ":" + id);
+    }
+
+    private synchronized void retirerEntreprise(Long entrepriseId) {
+        Set<String> cles = clesParEntreprise.get(entrepriseId);
+        if (cles == null) {
+            return;
+        }
+        for (String cle : new ArrayList<>(cles)) {
+            String[] parties = cle.split(":");
+            retirer(parties[0], Long.valueOf(parties[1]));
+        }
+    }
+
+    private record Entree(String type, Long id, Long entrepriseId, String numeroNormalise) {
+    }
+}
@@ -0,0 +1,297 @@
+package com.pfa.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfa.backend.DTO.*;
+import com.pfa.backend.entity.*;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.EntrepriseArchiveRepository;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.util.ValeurHistorique;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Sortie des entreprises supprimées (suppression logique) ou ayant cessé leur activité depuis
+// plus du délai de grâce : la table entreprise et ses tables filles ne gardent que les actives.
+@Service
+public class ArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    public static final String MOTIF_SUPPRESSION = "SUPPRESSION";
+    public static final String MOTIF_CESSATION = "CESSATION";
+
+    private static final int TAILLE_LOT = 200;
+
+    // Les tables filles d'abord, puis les sous-classes (héritage JOINED), puis entreprise
+    private static final List<String> TABLES_A_VIDER = List.of(
+            "historique_dentreprise", "telephone", "fax", "gerant", "logo_derive",
+            "entreprise_commerciale", "entreprise_industrielle", "entreprise_de_service");
+
+    static final List<String> COLLECTIONS_EN_CACHE = List.of(
+            "telephones", "faxes", "gerants", "historiqueDentreprise");
+
+    @Value("${archive.delai-cessation-jours:90}")
+    private int delaiCessationJours;
+
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+    @Autowired
+    private EntrepriseArchiveRepository archiveRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private VilleService villeService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final AtomicBoolean enCours = new AtomicBoolean();
+    private final ExecutorService lanceur = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "archivage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void arreter() {
+        lanceur.shutdownNow();
+    }
+
+    // Retourne le nombre d'entreprises archivées, ou -1 si un archivage est déjà en cours
+    @Scheduled(cron = "${archive.cron:0 0 4 * * *}")
+    public int archiver() {
+        if (!enCours.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            return archiverParLots();
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    // Déclenchement manuel : en arrière-plan, suivi par getStatistiques ; false si déjà en cours
+    public boolean lancerArchivage() {
+        if (!enCours.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            lanceur.execute(() -> {
+                try {
+                    archiverParLots();
+                } catch (RuntimeException e) {
+                    logger.error("Archivage interrompu", e);
+                } finally {
+                    enCours.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            enCours.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // Un lot par transaction : un incident n'annule pas ce qui a déjà été archivé
+    private int archiverParLots() {
+        int total = 0;
+        List<Long> lot;
+        do {
+            lot = entrepriseRepository.findIdsAArchiver(limiteCessation(), TAILLE_LOT);
+            List<Long> ids = lot;
+            Integer archivees = transactionTemplate.execute(status -> archiverLot(ids));
+            total += archivees != null ? archivees : 0;
+            evincerDuCache(ids);
+        } while (lot.size() == TAILLE_LOT);
+        if (total > 0) {
+            logger.info("Archivage : {} entreprises déplacées vers entreprise_archive", total);
+        }
+        return total;
+    }
+
+    // Les suppressions en SQL direct échappent au cache de second niveau : on retire nous-mêmes
+    // les entreprises du lot et leurs collections, puis les régions des tables filles vidées.
+    private void evincerDuCache(List<Long> ids) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Long id : ids) {
+            cache.evictEntityData(Entreprise.class, id);
+            for (String collection : COLLECTIONS_EN_CACHE) {
+                cache.evictCollectionData(Entreprise.class.getName() + "." + collection, id);
+            }
+        }
+        if (!ids.isEmpty()) {
+            List.of(Telephone.class, Fax.class, Gerant.class, HistoriqueDentreprise.class)
+                    .forEach(cache::evictEntityData);
+        }
+    }
+
+    public List<EntrepriseDTO> getArchives() {
+        return archiveRepository.findResumes().stream().map(this::convertToDTO).collect(Collectors.toList());
+    }
+
+    public Optional<EntrepriseDTO> getArchive(Long id) {
+        return archiveRepository.findResumeById(id).stream().findFirst().map(this::convertToDTO);
+    }
+
+    // Ville et dénomination filtrées en base (colonnes de l'archive), secteur et forme sur le contenu
+    public List<EntrepriseDTO> filtrer(String ville, String denomination, String secteurNom, String formeJuridiqueNom) {
+        if (ville != null && !ville.isEmpty()) {
+            ville = villeService.trouver(ville).map(VilleDTO::getNom).orElse(ville);
+        }
+        return archiveRepository.filtrer(ville, denomination).stream()
+                .map(this::convertToDTO)
+                .filter(dto -> secteurNom == null || secteurNom.isEmpty()
+                        || (dto.getSecteurDactivite() != null && secteurNom.equals(dto.getSecteurDactivite().getNom())))
+                .filter(dto -> formeJuridiqueNom == null || formeJuridiqueNom.isEmpty()
+                        || (dto.getFormeJuridique() != null && formeJuridiqueNom.equals(dto.getFormeJuridique().getNom())))
+                .collect(Collectors.toList());
+    }
+
+    public ArchiveStatistiquesDTO getStatistiques() {
+        ArchiveStatistiquesDTO dto = new ArchiveStatistiquesDTO();
+        dto.setActives(entrepriseRepository.count());
+        dto.setSupprimeesEnAttente(entrepriseRepository.compterSupprimees());
+        dto.setCesseesEnAttente(entrepriseRepository.compterCessees(limiteCessation()));
+        dto.setArchivees(archiveRepository.count());
+        long connues = dto.getActives() + dto.getSupprimeesEnAttente() + dto.getArchivees();
+        dto.setReductionScan(connues == 0 ? 0 : (double) (dto.getSupprimeesEnAttente() + dto.getArchivees()) / connues);
+        dto.setArchivageEnCours(enCours.get());
+        return dto;
+    }
+
+    private int archiverLot(List<Long> ids) {
+        int archivees = 0;
+        for (Long id : ids) {
+            // Sous-classe d'après la table JOINED qui porte l'id
+            Map<String, Object> etat = jdbcTemplate.queryForMap(
+                    "SELECT e.date_suppression, CASE WHEN c.id IS NOT NULL THEN 'EntrepriseCommerciale' " +
+                            "WHEN i.id IS NOT NULL THEN 'EntrepriseIndustrielle' " +
+                            "WHEN s.id IS NOT NULL THEN 'EntrepriseDeService' ELSE 'Entreprise' END AS type_entreprise " +
+                            "FROM entreprise e LEFT JOIN entreprise_commerciale c ON c.id = e.id " +
+                            "LEFT JOIN entreprise_industrielle i ON i.id = e.id " +
+                            "LEFT JOIN entreprise_de_service s ON s.id = e.id WHERE e.id = ?", id);
+            Date dateSuppression = (Date) etat.get("date_suppression");
+
+            EntrepriseDTO dto = lireEntreprise(id);
+            EntrepriseArchive archive = new EntrepriseArchive();
+            archive.setId(id);
+            archive.setDenomination(dto.getDenomination());
+            archive.setVille(dto.getVille());
+            archive.setIce(dto.getIce());
+            archive.setDateCessationActivite(dto.getDateCessationActivite());
+            archive.setDateSuppression(dateSuppression);
+            archive.setDateArchivage(new Date());
+            archive.setMotif(dateSuppression != null ? MOTIF_SUPPRESSION : MOTIF_CESSATION);
+            archive.setTypeEntreprise((String) etat.get("type_entreprise"));
+            archive.setLogo(jdbcTemplate.queryForObject("SELECT logo FROM entreprise WHERE id = ?", byte[].class, id));
+            try {
+                archive.setContenu(objectMapper.writeValueAsString(dto));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Sérialisation impossible de l'entreprise " + id, e);
+            }
+            entityManager.persist(archive);
+
+            for (String table : TABLES_A_VIDER) {
+                String colonne = table.startsWith("entreprise_") ? "id" : "entreprise_id";
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE " + colonne + " = ?", id);
+            }
+            jdbcTemplate.update("DELETE FROM entreprise WHERE id = ?", id);
+
+            // Une entreprise supprimée a déjà été retirée des index et des clients à sa suppression
+            if (dateSuppression == null) {
+                eventPublisher.publishEvent(EntrepriseEvent.deleted(id));
+            }
+            archivees++;
+        }
+        return archivees;
+    }
+
+    // Lecture en SQL direct : les entreprises supprimées sont masquées côté JPA (@SQLRestriction)
+    private EntrepriseDTO lireEntreprise(Long id) {
+        EntrepriseDTO dto = jdbcTemplate.queryForObject(
+                "SELECT id, denomination, capital_social, ice, identifiant_fiscal, num_registre_commerce, num_patente, " +
+                        "num_affiliation_cnss, adresse, ville, mail, site_web, nombre_employes, latitude, longitude, " +
+                        "date_creation, date_cessation_activite FROM entreprise WHERE id = ?",
+                new BeanPropertyRowMapper<>(EntrepriseDTO.class), id);
+
+        List<SecteurDactiviteDTO> secteurs = jdbcTemplate.query(
+                "SELECT s.id, s.nom FROM secteur_dactivite s JOIN entreprise e ON e.secteur_id = s.id WHERE e.id = ?",
+                new BeanPropertyRowMapper<>(SecteurDactiviteDTO.class), id);
+        dto.setSecteurDactivite(secteurs.isEmpty() ? null : secteurs.get(0));
+        List<FormeJuridiqueDTO> formes = jdbcTemplate.query(
+                "SELECT f.id, f.nom FROM forme_juridique f JOIN entreprise e ON e.forme_juridique_id = f.id WHERE e.id = ?",
+                new BeanPropertyRowMapper<>(FormeJuridiqueDTO.class), id);
+        dto.setFormeJuridique(formes.isEmpty() ? null : formes.get(0));
+
+        dto.setTelephones(jdbcTemplate.query("SELECT id, numero FROM telephone WHERE entreprise_id = ?",
+                new BeanPropertyRowMapper<>(TelephoneDTO.class), id));
+        dto.setFaxes(jdbcTemplate.query("SELECT id, numero FROM fax WHERE entreprise_id = ?",
+                new BeanPropertyRowMapper<>(FaxDTO.class), id));
+        dto.setGerants(jdbcTemplate.query("SELECT id, nom, prenom FROM gerant WHERE entreprise_id = ?",
+                new BeanPropertyRowMapper<>(GerantDTO.class), id));
+        dto.setHistoriqueDentreprise(jdbcTemplate.query(
+                "SELECT id, attribut_modifie, type_valeur, ancienne_valeur, nouvelle_valeur, valeurs_compressees, " +
+                        "date_modification FROM historique_dentreprise WHERE entreprise_id = ?",
+                (ligne, numero) -> {
+                    // Valeurs décompressées : l'archive est un document JSON autonome
+                    HistoriqueDentrepriseDTO historique = new HistoriqueDentrepriseDTO();
+                    Boolean compresse = ligne.getObject("valeurs_compressees", Boolean.class);
+                    historique.setId(ligne.getLong("id"));
+                    historique.setAttributModifie(ligne.getString("attribut_modifie"));
+                    historique.setTypeValeur(ligne.getString("type_valeur"));
+                    historique.setAncienneValeur(ValeurHistorique.decoder(ligne.getString("ancienne_valeur"), compresse));
+                    historique.setNouvelleValeur(ValeurHistorique.decoder(ligne.getString("nouvelle_valeur"), compresse));
+                    historique.setDateModification(ligne.getTimestamp("date_modification"));
+                    return historique;
+                }, id));
+        return dto;
+    }
+
+    // Ligne (id, contenu, dateArchivage, présence du logo) de EntrepriseArchiveRepository
+    private EntrepriseDTO convertToDTO(Object[] ligne) {
+        Long id = (Long) ligne[0];
+        EntrepriseDTO dto;
+        try {
+            dto = objectMapper.readValue((String) ligne[1], EntrepriseDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Archive illisible pour l'entreprise " + id, e);
+        }
+        // Servi par GET /api/entreprises/{id}/logo, qui lit aussi les archives
+        dto.setLogoUrl(Boolean.TRUE.equals(ligne[3]) ? "/api/entreprises/" + id + "/logo" : null);
+        dto.setDateArchivage((Date) ligne[2]);
+        return dto;
+    }
+
+    private Date limiteCessation() {
+        return new Date(System.currentTimeMillis() - delaiCessationJours * 24L * 3600 * 1000);
+    }
+}
@@ -0,0 +1,13 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.event.Invalidation;
+
+import java.util.List;
+
+// Transport des invalidations entre nœuds, choisi par invalidation.bus : jdbc (par défaut) ou redis.
+// Chaque message reçu, y compris ceux du nœud lui-même, est republié en événement Spring
+// pour InvalidationService.
+public interface BusInvalidation {
+
+    void publier(List<Invalidation> invalidations);
+}
@@ -0,0 +1,109 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.entity.InvalidationDiffusee;
+import com.pfa.backend.event.Invalidation;
+import com.pfa.backend.repository.InvalidationDiffuseeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Bus par table partagée : chaque nœud relève invalidation_diffusee toutes les
+// invalidation.jdbc.intervalle-ms, ce qui borne le délai de propagation. Aucun service
+// supplémentaire à déployer ; convient aussi pour plusieurs instances locales sur la même base.
+@Service
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "jdbc", matchIfMissing = true)
+public class BusInvalidationJdbc implements BusInvalidation {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusInvalidationJdbc.class);
+
+    // Le curseur ne dépasse que les lignes plus anciennes : une insertion qui a obtenu
+    // un id plus petit peut encore être en train de valider (comme dans JournalService).
+    private static final long MARGE_VALIDATION_MS = 2_000;
+
+    private static final long CONSERVATION_MS = 3600_000;
+
+    private static final int TAILLE_LOT = 500;
+
+    @Autowired
+    private InvalidationDiffuseeRepository invalidationRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Lus et modifiés par le seul thread de relevé
+    private long curseur = -1;
+    private final Set<Long> dejaRecues = new HashSet<>();
+
+    // Appelé après le commit de l'écriture : transaction propre, sinon l'insertion
+    // rejoindrait la transaction déjà validée et ne serait jamais écrite
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void publier(List<Invalidation> invalidations) {
+        List<InvalidationDiffusee> lignes = new ArrayList<>();
+        for (Invalidation invalidation : invalidations) {
+            InvalidationDiffusee ligne = new InvalidationDiffusee();
+            ligne.setRegion(invalidation.getRegion().name());
+            String cles = invalidation.getIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+            // Trop d'ids pour la colonne : toute la région
+            ligne.setCles(cles.length() > 4000 ? "" : cles);
+            ligne.setOrigine(invalidation.getOrigine());
+            ligne.setHorodatage(invalidation.getHorodatage());
+            lignes.add(ligne);
+        }
+        invalidationRepository.saveAll(lignes);
+    }
+
+    @Scheduled(fixedDelayString = "${invalidation.jdbc.intervalle-ms:500}")
+    public void relever() {
+        try {
+            if (curseur < 0) {
+                // Au démarrage le cache est vide : rien d'antérieur à appliquer
+                curseur = invalidationRepository.findDernierId();
+                return;
+            }
+            List<InvalidationDiffusee> lignes;
+            do {
+                lignes = invalidationRepository.findSuivantes(curseur, PageRequest.of(0, TAILLE_LOT));
+                long horizon = System.currentTimeMillis() - MARGE_VALIDATION_MS;
+                boolean avancer = true;
+                for (InvalidationDiffusee ligne : lignes) {
+                    // Les lignes récentes sont relues au prochain relevé ; elles ne sont appliquées qu'une fois
+                    if (dejaRecues.add(ligne.getId())) {
+                        eventPublisher.publishEvent(convertir(ligne));
+                    }
+                    avancer = avancer && ligne.getHorodatage() < horizon;
+                    if (avancer) {
+                        curseur = ligne.getId();
+                    }
+                }
+                dejaRecues.removeIf(id -> id <= curseur);
+            } while (lignes.size() == TAILLE_LOT && dejaRecues.isEmpty());
+        } catch (RuntimeException e) {
+            // Base momentanément indisponible : les lignes attendent le prochain relevé
+            logger.warn("Relevé des invalidations impossible : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "0 15 * * * *")
+    @Transactional
+    public void purger() {
+        int supprimees = invalidationRepository.purger(System.currentTimeMillis() - CONSERVATION_MS);
+        logger.debug("Invalidations diffusées : {} lignes purgées", supprimees);
+    }
+
+    private Invalidation convertir(InvalidationDiffusee ligne) {
+        List<Long> ids = ligne.getCles() == null || ligne.getCles().isEmpty() ? List.of()
+                : Arrays.stream(ligne.getCles().split(",")).map(Long::valueOf).collect(Collectors.toList());
+        return new Invalidation(Invalidation.Region.valueOf(ligne.getRegion()), ids, ligne.getOrigine(),
+                ligne.getHorodatage());
+    }
+}
@@ -0,0 +1,97 @@
+package com.pfa.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfa.backend.event.Invalidation;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.net.SocketAddress;
+import java.util.List;
+
+// Bus Redis (pub/sub) : propagation immédiate. Redis ne rejoue pas les messages manqués pendant
+// une coupure ; à la reconnexion, les régions sont vidées entièrement.
+@Service
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "redis")
+public class BusInvalidationRedis implements BusInvalidation {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusInvalidationRedis.class);
+
+    @Value("${invalidation.redis.uri:redis://localhost:6379}")
+    private String uri;
+    @Value("${invalidation.redis.canal:cartographie:invalidations}")
+    private String canal;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private RedisClient client;
+    private StatefulRedisConnection<String, String> publication;
+    private StatefulRedisPubSubConnection<String, String> abonnement;
+
+    @PostConstruct
+    public void connecter() {
+        client = RedisClient.create(uri);
+        publication = client.connect();
+        abonnement = client.connectPubSub();
+        abonnement.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(String canalRecu, String message) {
+                recevoir(message);
+            }
+        });
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> connexion, SocketAddress adresse) {
+                if (connexion == abonnement) {
+                    logger.warn("Abonnement Redis rétabli : cache de second niveau vidé");
+                    for (Invalidation.Region region : Invalidation.Region.values()) {
+                        eventPublisher.publishEvent(new Invalidation(region, List.of(), null, 0));
+                    }
+                }
+            }
+        });
+        abonnement.sync().subscribe(canal);
+    }
+
+    @Override
+    public void publier(List<Invalidation> invalidations) {
+        try {
+            publication.async().publish(canal, objectMapper.writeValueAsString(invalidations));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void recevoir(String message) {
+        try {
+            for (Invalidation invalidation : objectMapper.readValue(message, Invalidation[].class)) {
+                eventPublisher.publishEvent(invalidation);
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Invalidation illisible ignorée : {}", message);
+        }
+    }
+
+    @PreDestroy
+    public void fermer() {
+        abonnement.close();
+        publication.close();
+        client.shutdown();
+    }
+}
@@ -0,0 +1,166 @@
+package com.pfa.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pfa.backend.event.Diagnostic;
+import com.pfa.backend.event.Invalidation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Corps JSON déjà sérialisés (et compressés) du détail d'une entreprise : un succès évite
+// convertToDTO et Jackson. La clé porte la version de l'entreprise, avancée par chaque invalidation
+// de l'agrégat ou de ses filles (InvalidationService), de ce nœud comme des autres : un corps
+// construit pendant une écriture reste sous l'ancienne version et n'est plus jamais servi.
+@Service
+public class CacheReponseService {
+
+    // Un corps dépend aussi du secteur, de la forme juridique et de l'historique : tout est périmé
+    private static final Set<Invalidation.Region> REGIONS_GLOBALES = Set.of(Invalidation.Region.SECTEUR_DACTIVITE,
+            Invalidation.Region.FORME_JURIDIQUE, Invalidation.Region.HISTORIQUE_DENTREPRISE);
+
+    // Versions par tranche d'ids : mémoire bornée ; deux ids d'une même tranche s'invalident mutuellement
+    private static final int TRANCHES = 4096;
+
+    private static final int SURCOUT_ENTREE = 96;
+
+    @Value("${reponses.cache.actif:true}")
+    private boolean actif;
+    @Value("${reponses.cache.budget-mo:64}")
+    private long budgetMo;
+    // En deçà, gzip ne gagne presque rien et coûte à chaque client
+    @Value("${reponses.cache.gzip-seuil-octets:1024}")
+    private int seuilGzip;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLongArray versions = new AtomicLongArray(TRANCHES);
+    private final AtomicLong versionGlobale = new AtomicLong();
+    private Cache<Cle, Reponse> corps;
+    private Counter octetsServis;
+    private Counter octetsCompression;
+
+    // representation : champs et collections demandés ; gzip : encodage effectif du corps
+    private record Cle(long id, long version, String representation, boolean gzip) {
+    }
+
+    // tailleJson : taille du corps non compressé, pour mesurer le gain de gzip
+    public record Reponse(byte[] corps, boolean gzip, int tailleJson) {
+    }
+
+    @PostConstruct
+    public void initialiser() {
+        corps = Caffeine.newBuilder()
+                .maximumWeight(budgetMo * 1024 * 1024)
+                .weigher((Cle cle, Reponse reponse) -> SURCOUT_ENTREE + cle.representation().length() + reponse.corps().length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, corps, "reponses_entreprise");
+        octetsServis = Counter.builder("reponses.cache.octets").tag("type", "servis")
+                .description("Octets servis sans conversion ni sérialisation").register(meterRegistry);
+        octetsCompression = Counter.builder("reponses.cache.octets").tag("type", "gzip")
+                .description("Octets économisés sur le réseau par les corps pré-compressés").register(meterRegistry);
+        Gauge.builder("reponses.cache.ratio", corps, c -> c.stats().hitRate())
+                .description("Part des lectures servies depuis le cache").register(meterRegistry);
+    }
+
+    // Vide si l'entreprise est introuvable ; construire n'est appelé qu'en cas d'absence
+    public Optional<Reponse> obtenir(Long id, String representation, boolean gzipAccepte, Supplier<Optional<?>> construire) {
+        boolean gzip = gzipAccepte && seuilGzip > 0;
+        if (!actif) {
+            return construire.get().map(valeur -> construireReponse(valeur, gzip));
+        }
+        long version = version(id);
+        Cle cle = new Cle(id, version, representation, gzip);
+        Reponse reponse = corps.getIfPresent(cle);
+        if (reponse != null) {
+            octetsServis.increment(reponse.tailleJson());
+            if (reponse.gzip()) {
+                octetsCompression.increment(reponse.tailleJson() - reponse.corps().length);
+            }
+            return Optional.of(reponse);
+        }
+        Optional<Reponse> construite = construire.get().map(valeur -> construireReponse(valeur, gzip));
+        // Invalidée pendant la construction : le corps est peut-être antérieur à l'écriture
+        if (construite.isPresent() && version(id) == version) {
+            corps.put(cle, construite.get());
+        }
+        return construite;
+    }
+
+    // Après InvalidationService.appliquer : un corps reconstruit ne doit pas relire un cache de second niveau périmé
+    @EventListener
+    public void invalider(Invalidation invalidation) {
+        boolean entreprise = invalidation.getRegion() == Invalidation.Region.ENTREPRISE;
+        if (REGIONS_GLOBALES.contains(invalidation.getRegion()) || (entreprise && invalidation.getIds().isEmpty())) {
+            versionGlobale.incrementAndGet();
+            corps.invalidateAll();
+        } else if (entreprise) {
+            for (Long id : invalidation.getIds()) {
+                versions.incrementAndGet(tranche(id));
+                corps.asMap().keySet().removeIf(cle -> cle.id() == id);
+            }
+        }
+    }
+
+    private long version(long id) {
+        return versionGlobale.get() + versions.get(tranche(id));
+    }
+
+    private static int tranche(long id) {
+        return (int) Math.floorMod(id ^ (id >>> 32), (long) TRANCHES);
+    }
+
+    private Reponse construireReponse(Object valeur, boolean gzip) {
+        Diagnostic.SerialisationJson evenement = new Diagnostic.SerialisationJson();
+        evenement.begin();
+        Reponse reponse = serialiser(valeur, gzip);
+        if (evenement.shouldCommit()) {
+            evenement.endpoint = Diagnostic.endpoint();
+            evenement.entrepriseId = Diagnostic.entrepriseId();
+            evenement.octets = reponse.tailleJson();
+            evenement.gzip = reponse.gzip();
+            evenement.commit();
+        }
+        return reponse;
+    }
+
+    private Reponse serialiser(Object valeur, boolean gzip) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(valeur);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!gzip || json.length < seuilGzip) {
+            return new Reponse(json, false, json.length);
+        }
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream flux = new GZIPOutputStream(sortie)) {
+            flux.write(json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new Reponse(sortie.toByteArray(), true, json.length);
+    }
+}
@@ -0,0 +1,141 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.EnregistrementJfrDTO;
+import com.pfa.backend.event.Diagnostic;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Enregistrements JDK Flight Recorder à la demande, en production : les événements de la JVM
+// (GC, verrous, échantillons de pile, E/S) et ceux de Diagnostic, pour une durée bornée.
+// Un enregistrement terminé reste téléchargeable jusqu'à sa suppression ou sa péremption.
+@Service
+public class DiagnosticService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosticService.class);
+
+    private static final Set<String> CONFIGURATIONS = Set.of("default", "profile");
+
+    private static final List<Class<? extends Event>> EVENEMENTS = List.of(Diagnostic.Requete.class,
+            Diagnostic.LiaisonJson.class, Diagnostic.SerialisationJson.class, Diagnostic.Couche.class,
+            Diagnostic.Flush.class, Diagnostic.Historique.class, Diagnostic.EncodageLogo.class);
+
+    @Value("${diagnostic.enregistrement.actif:false}")
+    private boolean actif;
+    @Value("${diagnostic.enregistrement.duree-max-secondes:600}")
+    private long dureeMaxSecondes;
+    @Value("${diagnostic.enregistrement.taille-max-mo:256}")
+    private long tailleMaxMo;
+    @Value("${diagnostic.enregistrement.simultanes:2}")
+    private int simultanes;
+    @Value("${diagnostic.enregistrement.conservation-minutes:60}")
+    private long conservationMinutes;
+
+    private final Map<Long, Recording> enregistrements = new ConcurrentHashMap<>();
+
+    public boolean isActif() {
+        return actif;
+    }
+
+    // IllegalArgumentException : configuration inconnue ou durée hors bornes ;
+    // IllegalStateException : trop d'enregistrements conservés
+    public synchronized EnregistrementJfrDTO demarrer(long dureeSecondes, String configuration) throws IOException {
+        if (!CONFIGURATIONS.contains(configuration) || dureeSecondes < 1 || dureeSecondes > dureeMaxSecondes) {
+            throw new IllegalArgumentException("Configuration ou durée invalide");
+        }
+        if (enregistrements.size() >= simultanes) {
+            throw new IllegalStateException("Trop d'enregistrements conservés");
+        }
+        Recording enregistrement;
+        try {
+            enregistrement = new Recording(Configuration.getConfiguration(configuration));
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+        enregistrement.setName("cartographie-" + configuration);
+        EVENEMENTS.forEach(enregistrement::enable);
+        enregistrement.setDuration(Duration.ofSeconds(dureeSecondes));
+        enregistrement.setMaxSize(tailleMaxMo * 1024 * 1024);
+        enregistrement.setToDisk(true);
+        enregistrement.start();
+        enregistrements.put(enregistrement.getId(), enregistrement);
+        logger.info("Enregistrement JFR {} démarré ({}, {} s)", enregistrement.getId(), configuration, dureeSecondes);
+        return versDTO(enregistrement);
+    }
+
+    public List<EnregistrementJfrDTO> lister() {
+        return enregistrements.values().stream()
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .map(DiagnosticService::versDTO)
+                .toList();
+    }
+
+    // Fichier .jfr temporaire, à supprimer par l'appelant ; en cours d'enregistrement, les données jusqu'ici
+    public Optional<Path> extraire(long enregistrementId) throws IOException {
+        Recording enregistrement = enregistrements.get(enregistrementId);
+        if (enregistrement == null) {
+            return Optional.empty();
+        }
+        Path fichier = Files.createTempFile("cartographie-" + enregistrementId + "-", ".jfr");
+        try {
+            enregistrement.dump(fichier);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(fichier);
+            throw e;
+        }
+        return Optional.of(fichier);
+    }
+
+    public boolean supprimer(long enregistrementId) {
+        Recording enregistrement = enregistrements.remove(enregistrementId);
+        if (enregistrement == null) {
+            return false;
+        }
+        enregistrement.close();
+        return true;
+    }
+
+    // Enregistrements terminés et oubliés : leurs fichiers occuperaient le disque indéfiniment
+    @Scheduled(fixedDelay = 60_000)
+    public void purger() {
+        Instant limite = Instant.now().minus(Duration.ofMinutes(conservationMinutes));
+        enregistrements.values().removeIf(enregistrement -> {
+            boolean perime = enregistrement.getState() == RecordingState.STOPPED
+                    && enregistrement.getStopTime() != null && enregistrement.getStopTime().isBefore(limite);
+            if (perime) {
+                enregistrement.close();
+            }
+            return perime;
+        });
+    }
+
+    private static EnregistrementJfrDTO versDTO(Recording enregistrement) {
+        EnregistrementJfrDTO dto = new EnregistrementJfrDTO();
+        dto.setId(enregistrement.getId());
+        dto.setEtat(enregistrement.getState().name());
+        dto.setConfiguration(enregistrement.getName().substring("cartographie-".length()));
+        dto.setDebut(enregistrement.getStartTime());
+        dto.setDureeSecondes(enregistrement.getDuration() != null ? enregistrement.getDuration().toSeconds() : 0);
+        dto.setOctets(enregistrement.getSize());
+        return dto;
+    }
+}
@@ -0,0 +1,283 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.DoublonCandidatDTO;
+import com.pfa.backend.DTO.DoublonClusterDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.util.Normalisation;
+import com.pfa.backend.util.Similarite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Détection de doublons par blocage : on ne compare que les entreprises qui partagent
+// une clé (ICE, identifiant fiscal, mot significatif du nom, ville + début du nom).
+@Service
+public class DoublonService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoublonService.class);
+
+    public static final double SEUIL_PAR_DEFAUT = 0.88;
+
+    // Au-delà, un bloc de nom est trop peu discriminant (ex. "maroc") et il est ignoré
+    private static final int TAILLE_MAX_BLOC = 500;
+
+    private static final Set<String> MOTS_IGNORES = Set.of(
+            "sarl", "sarlau", "au", "sa", "sas", "snc", "scs", "gie", "ste", "societe", "ets", "etablissement",
+            "etablissements", "cie", "compagnie", "group", "groupe", "de", "du", "des", "la", "le", "les", "et", "d", "l");
+
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+
+    private final Map<Long, Fiche> fiches = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> blocs = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void chargerIndex() {
+        long debut = System.currentTimeMillis();
+        fiches.clear();
+        blocs.clear();
+        for (Object[] ligne : entrepriseRepository.findFichesDoublons()) {
+            indexer(new Fiche((Long) ligne[0], (String) ligne[1], (Integer) ligne[2], (Integer) ligne[3], (String) ligne[4]));
+        }
+        logger.info("Index de doublons chargé : {} entreprises, {} blocs en {} ms",
+                fiches.size(), blocs.size(), System.currentTimeMillis() - debut);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        desindexer(event.getEntrepriseId());
+        if (event.getType() != EntrepriseEvent.Type.DELETED) {
+            Entreprise e = event.getEntreprise();
+            indexer(new Fiche(e.getId(), e.getDenomination(), e.getIce(), e.getIdentifiantFiscal(), e.getVille()));
+        }
+    }
+
+    // Mode incrémental : candidats pour une entreprise déjà indexée
+    public List<DoublonCandidatDTO> candidats(Long entrepriseId, double seuil, int limite) {
+        Fiche fiche = fiches.get(entrepriseId);
+        return fiche == null ? Collections.emptyList() : candidats(fiche, seuil, limite);
+    }
+
+    // Mode incrémental : candidats pour une saisie pas encore enregistrée (import, formulaire)
+    public List<DoublonCandidatDTO> verifier(String denomination, Integer ice, Integer identifiantFiscal, String ville,
+                                             double seuil, int limite) {
+        return candidats(new Fiche(null, denomination, ice, identifiantFiscal, ville), seuil, limite);
+    }
+
+    // Mode complet : toutes les paires au-dessus du seuil, comparées bloc par bloc en parallèle,
+    // puis regroupées en clusters (union-find) classés par score.
+    public List<DoublonClusterDTO> clusters(double seuil, int limite) {
+        Map<String, Paire> paires = new ConcurrentHashMap<>();
+        blocs.values().parallelStream()
+                .map(ArrayList::new)
+                .filter(bloc -> bloc.size() > 1 && bloc.size() <= TAILLE_MAX_BLOC)
+                .forEach(bloc -> {
+                    for (int i = 0; i < bloc.size(); i++) {
+                        Fiche a = fiches.get(bloc.get(i));
+                        for (int j = i + 1; j < bloc.size() && a != null; j++) {
+                            Fiche b = fiches.get(bloc.get(j));
+                            if (b == null) {
+                                continue;
+                            }
+                            Score score = comparer(a, b);
+                            if (score.valeur >= seuil) {
+                                long min = Math.min(a.id, b.id);
+                                long max = Math.max(a.id, b.id);
+                                paires.merge(min + ":" + max, new Paire(min, max, score),
+                                        (p1, p2) -> p1.score.valeur >= p2.score.valeur ? p1 : p2);
+                            }
+                        }
+                    }
+                });
+
+        Map<Long, Long> parents = new HashMap<>();
+        for (Paire paire : paires.values()) {
+            unir(parents, paire.a, paire.b);
+        }
+        Map<Long, List<Paire>> parRacine = new HashMap<>();
+        for (Paire paire : paires.values()) {
+            parRacine.computeIfAbsent(racine(parents, paire.a), k -> new ArrayList<>()).add(paire);
+        }
+
+        List<DoublonClusterDTO> resultat = new ArrayList<>();
+        for (List<Paire> groupe : parRacine.values()) {
+            Map<Long, Score> meilleurScore = new LinkedHashMap<>();
+            for (Paire paire : groupe) {
+                meilleurScore.merge(paire.a, paire.score, (s1, s2) -> s1.valeur >= s2.valeur ? s1 : s2);
+                meilleurScore.merge(paire.b, paire.score, (s1, s2) -> s1.valeur >= s2.valeur ? s1 : s2);
+            }
+            DoublonClusterDTO cluster = new DoublonClusterDTO();
+            cluster.setScore(groupe.stream().mapToDouble(p -> p.score.valeur).max().orElse(0));
+            meilleurScore.forEach((id, score) -> {
+                Fiche fiche = fiches.get(id);
+                if (fiche != null) {
+                    cluster.getEntreprises().add(convertToDTO(fiche, score));
+                }
+            });
+            cluster.getEntreprises().sort(Comparator.comparing(DoublonCandidatDTO::getId));
+            resultat.add(cluster);
+        }
+        resultat.sort(Comparator.comparingDouble(DoublonClusterDTO::getScore).reversed()
+                .thenComparing(c -> -c.getEntreprises().size()));
+        return resultat.stream().limit(limite).collect(Collectors.toList());
+    }
+
+    private List<DoublonCandidatDTO> candidats(Fiche fiche, double seuil, int limite) {
+        Set<Long> voisins = new HashSet<>();
+        for (String cle : fiche.cles) {
+            Set<Long> bloc = blocs.get(cle);
+            if (bloc != null && (bloc.size() <= TAILLE_MAX_BLOC || !cle.startsWith("nom:"))) {
+                voisins.addAll(bloc);
+            }
+        }
+        voisins.remove(fiche.id);
+
+        List<DoublonCandidatDTO> resultat = new ArrayList<>();
+        for (Long id : voisins) {
+            Fiche autre = fiches.get(id);
+            if (autre == null) {
+                continue;
+            }
+            Score score = comparer(fiche, autre);
+            if (score.valeur >= seuil) {
+                resultat.add(convertToDTO(autre, score));
+            }
+        }
+        resultat.sort(Comparator.comparingDouble(DoublonCandidatDTO::getScore).reversed());
+        return resultat.size() > limite ? resultat.subList(0, limite) : resultat;
+    }
+
+    private Score comparer(Fiche a, Fiche b) {
+        if (a.ice != null && a.ice.equals(b.ice)) {
+            return new Score(1.0, "ICE identique");
+        }
+        if (a.identifiantFiscal != null && a.identifiantFiscal.equals(b.identifiantFiscal)) {
+            return new Score(0.98, "identifiant fiscal identique");
+        }
+        if (a.nom.isEmpty() || b.nom.isEmpty()) {
+            return new Score(0, null);
+        }
+        double nom = Similarite.jaroWinkler(a.nom, b.nom);
+        boolean memeVille = a.ville != null && a.ville.equals(b.ville);
+        double valeur = Math.min(1.0, nom + (memeVille ? 0.03 : 0));
+        return new Score(valeur, memeVille ? "dénomination proche, même ville" : "dénomination proche");
+    }
+
+    private void indexer(Fiche fiche) {
+        fiches.put(fiche.id, fiche);
+        for (String cle : fiche.cles) {
+            blocs.computeIfAbsent(cle, k -> ConcurrentHashMap.newKeySet()).add(fiche.id);
+        }
+    }
+
+    private void desindexer(Long id) {
+        Fiche ancienne = fiches.remove(id);
+        if (ancienne == null) {
+            return;
+        }
+        for (String cle : ancienne.cles) {
+            blocs.computeIfPresent(cle, (k, bloc) -> {
+                bloc.remove(id);
+                return bloc.isEmpty() ? null : bloc;
+            });
+        }
+    }
+
+    private DoublonCandidatDTO convertToDTO(Fiche fiche, Score score) {
+        DoublonCandidatDTO dto = new DoublonCandidatDTO();
+        dto.setId(fiche.id);
+        dto.setDenomination(fiche.denomination);
+        dto.setVille(fiche.villeAffichee);
+        dto.setIce(fiche.ice);
+        dto.setIdentifiantFiscal(fiche.identifiantFiscal);
+        dto.setScore(Math.round(score.valeur * 1000) / 1000.0);
+        dto.setRaison(score.raison);
+        return dto;
+    }
+
+    private static void unir(Map<Long, Long> parents, long a, long b) {
+        long ra = racine(parents, a);
+        long rb = racine(parents, b);
+        if (ra != rb) {
+            parents.put(Math.max(ra, rb), Math.min(ra, rb));
+        }
+    }
+
+    private static long racine(Map<Long, Long> parents, long id) {
+        long courant = id;
+        while (parents.containsKey(courant)) {
+            courant = parents.get(courant);
+        }
+        if (courant != id) {
+            parents.put(id, courant);
+        }
+        return courant;
+    }
+
+    // "Sté Atlas Soft S.A.R.L." -> "atlas soft"
+    static String nomNormalise(String denomination) {
+        String cle = Normalisation.cle(denomination);
+        if (cle == null) {
+            return "";
+        }
+        // "s a r l" -> "sarl" avant le filtrage des formes juridiques
+        cle = cle.replaceAll("\\b(\\w) (?=\\w\\b)", "$1");
+        return Arrays.stream(cle.split(" "))
+                .filter(mot -> !MOTS_IGNORES.contains(mot))
+                .collect(Collectors.joining(" "));
+    }
+
+    private static final class Fiche {
+        private final Long id;
+        private final String denomination;
+        private final String nom;
+        private final Integer ice;
+        private final Integer identifiantFiscal;
+        private final String ville;
+        private final String villeAffichee;
+        private final List<String> cles = new ArrayList<>();
+
+        private Fiche(Long id, String denomination, Integer ice, Integer identifiantFiscal, String ville) {
+            this.id = id;
+            this.denomination = denomination;
+            this.nom = nomNormalise(denomination);
+            this.ice = ice;
+            this.identifiantFiscal = identifiantFiscal;
+            this.ville = Normalisation.cle(ville);
+            this.villeAffichee = ville;
+
+            if (ice != null) {
+                cles.add("ice:" + ice);
+            }
+            if (identifiantFiscal != null) {
+                cles.add("if:" + identifiantFiscal);
+            }
+            if (!nom.isEmpty()) {
+                for (String mot : nom.split(" ")) {
+                    if (mot.length() >= 3) {
+                        cles.add("nom:" + mot);
+                    }
+                }
+                if (this.ville != null) {
+                    cles.add("ville:" + this.ville + ":" + nom.substring(0, Math.min(3, nom.length())));
+                }
+            }
+        }
+    }
+
+    private record Score(double valeur, String raison) {
+    }
+
+    private record Paire(long a, long b, Score score) {
+    }
+}
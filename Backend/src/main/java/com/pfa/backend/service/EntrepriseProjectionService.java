@@ -0,0 +1,295 @@
+package com.pfa.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfa.backend.DTO.*;
+import com.pfa.backend.repository.FaxRepository;
+import com.pfa.backend.repository.GerantRepository;
+import com.pfa.backend.repository.HistoriqueDentrepriseRepository;
+import com.pfa.backend.repository.TelephoneRepository;
+import com.pfa.backend.util.ValeurHistorique;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+
+// Réponses partielles (?fields=, ?embed=) : la requête ne sélectionne que les colonnes demandées,
+// le logo n'est jamais lu (seulement sa présence, pour logoUrl) et les collections sont chargées par lots IN, sans entités.
+@Service
+public class EntrepriseProjectionService {
+
+    // Champ exposé -> expression JPQL ; secteur et forme juridique sont lus en (id, nom)
+    private static final Map<String, String> COLONNES = new LinkedHashMap<>();
+    static {
+        for (String champ : List.of("denomination", "capitalSocial", "ice", "identifiantFiscal", "numRegistreCommerce",
+                "numPatente", "numAffiliationCnss", "adresse", "ville", "mail", "siteWeb", "nombreEmployes",
+                "latitude", "longitude", "dateCreation")) {
+            COLONNES.put(champ, "e." + champ);
+        }
+        COLONNES.put("logoUrl", "CASE WHEN e.logo IS NULL THEN false ELSE true END");
+        COLONNES.put("dateCessationActivite", "e.dateCessationActivite");
+        COLONNES.put("secteurDactivite", "s.id, s.nom");
+        COLONNES.put("formeJuridique", "f.id, f.nom");
+    }
+
+    public static final Set<String> COLLECTIONS = new LinkedHashSet<>(
+            List.of("telephones", "faxes", "gerants", "historiqueDentreprise"));
+
+    // Même condition que EntrepriseRepository.filterEntreprises
+    private static final String CONDITION_FILTRE =
+            "(:ville IS NULL OR :ville = '' OR e.ville = :ville) " +
+            "AND (:denomination IS NULL OR :denomination = '' OR e.denomination LIKE CONCAT('%', :denomination, '%')) " +
+            "AND (:secteurNom IS NULL OR :secteurNom = '' OR s.nom = :secteurNom) " +
+            "AND (:formeJuridiqueNom IS NULL OR :formeJuridiqueNom = '' OR f.nom = :formeJuridiqueNom) " +
+            "AND (COALESCE(:ville, '') = '' OR COALESCE(:denomination, '') = '' OR COALESCE(:secteurNom, '') = '' OR COALESCE(:formeJuridiqueNom, '') = '' " +
+            "    OR (e.ville = :ville AND e.denomination LIKE CONCAT('%', :denomination, '%') AND s.nom = :secteurNom AND f.nom = :formeJuridiqueNom))";
+
+    // Ligne (entrepriseId, id, ...) d'une requête findXxxByEntrepriseIdIn -> DTO de la collection
+    private static final Map<String, Function<Object[], Object>> CONVERSIONS = Map.of(
+            "telephones", ligne -> {
+                TelephoneDTO dto = new TelephoneDTO();
+                dto.setId((Long) ligne[1]);
+                dto.setNumero((String) ligne[2]);
+                return dto;
+            },
+            "faxes", ligne -> {
+                FaxDTO dto = new FaxDTO();
+                dto.setId((Long) ligne[1]);
+                dto.setNumero((String) ligne[2]);
+                return dto;
+            },
+            "gerants", ligne -> {
+                GerantDTO dto = new GerantDTO();
+                dto.setId((Long) ligne[1]);
+                dto.setNom((String) ligne[2]);
+                dto.setPrenom((String) ligne[3]);
+                return dto;
+            },
+            "historiqueDentreprise", ligne -> {
+                HistoriqueDentrepriseDTO dto = new HistoriqueDentrepriseDTO();
+                dto.setId((Long) ligne[1]);
+                dto.setAttributModifie((String) ligne[2]);
+                ValeurHistorique.Type type = (ValeurHistorique.Type) ligne[6];
+                dto.setTypeValeur(type != null ? type.name() : null);
+                dto.setAncienneValeur(ValeurHistorique.decoder((String) ligne[3], (Boolean) ligne[7]));
+                dto.setNouvelleValeur(ValeurHistorique.decoder((String) ligne[4], (Boolean) ligne[7]));
+                dto.setDateModification((Date) ligne[5]);
+                return dto;
+            });
+
+    // Borne des listes IN envoyées à la base
+    private static final int TAILLE_LOT_IN = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private TelephoneRepository telephoneRepository;
+    @Autowired
+    private FaxRepository faxRepository;
+    @Autowired
+    private GerantRepository gerantRepository;
+    @Autowired
+    private HistoriqueDentrepriseRepository historiqueDentrepriseRepository;
+    @Autowired
+    private VilleService villeService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAll(Projection projection) {
+        return executer(projection, requete(projection, null));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getById(Long id, Projection projection) {
+        TypedQuery<Object[]> requete = requete(projection, "e.id = :id");
+        requete.setParameter("id", id);
+        return executer(projection, requete).stream().findFirst();
+    }
+
+    // Multi-get : par lot de TAILLE_LOT_IN ids, une requête pour les entreprises puis une par collection ;
+    // résultat dans l'ordre des ids demandés, sans les ids inconnus ou supprimés
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getByIds(Collection<Long> ids, Projection projection) {
+        List<Long> distincts = new ArrayList<>(new LinkedHashSet<>(ids));
+        distincts.remove(null);
+        Map<Long, Map<String, Object>> parId = new HashMap<>();
+        for (int debut = 0; debut < distincts.size(); debut += TAILLE_LOT_IN) {
+            TypedQuery<Object[]> requete = requete(projection, "e.id IN :ids");
+            requete.setParameter("ids", distincts.subList(debut, Math.min(debut + TAILLE_LOT_IN, distincts.size())));
+            executer(projection, requete).forEach(entreprise -> parId.put((Long) entreprise.get("id"), entreprise));
+        }
+        List<Map<String, Object>> resultat = new ArrayList<>();
+        for (Long id : distincts) {
+            if (parId.containsKey(id)) {
+                resultat.add(parId.get(id));
+            }
+        }
+        return resultat;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> filtrer(String ville, String denomination, String secteurNom, String formeJuridiqueNom,
+                                             Projection projection) {
+        if (ville != null && !ville.isEmpty()) {
+            ville = villeService.trouver(ville).map(VilleDTO::getNom).orElse(ville);
+        }
+        TypedQuery<Object[]> requete = requete(projection, CONDITION_FILTRE);
+        requete.setParameter("ville", ville);
+        requete.setParameter("denomination", denomination);
+        requete.setParameter("secteurNom", secteurNom);
+        requete.setParameter("formeJuridiqueNom", formeJuridiqueNom);
+        return executer(projection, requete);
+    }
+
+    // Les archives sont déjà sérialisées (contenu JSON) : rien à pousser en base, on retire les champs non demandés
+    public Map<String, Object> projeter(EntrepriseDTO dto, Projection projection) {
+        Map<String, Object> complet = objectMapper.convertValue(dto, new TypeReference<Map<String, Object>>() {
+        });
+        Map<String, Object> resultat = new LinkedHashMap<>();
+        resultat.put("id", complet.get("id"));
+        projection.champs.forEach(champ -> resultat.put(champ, complet.get(champ)));
+        projection.collections.forEach(collection -> resultat.put(collection, complet.get(collection)));
+        resultat.put("dateArchivage", complet.get("dateArchivage"));
+        return resultat;
+    }
+
+    private TypedQuery<Object[]> requete(Projection projection, String condition) {
+        StringBuilder jpql = new StringBuilder("SELECT e.id");
+        projection.champs.forEach(champ -> jpql.append(", ").append(COLONNES.get(champ)));
+        jpql.append(" FROM Entreprise e");
+        // Les jointures ne servent qu'aux champs et aux filtres qui les utilisent
+        if (projection.champs.contains("secteurDactivite") || CONDITION_FILTRE.equals(condition)) {
+            jpql.append(" LEFT JOIN e.secteurDactivite s");
+        }
+        if (projection.champs.contains("formeJuridique") || CONDITION_FILTRE.equals(condition)) {
+            jpql.append(" LEFT JOIN e.formeJuridique f");
+        }
+        if (condition != null) {
+            jpql.append(" WHERE ").append(condition);
+        }
+        return entityManager.createQuery(jpql.toString(), Object[].class);
+    }
+
+    private List<Map<String, Object>> executer(Projection projection, TypedQuery<Object[]> requete) {
+        Map<Long, Map<String, Object>> parId = new LinkedHashMap<>();
+        for (Object[] ligne : requete.getResultList()) {
+            Map<String, Object> entreprise = new LinkedHashMap<>();
+            Long id = (Long) ligne[0];
+            entreprise.put("id", id);
+            int i = 1;
+            for (String champ : projection.champs) {
+                switch (champ) {
+                    case "logoUrl" -> entreprise.put(champ, Boolean.TRUE.equals(ligne[i++]) ? "/api/entreprises/" + id + "/logo" : null);
+                    case "secteurDactivite" -> {
+                        SecteurDactiviteDTO secteur = null;
+                        if (ligne[i] != null) {
+                            secteur = new SecteurDactiviteDTO();
+                            secteur.setId((Long) ligne[i]);
+                            secteur.setNom((String) ligne[i + 1]);
+                        }
+                        entreprise.put(champ, secteur);
+                        i += 2;
+                    }
+                    case "formeJuridique" -> {
+                        FormeJuridiqueDTO forme = null;
+                        if (ligne[i] != null) {
+                            forme = new FormeJuridiqueDTO();
+                            forme.setId((Long) ligne[i]);
+                            forme.setNom((String) ligne[i + 1]);
+                        }
+                        entreprise.put(champ, forme);
+                        i += 2;
+                    }
+                    default -> entreprise.put(champ, ligne[i++]);
+                }
+            }
+            projection.collections.forEach(collection -> entreprise.put(collection, new ArrayList<>()));
+            parId.put(id, entreprise);
+        }
+        chargerCollections(parId, projection.collections);
+        return new ArrayList<>(parId.values());
+    }
+
+    // Une requête par collection demandée et par lot d'entreprises, quel que soit leur nombre
+    @SuppressWarnings("unchecked")
+    private void chargerCollections(Map<Long, Map<String, Object>> parId, Set<String> collections) {
+        if (parId.isEmpty() || collections.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(parId.keySet());
+        for (int debut = 0; debut < ids.size(); debut += TAILLE_LOT_IN) {
+            List<Long> lot = ids.subList(debut, Math.min(debut + TAILLE_LOT_IN, ids.size()));
+            for (String collection : collections) {
+                List<Object[]> lignes = switch (collection) {
+                    case "telephones" -> telephoneRepository.findNumerosByEntrepriseIdIn(lot);
+                    case "faxes" -> faxRepository.findNumerosByEntrepriseIdIn(lot);
+                    case "gerants" -> gerantRepository.findNomsByEntrepriseIdIn(lot);
+                    default -> historiqueDentrepriseRepository.findLignesByEntrepriseIdIn(lot);
+                };
+                Function<Object[], Object> conversion = CONVERSIONS.get(collection);
+                for (Object[] ligne : lignes) {
+                    ((List<Object>) parId.get((Long) ligne[0]).get(collection)).add(conversion.apply(ligne));
+                }
+            }
+        }
+    }
+
+    // ?fields=denomination,ville&embed=telephones ; sans fields, tous les champs ;
+    // sans embed, aucune collection. L'id est toujours renvoyé.
+    public static class Projection {
+        private final List<String> champs = new ArrayList<>();
+        private final Set<String> collections = new LinkedHashSet<>();
+
+        private Projection() {
+        }
+
+        // null si aucun des deux paramètres n'est fourni : réponse complète habituelle
+        public static Projection analyser(String fields, String embed) {
+            if (fields == null && embed == null) {
+                return null;
+            }
+            Projection projection = new Projection();
+            Set<String> demandes = fields != null ? liste(fields) : new LinkedHashSet<>(COLONNES.keySet());
+            demandes.remove("id");
+            for (String champ : demandes) {
+                if (COLLECTIONS.contains(champ)) {
+                    projection.collections.add(champ);
+                } else if (!COLONNES.containsKey(champ)) {
+                    throw new IllegalArgumentException("Champ inconnu : " + champ);
+                }
+            }
+            // Ordre stable des colonnes, quel que soit l'ordre de la requête
+            COLONNES.keySet().stream().filter(demandes::contains).forEach(projection.champs::add);
+            if (embed != null) {
+                for (String collection : liste(embed)) {
+                    if (!COLLECTIONS.contains(collection)) {
+                        throw new IllegalArgumentException("Collection inconnue : " + collection);
+                    }
+                    projection.collections.add(collection);
+                }
+            }
+            return projection;
+        }
+
+        // Clé de cache de la représentation : champs dans l'ordre des colonnes, puis collections
+        public String cle() {
+            return String.join(",", champs) + "|" + String.join(",", collections);
+        }
+
+        private static Set<String> liste(String valeur) {
+            Set<String> elements = new LinkedHashSet<>();
+            for (String element : valeur.split(",")) {
+                if (!element.isBlank()) {
+                    elements.add(element.trim());
+                }
+            }
+            return elements;
+        }
+    }
+}
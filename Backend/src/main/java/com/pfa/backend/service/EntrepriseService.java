@@ -5,19 +5,30 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pfa.backend.DTO.*;
 import com.pfa.backend.entity.*;
+import com.pfa.backend.event.Diagnostic;
+import com.pfa.backend.event.EntrepriseEvent;
 import com.pfa.backend.repository.EntrepriseRepository;
 import com.pfa.backend.repository.FormeJuridiqueRepository;
 import com.pfa.backend.repository.HistoriqueDentrepriseRepository;
 import com.pfa.backend.repository.SecteurDactiviteRepository;
+import com.pfa.backend.util.Normalisation;
+import com.pfa.backend.util.SingleFlight;
+import com.pfa.backend.util.ValeurHistorique;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
@@ -50,13 +61,47 @@ public class EntrepriseService {
 
     @Autowired
     private FormeJuridiqueRepository formeJuridiqueRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private VilleService villeService;
+    @Autowired
+    private LogoService logoService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${historique.compression.seuil:512}")
+    private int seuilCompression;
 
     private static final Logger logger = LoggerFactory.getLogger(EntrepriseService.class);
+
+    private SingleFlight<Long, Optional<EntrepriseDTO>> lecturesParId;
+    private SingleFlight<List<String>, List<EntrepriseDTO>> filtres;
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        lecturesParId = new SingleFlight<>("entreprise", meterRegistry);
+        filtres = new SingleFlight<>("filtre", meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        if (event.getType() == EntrepriseEvent.Type.DELETED) {
+            // @SQLRestriction ne s'applique pas aux lectures servies par le cache de second niveau
+            entityManagerFactory.getCache().evict(Entreprise.class, event.getEntrepriseId());
+        }
+        lecturesParId.invalider(event.getEntrepriseId());
+        filtres.invaliderTout();
+    }
     public List<String> getAllVilles() {
-        return entrepriseRepository.findDistinctVille();
+        return villeService.getNomsVilles();
     }
+    @Transactional
     public Entreprise createEntreprise(Entreprise entreprise) {
-        return entrepriseRepository.save(entreprise);
+        villeService.canonicaliser(entreprise);
+        Entreprise savedEntreprise = entrepriseRepository.save(entreprise);
+        eventPublisher.publishEvent(EntrepriseEvent.created(savedEntreprise));
+        return savedEntreprise;
     }
 
     public List<EntrepriseDTO> getAllEntreprises() {
@@ -67,9 +112,11 @@ public class EntrepriseService {
     }
 
 
+    // Les ouvertures simultanées d'une même fiche (lien partagé) ne chargent l'entreprise qu'une fois
     public Optional<EntrepriseDTO> getEntrepriseById(Long id) {
-        return entrepriseRepository.findById(id)
-                .map(this::convertToDTO);
+        return lecturesParId.executer(id, () -> entrepriseRepository.findById(id)
+                .filter(e -> e.getDateSuppression() == null)
+                .map(this::convertToDTO));
     }
 
 
@@ -91,10 +138,9 @@ public class EntrepriseService {
         dto.setLatitude(entreprise.getLatitude());
         dto.setLongitude(entreprise.getLongitude());
         dto.setDateCreation(entreprise.getDateCreation());
-        // Conversion du logo BLOB en Base64
+        // Le logo n'est jamais inclus : le client le charge par logoUrl, à la taille affichée
         if (entreprise.getLogo() != null) {
-            String base64Logo = Base64.getEncoder().encodeToString(entreprise.getLogo());
-            dto.setLogo(base64Logo);
+            dto.setLogoUrl("/api/entreprises/" + entreprise.getId() + "/logo");
         }
         dto.setDateCessationActivite(entreprise.getDateCessationActivite());
 
@@ -145,8 +191,9 @@ public class EntrepriseService {
                     HistoriqueDentrepriseDTO hDto = new HistoriqueDentrepriseDTO();
                     hDto.setId(h.getId());
                     hDto.setAttributModifie(h.getAttributModifie());
-                    hDto.setAncienneValeur(h.getAncienneValeur());
-                    hDto.setNouvelleValeur(h.getNouvelleValeur());
+                    hDto.setTypeValeur(h.getTypeValeur() != null ? h.getTypeValeur().name() : null);
+                    hDto.setAncienneValeur(ValeurHistorique.decoder(h.getAncienneValeur(), h.getValeursCompressees()));
+                    hDto.setNouvelleValeur(ValeurHistorique.decoder(h.getNouvelleValeur(), h.getValeursCompressees()));
                     hDto.setDateModification(h.getDateModification());
                     return hDto;
                 })
@@ -156,16 +203,26 @@ public class EntrepriseService {
     }
     @Transactional
     public EntrepriseDTO updateEntreprise(Long id, Map<String, Object> updates, MultipartFile logo) {
-        Optional<Entreprise> optionalEntreprise = entrepriseRepository.findById(id);
-        if (optionalEntreprise.isEmpty()) {
-            throw new EntityNotFoundException("Entreprise introuvable avec l'id " + id);
-        }
-
-        Entreprise entreprise = optionalEntreprise.get();
-        Entreprise entrepriseOriginale = new Entreprise();
-        BeanUtils.copyProperties(entreprise, entrepriseOriginale);
+        // Agrégat chargé une seule fois : champs et collections sont modifiés en mémoire, puis un seul flush
+        Entreprise entreprise = entrepriseRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Entreprise introuvable avec l'id " + id));
 
         BeanWrapperImpl beanWrapper = new BeanWrapperImpl(entreprise);
+        Map<String, Object> valeursOriginales = new HashMap<>();
+        for (Field field : Entreprise.class.getDeclaredFields()) {
+            if (ValeurHistorique.IGNOREES.contains(field.getName())) {
+                continue;
+            }
+            Object valeur = beanWrapper.getPropertyValue(field.getName());
+            if (valeur instanceof Collection<?> elements) {
+                // Modifiées sur place : image des seules collections mises à jour (les autres restent non chargées)
+                if (updates.containsKey(field.getName())) {
+                    valeursOriginales.put(field.getName(), ValeurHistorique.instantane(elements));
+                }
+            } else {
+                valeursOriginales.put(field.getName(), valeur);
+            }
+        }
         ObjectMapper objectMapper = new ObjectMapper();
 
         updates.forEach((key, value) -> {
@@ -174,15 +231,15 @@ public class EntrepriseService {
                     switch (key) {
                         case "telephones":
                             List<Telephone> telephones = objectMapper.readValue((String) value, new TypeReference<List<Telephone>>() {});
-                            telephoneService.updateTelephonesByEntrepriseId(id, telephones);
+                            telephoneService.synchroniser(entreprise, telephones);
                             break;
                         case "faxes":
                             List<Fax> faxes = objectMapper.readValue((String) value, new TypeReference<List<Fax>>() {});
-                            faxService.updateFaxesByEntrepriseId(id, faxes);
+                            faxService.synchroniser(entreprise, faxes);
                             break;
                         case "gerants":
                             List<Gerant> gerants = objectMapper.readValue((String) value, new TypeReference<List<Gerant>>() {});
-                            gerantService.updateGerantsByEntrepriseId(id, gerants);
+                            gerantService.synchroniser(entreprise, gerants);
                             break;
                         case "secteurDactivite":
                             Long secteurId = Long.valueOf(value.toString());
@@ -196,6 +253,10 @@ public class EntrepriseService {
                                     .orElseThrow(() -> new EntityNotFoundException("Forme juridique introuvable avec l'id " + formeId));
                             entreprise.setFormeJuridique(forme);
                             break;
+                        case "ville":
+                            entreprise.setVille((String) value);
+                            villeService.canonicaliser(entreprise);
+                            break;
                         case "dateCreation":
                             try {
                                 LocalDate dateCreation = LocalDate.parse((String) value);
@@ -223,63 +284,122 @@ public class EntrepriseService {
         });
 
         if (logo != null) {
-            try {
-                entreprise.setLogo(logo.getBytes());
+            try (InputStream flux = logo.getInputStream()) {
+                LogoService.LogoRecu logoRecu = logoService.lire(flux);
+                entreprise.setLogo(logoRecu.donnees());
+                entreprise.setLogoEmpreinte(logoRecu.empreinte());
             } catch (IOException e) {
                 throw new RuntimeException("Erreur lors de la lecture du fichier logo", e);
             }
         }
 
-        Entreprise entrepriseMiseAJour = entrepriseRepository.save(entreprise);
-        saveHistoryChanges(entrepriseOriginale, entrepriseMiseAJour);
+        // Entité managée : pas de save, le dirty checking écrit les changements au commit
+        saveHistoryChanges(valeursOriginales, entreprise);
 
-        return convertToDTO(entrepriseMiseAJour);
+        // Un seul événement pour toute la requête, collections comprises
+        Set<String> attributsModifies = new HashSet<>(updates.keySet());
+        if (logo != null) {
+            attributsModifies.add("logo");
+        }
+        if (!attributsModifies.isEmpty()) {
+            Map<String, Object> valeursPrecedentes = new HashMap<>();
+            for (String attribut : attributsModifies) {
+                if (valeursOriginales.containsKey(attribut)) {
+                    valeursPrecedentes.put(attribut, valeursOriginales.get(attribut));
+                }
+            }
+            eventPublisher.publishEvent(EntrepriseEvent.updated(entreprise, attributsModifies, valeursPrecedentes));
+        }
+
+        return convertToDTO(entreprise);
     }
 
 
 
 
-    private void saveHistoryChanges(Entreprise originalEntreprise, Entreprise updatedEntreprise) {
-        BeanWrapper originalWrapper = new BeanWrapperImpl(originalEntreprise);
+    private void saveHistoryChanges(Map<String, Object> valeursOriginales, Entreprise updatedEntreprise) {
+        Diagnostic.Historique evenement = new Diagnostic.Historique();
+        evenement.begin();
         BeanWrapper updatedWrapper = new BeanWrapperImpl(updatedEntreprise);
 
-        for (Field field : Entreprise.class.getDeclaredFields()) {
-            Object originalValue = originalWrapper.getPropertyValue(field.getName());
-            Object updatedValue = updatedWrapper.getPropertyValue(field.getName());
-
-            boolean valuesDiffer = (originalValue != null && !originalValue.equals(updatedValue)) ||
-                    (originalValue == null && updatedValue != null);
-
-            if (valuesDiffer) {
-                String originalStringValue = originalValue != null ? originalValue.toString() : null;
-                String updatedStringValue = updatedValue != null ? updatedValue.toString() : null;
-
-                boolean alreadyExists = historiqueDentrepriseRepository.existsByEntrepriseAndAttributModifieAndAncienneValeurAndNouvelleValeur(
-                        updatedEntreprise, field.getName(), originalStringValue, updatedStringValue);
-
-                if (!alreadyExists) {
-                    HistoriqueDentreprise historique = new HistoriqueDentreprise();
-                    historique.setEntreprise(updatedEntreprise);
-                    historique.setAttributModifie(field.getName());
-                    historique.setAncienneValeur(originalStringValue);
-                    historique.setNouvelleValeur(updatedStringValue);
-                    historique.setDateModification(new Date());
-                    historiqueDentrepriseRepository.save(historique);
-                }
+        List<HistoriqueDentreprise> changements = new ArrayList<>();
+        for (Map.Entry<String, Object> original : valeursOriginales.entrySet()) {
+            Object updatedValue = updatedWrapper.getPropertyValue(original.getKey());
+            if (updatedValue instanceof Collection<?> elements) {
+                updatedValue = ValeurHistorique.instantane(elements);
+            }
+
+            ValeurHistorique.Changement changement = ValeurHistorique.encoder(original.getValue(), updatedValue, seuilCompression);
+            if (changement != null) {
+                HistoriqueDentreprise historique = new HistoriqueDentreprise();
+                historique.setEntreprise(updatedEntreprise);
+                historique.setAttributModifie(original.getKey());
+                historique.setTypeValeur(changement.type());
+                historique.setAncienneValeur(changement.ancienne());
+                historique.setNouvelleValeur(changement.nouvelle());
+                historique.setValeursCompressees(changement.compresse());
+                historique.setDateModification(new Date());
+                changements.add(historique);
             }
         }
+        if (changements.isEmpty()) {
+            evenement.terminer("EntrepriseService", updatedEntreprise.getId(), valeursOriginales.size(), 0);
+            return;
+        }
+
+        // Une seule requête pour écarter les changements déjà enregistrés, au lieu d'un exists par attribut
+        Set<List<String>> existants = historiqueDentrepriseRepository.findValeursByEntrepriseAndAttributs(updatedEntreprise,
+                        changements.stream().map(HistoriqueDentreprise::getAttributModifie).collect(Collectors.toSet()))
+                .stream()
+                .map(ligne -> Arrays.asList((String) ligne[0], (String) ligne[1], (String) ligne[2]))
+                .collect(Collectors.toSet());
+        changements.removeIf(h -> existants.contains(
+                Arrays.asList(h.getAttributModifie(), h.getAncienneValeur(), h.getNouvelleValeur())));
+        historiqueDentrepriseRepository.saveAll(changements);
+        evenement.terminer("EntrepriseService", updatedEntreprise.getId(), valeursOriginales.size(), changements.size());
     }
 
 
 
 
+    // Suppression logique : l'entreprise disparaît des requêtes et sera déplacée par ArchiveService
+    @Transactional
     public void deleteEntreprise(Long id) {
-        entrepriseRepository.deleteById(id);
+        entrepriseRepository.findById(id).ifPresent(entreprise -> {
+            entreprise.setDateSuppression(new Date());
+            entrepriseRepository.save(entreprise);
+            eventPublisher.publishEvent(EntrepriseEvent.deleted(id));
+        });
+    }
+    // Suggestions par début de nom ; la recherche du filtre, elle, trouve le texte n'importe où dans le nom
+    public List<DenominationDTO> autocompleterDenomination(String saisie, int limite) {
+        String prefixe = Normalisation.nettoyer(saisie);
+        if (prefixe == null) {
+            return Collections.emptyList();
+        }
+        return entrepriseRepository.findDenominationsParPrefixe(prefixe, PageRequest.of(0, limite)).stream()
+                .map(ligne -> {
+                    DenominationDTO dto = new DenominationDTO();
+                    dto.setId((Long) ligne[0]);
+                    dto.setDenomination((String) ligne[1]);
+                    dto.setVille((String) ligne[2]);
+                    return dto;
+                })
+                .collect(Collectors.toList());
     }
+
     // Méthode de filtrage des entreprises
     public List<EntrepriseDTO> filterEntreprises(String ville, String denomination, String secteurNom, String formeJuridiqueNom) {
-        List<Entreprise> entreprises = entrepriseRepository.filterEntreprises(ville, denomination, secteurNom, formeJuridiqueNom);
-        return entreprises.stream().map(this::convertToDTO).collect(Collectors.toList());
+        // "casa", "Casablanca " ... sont ramenés au nom canonique enregistré
+        if (ville != null && !ville.isEmpty()) {
+            ville = villeService.trouver(ville).map(VilleDTO::getNom).orElse(ville);
+        }
+        String villeCanonique = ville;
+        List<EntrepriseDTO> resultat = filtres.executer(Arrays.asList(ville, denomination, secteurNom, formeJuridiqueNom),
+                () -> entrepriseRepository.filterEntreprises(villeCanonique, denomination, secteurNom, formeJuridiqueNom)
+                        .stream().map(this::convertToDTO).collect(Collectors.toList()));
+        // Liste partagée entre les requêtes regroupées : chaque appelant reçoit sa copie
+        return new ArrayList<>(resultat);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,384 @@
+package com.pfa.backend.service;
+
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+// Copie en colonnes (tableaux primitifs) des champs scalaires d'Entreprise.
+// Ville, secteur et forme juridique sont encodés par dictionnaire (code int, -1 = absent).
+public class EntrepriseSnapshot {
+
+    public static final int ABSENT = -1;
+
+    // Clé de groupe des valeurs absentes : hors de l'intervalle des numéros de tranche, qui peuvent être négatifs
+    static final long GROUPE_ABSENT = Long.MIN_VALUE;
+
+    // En dessous de ce nombre de lignes, le scan reste séquentiel
+    static final int SEUIL_PARALLELE = 16_384;
+
+    public enum Dimension { AUCUNE, VILLE, SECTEUR, FORME, ANNEE_CREATION, TRANCHE_EMPLOYES, TRANCHE_CAPITAL }
+
+    public enum Mesure { CAPITAL_SOCIAL, NOMBRE_EMPLOYES }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> lignes = new HashMap<>();
+
+    private long[] ids = new long[1024];
+    private double[] capitalSocial = new double[1024];
+    private int[] nombreEmployes = new int[1024];
+    private int[] anneeCreation = new int[1024];
+    private int[] ville = new int[1024];
+    private int[] secteur = new int[1024];
+    private int[] forme = new int[1024];
+    private int taille;
+
+    private final Dictionnaire<String> villes = new Dictionnaire<>();
+    private final Dictionnaire<Long> secteurs = new Dictionnaire<>();
+    private final Dictionnaire<Long> formes = new Dictionnaire<>();
+
+    public void upsert(long id, Float capital, Integer employes, Integer annee, String nomVille, Long secteurId, Long formeId) {
+        lock.writeLock().lock();
+        try {
+            Integer ligne = lignes.get(id);
+            int i;
+            if (ligne == null) {
+                assurerCapacite(taille + 1);
+                i = taille++;
+                lignes.put(id, i);
+            } else {
+                i = ligne;
+            }
+            ids[i] = id;
+            capitalSocial[i] = capital != null ? capital : Double.NaN;
+            nombreEmployes[i] = employes != null ? employes : ABSENT;
+            anneeCreation[i] = annee != null ? annee : ABSENT;
+            ville[i] = villes.encoder(nomVille);
+            secteur[i] = secteurs.encoder(secteurId);
+            forme[i] = formes.encoder(formeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void supprimer(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ligne = lignes.remove(id);
+            if (ligne == null) {
+                return;
+            }
+            // On déplace la dernière ligne dans le trou pour garder les colonnes denses
+            int derniere = --taille;
+            if (ligne != derniere) {
+                ids[ligne] = ids[derniere];
+                capitalSocial[ligne] = capitalSocial[derniere];
+                nombreEmployes[ligne] = nombreEmployes[derniere];
+                anneeCreation[ligne] = anneeCreation[derniere];
+                ville[ligne] = ville[derniere];
+                secteur[ligne] = secteur[derniere];
+                forme[ligne] = forme[derniere];
+                lignes.put(ids[ligne], ligne);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int taille() {
+        lock.readLock().lock();
+        try {
+            return taille;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Object, Accumulateur> agreger(Dimension dimension, Mesure mesure, double largeurTranche,
+                                             Filtre filtre, boolean conserverValeurs) {
+        lock.readLock().lock();
+        try {
+            int codeVille = filtre.ville != null ? villes.code(filtre.ville) : ABSENT;
+            int codeSecteur = filtre.secteurId != null ? secteurs.code(filtre.secteurId) : ABSENT;
+            int codeForme = filtre.formeId != null ? formes.code(filtre.formeId) : ABSENT;
+            if ((filtre.ville != null && codeVille == ABSENT)
+                    || (filtre.secteurId != null && codeSecteur == ABSENT)
+                    || (filtre.formeId != null && codeForme == ABSENT)) {
+                return Collections.emptyMap();
+            }
+
+            // Les tableaux sont capturés sous le verrou de lecture : les tâches fork-join
+            // lisent une vue stable tant que ce thread garde le verrou.
+            final int[] colVille = ville, colSecteur = secteur, colForme = forme, colAnnee = anneeCreation;
+            IntPredicate accepte = i ->
+                    (filtre.ville == null || colVille[i] == codeVille)
+                            && (filtre.secteurId == null || colSecteur[i] == codeSecteur)
+                            && (filtre.formeId == null || colForme[i] == codeForme)
+                            && (filtre.anneeMin == null || (colAnnee[i] != ABSENT && colAnnee[i] >= filtre.anneeMin))
+                            && (filtre.anneeMax == null || (colAnnee[i] != ABSENT && colAnnee[i] <= filtre.anneeMax));
+
+            Scan scan = new Scan(0, taille, accepte, cleDeGroupe(dimension, largeurTranche),
+                    colonneMesure(mesure), conserverValeurs);
+            Map<Long, Accumulateur> partiel = taille >= SEUIL_PARALLELE ? scan.invoke() : scan.compute();
+
+            Map<Object, Accumulateur> resultat = new HashMap<>();
+            partiel.forEach((cle, acc) -> resultat.put(decoderGroupe(dimension, cle, largeurTranche), acc));
+            return resultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private IntToLongFunction cleDeGroupe(Dimension dimension, double largeurTranche) {
+        switch (dimension) {
+            case VILLE: {
+                int[] col = ville;
+                return i -> col[i] == ABSENT ? GROUPE_ABSENT : col[i];
+            }
+            case SECTEUR: {
+                int[] col = secteur;
+                return i -> col[i] == ABSENT ? GROUPE_ABSENT : col[i];
+            }
+            case FORME: {
+                int[] col = forme;
+                return i -> col[i] == ABSENT ? GROUPE_ABSENT : col[i];
+            }
+            case ANNEE_CREATION: {
+                int[] col = anneeCreation;
+                return i -> col[i] == ABSENT ? GROUPE_ABSENT : col[i];
+            }
+            case TRANCHE_EMPLOYES: {
+                int[] col = nombreEmployes;
+                return i -> col[i] == ABSENT ? GROUPE_ABSENT : tranche(col[i], largeurTranche);
+            }
+            case TRANCHE_CAPITAL: {
+                double[] col = capitalSocial;
+                return i -> Double.isNaN(col[i]) ? GROUPE_ABSENT : tranche(col[i], largeurTranche);
+            }
+            default:
+                return i -> 0;
+        }
+    }
+
+    // Numéro de tranche en long : un capital de plusieurs milliards sur une petite largeur dépasse un int.
+    // Le cast sature aux bornes du long ; la borne basse est réservée à GROUPE_ABSENT.
+    static long tranche(double valeur, double largeurTranche) {
+        return Math.max((long) Math.floor(valeur / largeurTranche), GROUPE_ABSENT + 1);
+    }
+
+    private IntToDoubleFunction colonneMesure(Mesure mesure) {
+        if (mesure == null) {
+            return i -> Double.NaN;
+        }
+        switch (mesure) {
+            case CAPITAL_SOCIAL: {
+                double[] col = capitalSocial;
+                return i -> col[i];
+            }
+            case NOMBRE_EMPLOYES: {
+                int[] col = nombreEmployes;
+                return i -> col[i] == ABSENT ? Double.NaN : col[i];
+            }
+            default:
+                return i -> Double.NaN;
+        }
+    }
+
+    private Object decoderGroupe(Dimension dimension, long cle, double largeurTranche) {
+        if (cle == GROUPE_ABSENT) {
+            return null;
+        }
+        switch (dimension) {
+            case VILLE:
+                return villes.valeur((int) cle);
+            case SECTEUR:
+                return secteurs.valeur((int) cle);
+            case FORME:
+                return formes.valeur((int) cle);
+            case ANNEE_CREATION:
+                return (int) cle;
+            case TRANCHE_EMPLOYES:
+            case TRANCHE_CAPITAL:
+                return cle * largeurTranche;
+            default:
+                return "total";
+        }
+    }
+
+    private void assurerCapacite(int capacite) {
+        if (capacite <= ids.length) {
+            return;
+        }
+        int nouvelle = Math.max(capacite, ids.length * 2);
+        ids = Arrays.copyOf(ids, nouvelle);
+        capitalSocial = Arrays.copyOf(capitalSocial, nouvelle);
+        nombreEmployes = Arrays.copyOf(nombreEmployes, nouvelle);
+        anneeCreation = Arrays.copyOf(anneeCreation, nouvelle);
+        ville = Arrays.copyOf(ville, nouvelle);
+        secteur = Arrays.copyOf(secteur, nouvelle);
+        forme = Arrays.copyOf(forme, nouvelle);
+    }
+
+    public static class Filtre {
+        public String ville;
+        public Long secteurId;
+        public Long formeId;
+        public Integer anneeMin;
+        public Integer anneeMax;
+    }
+
+    public static class Accumulateur {
+        private long nombre;
+        private long nombreValeurs;
+        private double somme;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double[] valeurs;
+        private int nbValeurs;
+
+        Accumulateur(boolean conserverValeurs) {
+            if (conserverValeurs) {
+                valeurs = new double[16];
+            }
+        }
+
+        void ajouter(double valeur) {
+            nombre++;
+            if (Double.isNaN(valeur)) {
+                return;
+            }
+            nombreValeurs++;
+            somme += valeur;
+            min = Math.min(min, valeur);
+            max = Math.max(max, valeur);
+            if (valeurs != null) {
+                if (nbValeurs == valeurs.length) {
+                    valeurs = Arrays.copyOf(valeurs, nbValeurs * 2);
+                }
+                valeurs[nbValeurs++] = valeur;
+            }
+        }
+
+        void fusionner(Accumulateur autre) {
+            nombre += autre.nombre;
+            nombreValeurs += autre.nombreValeurs;
+            somme += autre.somme;
+            min = Math.min(min, autre.min);
+            max = Math.max(max, autre.max);
+            if (valeurs != null && autre.valeurs != null) {
+                if (nbValeurs + autre.nbValeurs > valeurs.length) {
+                    valeurs = Arrays.copyOf(valeurs, nbValeurs + autre.nbValeurs);
+                }
+                System.arraycopy(autre.valeurs, 0, valeurs, nbValeurs, autre.nbValeurs);
+                nbValeurs += autre.nbValeurs;
+            }
+        }
+
+        public long getNombre() {
+            return nombre;
+        }
+
+        public Double getSomme() {
+            return nombreValeurs > 0 ? somme : null;
+        }
+
+        public Double getMoyenne() {
+            return nombreValeurs > 0 ? somme / nombreValeurs : null;
+        }
+
+        public Double getMin() {
+            return nombreValeurs > 0 ? min : null;
+        }
+
+        public Double getMax() {
+            return nombreValeurs > 0 ? max : null;
+        }
+
+        // Percentile par rang le plus proche ; p entre 0 et 100
+        public Double percentile(double p) {
+            if (valeurs == null || nbValeurs == 0) {
+                return null;
+            }
+            double[] tries = Arrays.copyOf(valeurs, nbValeurs);
+            Arrays.sort(tries);
+            int rang = (int) Math.ceil(p / 100.0 * nbValeurs);
+            return tries[Math.min(Math.max(rang, 1), nbValeurs) - 1];
+        }
+    }
+
+    @FunctionalInterface
+    interface IntToLongFunction {
+        long applyAsLong(int i);
+    }
+
+    @FunctionalInterface
+    interface IntToDoubleFunction {
+        double applyAsDouble(int i);
+    }
+
+    private static class Scan extends RecursiveTask<Map<Long, Accumulateur>> {
+        private final int debut;
+        private final int fin;
+        private final IntPredicate accepte;
+        private final IntToLongFunction groupe;
+        private final IntToDoubleFunction mesure;
+        private final boolean conserverValeurs;
+
+        Scan(int debut, int fin, IntPredicate accepte, IntToLongFunction groupe,
+             IntToDoubleFunction mesure, boolean conserverValeurs) {
+            this.debut = debut;
+            this.fin = fin;
+            this.accepte = accepte;
+            this.groupe = groupe;
+            this.mesure = mesure;
+            this.conserverValeurs = conserverValeurs;
+        }
+
+        @Override
+        protected Map<Long, Accumulateur> compute() {
+            if (fin - debut > SEUIL_PARALLELE) {
+                int milieu = (debut + fin) >>> 1;
+                Scan gauche = new Scan(debut, milieu, accepte, groupe, mesure, conserverValeurs);
+                Scan droite = new Scan(milieu, fin, accepte, groupe, mesure, conserverValeurs);
+                gauche.fork();
+                Map<Long, Accumulateur> resultat = droite.compute();
+                gauche.join().forEach((cle, acc) -> resultat.merge(cle, acc, (a, b) -> {
+                    a.fusionner(b);
+                    return a;
+                }));
+                return resultat;
+            }
+            Map<Long, Accumulateur> resultat = new HashMap<>();
+            for (int i = debut; i < fin; i++) {
+                if (accepte.test(i)) {
+                    resultat.computeIfAbsent(groupe.applyAsLong(i), k -> new Accumulateur(conserverValeurs))
+                            .ajouter(mesure.applyAsDouble(i));
+                }
+            }
+            return resultat;
+        }
+    }
+
+    private static class Dictionnaire<T> {
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> valeurs = new ArrayList<>();
+
+        int encoder(T valeur) {
+            if (valeur == null) {
+                return ABSENT;
+            }
+            return codes.computeIfAbsent(valeur, v -> {
+                valeurs.add(v);
+                return valeurs.size() - 1;
+            });
+        }
+
+        int code(T valeur) {
+            return codes.getOrDefault(valeur, ABSENT);
+        }
+
+        T valeur(int code) {
+            return code == ABSENT ? null : valeurs.get(code);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.ChangementEntrepriseDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.entity.SecteurDactivite;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.util.Normalisation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Diffusion SSE des changements d'entreprises après commit. Un abonné inactif ne coûte
+// qu'une connexion asynchrone (aucun thread). Le thread de diffusion filtre et met en file
+// sans jamais attendre un client ; les envois, bloquants, se font sur un petit pool, dans
+// l'ordre de la file de chaque abonné. Un abonné trop lent est déconnecté.
+@Service
+public class EntrepriseStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntrepriseStreamService.class);
+
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final int TAILLE_HISTORIQUE = 10_000;
+    // Événements en attente par abonné : au-delà, il est déconnecté et reprendra avec Last-Event-ID
+    private static final int TAILLE_FILE = 256;
+    private static final int ENVOYEURS = 4;
+
+    // Attributs envoyés avec leur nouvelle valeur ; les autres (logo, collections) sont seulement nommés
+    private static final Set<String> ATTRIBUTS_SCALAIRES = Set.of(
+            "denomination", "capitalSocial", "ice", "identifiantFiscal", "numRegistreCommerce", "numPatente",
+            "numAffiliationCnss", "adresse", "ville", "mail", "siteWeb", "nombreEmployes", "latitude", "longitude",
+            "dateCreation", "dateCessationActivite");
+
+    private final Map<Long, Abonnement> abonnements = new ConcurrentHashMap<>();
+    private final Deque<Diffusion> historique = new ArrayDeque<>();
+    private final ExecutorService diffuseur = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "sse-diffusion");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger numeroEnvoyeur = new AtomicInteger();
+    private final ExecutorService envoyeurs = Executors.newFixedThreadPool(ENVOYEURS, r -> {
+        Thread thread = new Thread(r, "sse-envoi-" + numeroEnvoyeur.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Préfixe des ids d'événements : la séquence repart de zéro à chaque démarrage, un Last-Event-ID
+    // d'une exécution précédente ne doit pas être comparé à celle-ci
+    private final String epoque = Long.toString(System.currentTimeMillis(), 36);
+    private long sequence;
+    private long sequenceAbonnes;
+
+    // dernierEvenementId : « epoque-numero », tel qu'envoyé dans le champ id des événements
+    public SseEmitter abonner(Filtre filtre, String dernierEvenementId) {
+        return abonner(new SseEmitter(TIMEOUT_MS), filtre, dernierEvenementId);
+    }
+
+    SseEmitter abonner(SseEmitter emitter, Filtre filtre, String dernierEvenementId) {
+        long id;
+        synchronized (this) {
+            id = ++sequenceAbonnes;
+        }
+        Abonnement abonnement = new Abonnement(id, emitter, filtre);
+        emitter.onCompletion(() -> abonnements.remove(id));
+        emitter.onTimeout(() -> abonnements.remove(id));
+        emitter.onError(e -> abonnements.remove(id));
+
+        // Reprise : on rejoue ce qui a été manqué depuis Last-Event-ID, dans l'ordre et sur le thread de diffusion
+        Long dernierNumero = numero(dernierEvenementId);
+        diffuseur.execute(() -> {
+            List<Diffusion> manques = new ArrayList<>();
+            boolean trou;
+            synchronized (historique) {
+                // Id d'un autre démarrage ou illisible, ou changements manqués sortis de l'historique
+                trou = dernierEvenementId != null && (dernierNumero == null || dernierNumero > sequence
+                        || !historique.isEmpty() && historique.peekFirst().numero > dernierNumero + 1);
+                if (dernierNumero != null) {
+                    for (Diffusion diffusion : historique) {
+                        if (diffusion.numero > dernierNumero && filtre.accepte(diffusion)) {
+                            manques.add(diffusion);
+                        }
+                    }
+                }
+            }
+            // Rejeu plus long que la file : il déconnecterait l'abonné aussitôt, le client recharge plutôt sa liste
+            if (trou || manques.size() >= TAILLE_FILE) {
+                abonnement.mettreEnFile(SseEmitter.event().name("reset").data("{}"));
+                manques.clear();
+            }
+            manques.forEach(abonnement::diffuser);
+            abonnements.put(id, abonnement);
+        });
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        Diffusion nouvelle = construire(event);
+        // Numérotation, historique et mise en file sous le même verrou pour garder l'ordre des ids
+        synchronized (historique) {
+            Diffusion diffusion = nouvelle.numeroter(epoque, ++sequence);
+            historique.addLast(diffusion);
+            if (historique.size() > TAILLE_HISTORIQUE) {
+                historique.removeFirst();
+            }
+            diffuseur.execute(() -> abonnements.values().forEach(abonnement -> abonnement.diffuser(diffusion)));
+        }
+    }
+
+    // Un abonné qui a déjà des événements en attente n'a pas besoin de battement
+    @Scheduled(fixedRate = 15_000)
+    public void heartbeat() {
+        abonnements.values().forEach(abonnement -> {
+            if (abonnement.file.isEmpty()) {
+                abonnement.mettreEnFile(SseEmitter.event().comment("hb"));
+            }
+        });
+    }
+
+    public int nombreAbonnes() {
+        return abonnements.size();
+    }
+
+    @PreDestroy
+    public void arreter() {
+        abonnements.values().forEach(a -> a.emitter.complete());
+        diffuseur.shutdownNow();
+        envoyeurs.shutdownNow();
+    }
+
+    private Long numero(String evenementId) {
+        if (evenementId == null || !evenementId.startsWith(epoque + "-")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(evenementId.substring(epoque.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Diffusion construire(EntrepriseEvent event) {
+        ChangementEntrepriseDTO changement = new ChangementEntrepriseDTO();
+        changement.setType(event.getType().name().toLowerCase(Locale.ROOT));
+        changement.setEntrepriseId(event.getEntrepriseId());
+
+        Entreprise entreprise = event.getEntreprise();
+        if (entreprise == null) {
+            return new Diffusion(0, changement, null, null);
+        }
+
+        BeanWrapper wrapper = new BeanWrapperImpl(entreprise);
+        if (event.getType() == EntrepriseEvent.Type.CREATED) {
+            for (String attribut : List.of("denomination", "ville", "latitude", "longitude")) {
+                changement.getValeurs().put(attribut, wrapper.getPropertyValue(attribut));
+            }
+            if (entreprise.getSecteurDactivite() != null) {
+                changement.getValeurs().put("secteurId", entreprise.getSecteurDactivite().getId());
+            }
+        } else {
+            for (String attribut : event.getAttributsModifies()) {
+                changement.getAttributsModifies().add(attribut);
+                if (ATTRIBUTS_SCALAIRES.contains(attribut)) {
+                    changement.getValeurs().put(attribut, wrapper.getPropertyValue(attribut));
+                } else if (attribut.equals("secteurDactivite") && entreprise.getSecteurDactivite() != null) {
+                    changement.getValeurs().put("secteurId", entreprise.getSecteurDactivite().getId());
+                } else if (attribut.equals("formeJuridique") && entreprise.getFormeJuridique() != null) {
+                    changement.getValeurs().put("formeJuridiqueId", entreprise.getFormeJuridique().getId());
+                }
+            }
+        }
+        Position actuelle = new Position(Normalisation.cle(entreprise.getVille()),
+                entreprise.getSecteurDactivite() != null ? entreprise.getSecteurDactivite().getId() : null,
+                coordonnee(entreprise.getLatitude()), coordonnee(entreprise.getLongitude()));
+        return new Diffusion(0, changement, actuelle, precedente(actuelle, event.getValeursPrecedentes()));
+    }
+
+    // Position d'avant la modification si ville, secteur ou coordonnées ont changé : les abonnés
+    // qui suivaient l'ancienne apprennent que l'entreprise en est sortie
+    private static Position precedente(Position actuelle, Map<String, Object> valeurs) {
+        if (!valeurs.containsKey("ville") && !valeurs.containsKey("secteurDactivite")
+                && !valeurs.containsKey("latitude") && !valeurs.containsKey("longitude")) {
+            return null;
+        }
+        Object secteur = valeurs.get("secteurDactivite");
+        return new Position(
+                valeurs.containsKey("ville") ? Normalisation.cle((String) valeurs.get("ville")) : actuelle.villeCle,
+                valeurs.containsKey("secteurDactivite")
+                        ? (secteur instanceof SecteurDactivite s ? s.getId() : null) : actuelle.secteurId,
+                valeurs.containsKey("latitude") ? coordonnee((String) valeurs.get("latitude")) : actuelle.latitude,
+                valeurs.containsKey("longitude") ? coordonnee((String) valeurs.get("longitude")) : actuelle.longitude);
+    }
+
+    private static Double coordonnee(String valeur) {
+        if (valeur == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(valeur.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Filtre d'abonnement ; les suppressions passent toujours (on ne connaît plus la ville de l'entreprise)
+    public static class Filtre {
+        private final String villeCle;
+        private final Long secteurId;
+        private final double[] bbox;
+
+        public Filtre(String ville, Long secteurId, String bbox) {
+            this.villeCle = Normalisation.cle(ville);
+            this.secteurId = secteurId;
+            this.bbox = bbox != null && !bbox.isBlank()
+                    ? Arrays.stream(bbox.split(",")).mapToDouble(v -> Double.parseDouble(v.trim())).toArray()
+                    : null;
+            if (this.bbox != null && this.bbox.length != 4) {
+                throw new IllegalArgumentException("bbox attendu : minLon,minLat,maxLon,maxLat");
+            }
+        }
+
+        boolean accepte(Diffusion diffusion) {
+            if (diffusion.changement.getType().equals("deleted")) {
+                return true;
+            }
+            return accepte(diffusion.actuelle) || diffusion.precedente != null && accepte(diffusion.precedente);
+        }
+
+        private boolean accepte(Position position) {
+            if (villeCle != null && !villeCle.equals(position.villeCle)) {
+                return false;
+            }
+            if (secteurId != null && !secteurId.equals(position.secteurId)) {
+                return false;
+            }
+            if (bbox != null) {
+                return position.latitude != null && position.longitude != null
+                        && position.longitude >= bbox[0] && position.latitude >= bbox[1]
+                        && position.longitude <= bbox[2] && position.latitude <= bbox[3];
+            }
+            return true;
+        }
+    }
+
+    private final class Abonnement {
+        private final long id;
+        private final SseEmitter emitter;
+        private final Filtre filtre;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> file = new ArrayBlockingQueue<>(TAILLE_FILE);
+        // Une seule tâche d'envoi à la fois par abonné : les événements partent dans l'ordre de la file
+        private final AtomicBoolean planifie = new AtomicBoolean();
+        private volatile boolean aFermer;
+        // Manipulé uniquement depuis le thread de diffusion
+        private long dernierEnvoye;
+
+        private Abonnement(long id, SseEmitter emitter, Filtre filtre) {
+            this.id = id;
+            this.emitter = emitter;
+            this.filtre = filtre;
+        }
+
+        // Un changement rejoué à la reprise n'est pas renvoyé par la diffusion normale
+        private void diffuser(Diffusion diffusion) {
+            if (diffusion.numero <= dernierEnvoye || !filtre.accepte(diffusion)) {
+                return;
+            }
+            dernierEnvoye = diffusion.numero;
+            mettreEnFile(SseEmitter.event()
+                    .id(diffusion.changement.getId())
+                    .name(diffusion.changement.getType())
+                    .data(diffusion.changement));
+        }
+
+        private void mettreEnFile(SseEmitter.SseEventBuilder evenement) {
+            if (aFermer) {
+                return;
+            }
+            if (!file.offer(evenement)) {
+                abonnements.remove(id);
+                aFermer = true;
+                logger.info("Abonné SSE {} déconnecté : {} événements en attente", id, TAILLE_FILE);
+            }
+            if (planifie.compareAndSet(false, true)) {
+                envoyeurs.execute(this::vider);
+            }
+        }
+
+        // Sur un thread d'envoi : un client lent ne retient que ce thread, pas la diffusion ni les autres abonnés
+        private void vider() {
+            try {
+                SseEmitter.SseEventBuilder evenement;
+                while (!aFermer && (evenement = file.poll()) != null) {
+                    emitter.send(evenement);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Connexion déjà perdue : le conteneur termine l'émetteur
+                abonnements.remove(id);
+                aFermer = true;
+                file.clear();
+                return;
+            }
+            if (aFermer) {
+                file.clear();
+                emitter.complete();
+                return;
+            }
+            planifie.set(false);
+            // Événement mis en file entre le dernier poll et la remise à false
+            if (!file.isEmpty() && planifie.compareAndSet(false, true)) {
+                envoyeurs.execute(this::vider);
+            }
+        }
+    }
+
+    private record Position(String villeCle, Long secteurId, Double latitude, Double longitude) {
+    }
+
+    private record Diffusion(long numero, ChangementEntrepriseDTO changement, Position actuelle, Position precedente) {
+
+        Diffusion numeroter(String epoque, long numero) {
+            changement.setId(epoque + "-" + numero);
+            return new Diffusion(numero, changement, actuelle, precedente);
+        }
+    }
+}
@@ -2,15 +2,18 @@ package com.pfa.backend.service;
 
 import com.pfa.backend.entity.Entreprise;
 import com.pfa.backend.entity.Fax;
+import com.pfa.backend.event.EntrepriseEvent;
 import com.pfa.backend.repository.EntrepriseRepository;
 import com.pfa.backend.repository.FaxRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class FaxService {
@@ -18,7 +21,11 @@ public class FaxService {
     @Autowired
     private FaxRepository faxRepository;
     @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
     private EntrepriseRepository entrepriseRepository;
+    @Autowired
+    private AnnuaireService annuaireService;
     public List<Fax> getFaxesByEntrepriseId(Long entrepriseId) {
         return faxRepository.findByEntrepriseId(entrepriseId);
     }
@@ -27,41 +34,28 @@ public class FaxService {
     }
 
     public Fax save(Fax fax) {
-        return faxRepository.save(fax);
+        Fax saved = faxRepository.save(fax);
+        annuaireService.indexer(saved);
+        return saved;
     }
 
     public void deleteById(Long id) {
         faxRepository.deleteById(id);
+        annuaireService.retirer(AnnuaireService.FAX, id);
+    }
+    // Ajouts persistés tout de suite pour obtenir leur id ; les INSERT et UPDATE partent groupés au flush
+    public void synchroniser(Entreprise entreprise, List<Fax> faxes) {
+        faxRepository.saveAll(entreprise.synchroniserFaxes(faxes));
     }
+
+    // L'annuaire est mis à jour après commit (AnnuaireService.onEntrepriseEvent)
     @Transactional
     public List<Fax> updateFaxesByEntrepriseId(Long entrepriseId, List<Fax> updatedFaxes) {
-        Optional<Entreprise> optionalEntreprise = entrepriseRepository.findById(entrepriseId);
-        if (optionalEntreprise.isEmpty()) {
-            throw new EntityNotFoundException("Entreprise introuvable avec l'id " + entrepriseId);
-        }
-
-        Entreprise entreprise = optionalEntreprise.get();
-        List<Fax> existingFaxes = faxRepository.findByEntrepriseId(entrepriseId);
-
-        // Mettre à jour les faxes existants ou les ajouter si nouveaux
-        for (Fax updatedFax : updatedFaxes) {
-            Optional<Fax> optionalExistingFax = existingFaxes.stream()
-                    .filter(f -> f.getId().equals(updatedFax.getId()))
-                    .findFirst();
-
-            if (optionalExistingFax.isPresent()) {
-                Fax existingFax = optionalExistingFax.get();
-                existingFax.setNumero(updatedFax.getNumero());
-                faxRepository.save(existingFax);
-            } else {
-                updatedFax.setEntreprise(entreprise);
-                faxRepository.save(updatedFax);
-            }
-        }
-
-
-
-        return faxRepository.findByEntrepriseId(entrepriseId);
+        Entreprise entreprise = entrepriseRepository.findById(entrepriseId)
+                .orElseThrow(() -> new EntityNotFoundException("Entreprise introuvable avec l'id " + entrepriseId));
+        synchroniser(entreprise, updatedFaxes);
+        eventPublisher.publishEvent(EntrepriseEvent.updated(entreprise, Set.of("faxes")));
+        return entreprise.getFaxes();
     }
 
 }
\ No newline at end of file
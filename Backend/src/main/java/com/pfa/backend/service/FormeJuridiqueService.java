@@ -2,6 +2,7 @@ package com.pfa.backend.service;
 
 import com.pfa.backend.DTO.FormeJuridiqueDTO;
 import com.pfa.backend.entity.FormeJuridique;
+import com.pfa.backend.event.Invalidation;
 import com.pfa.backend.repository.FormeJuridiqueRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,8 @@ public class FormeJuridiqueService {
 
     @Autowired
     private FormeJuridiqueRepository formeJuridiqueRepository;
+    @Autowired
+    private InvalidationService invalidationService;
 
     public List<FormeJuridiqueDTO> getAllFormesJuridiques() {
         // Récupérer toutes les entités FormeJuridique
@@ -38,10 +41,14 @@ public class FormeJuridiqueService {
         return dto;
     }
     public FormeJuridique createFormeJuridique(FormeJuridique formeJuridique) {
-        return formeJuridiqueRepository.save(formeJuridique);
+        FormeJuridique enregistre = formeJuridiqueRepository.save(formeJuridique);
+        // Un id existant est une mise à jour : les autres nœuds peuvent l'avoir en cache
+        invalidationService.publier(Invalidation.Region.FORME_JURIDIQUE, enregistre.getId());
+        return enregistre;
     }
 
     public void deleteFormeJuridique(Long id) {
         formeJuridiqueRepository.deleteById(id);
+        invalidationService.publier(Invalidation.Region.FORME_JURIDIQUE, id);
     }
 }
@@ -1,26 +1,76 @@
 package com.pfa.backend.service;
 
+import com.pfa.backend.DTO.EntrepriseResumeDTO;
+import com.pfa.backend.DTO.GerantPersonneDTO;
 import com.pfa.backend.entity.Gerant;
 import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.event.EntrepriseEvent;
 import com.pfa.backend.repository.GerantRepository;
 import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.util.Normalisation;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
 
 @Service
 public class GerantService {
 
+    private static final Logger logger = LoggerFactory.getLogger(GerantService.class);
+
     @Autowired
     private GerantRepository gerantRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     private EntrepriseRepository entrepriseRepository;
 
+    // Index des personnes : clé normalisée -> personne, et mot de la clé -> clés (pour la recherche par préfixe)
+    private final Map<String, Personne> personnes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<String>> clesParMot = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> cleParGerant = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> gerantsParEntreprise = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void chargerIndex() {
+        // Rattrapage des gérants enregistrés avant l'ajout de la clé
+        List<Object[]> sansCle = gerantRepository.findSansCleNom();
+        for (Object[] ligne : sansCle) {
+            gerantRepository.updateCleNom((Long) ligne[0], Normalisation.clePersonne((String) ligne[1], (String) ligne[2]));
+        }
+
+        for (Object[] ligne : gerantRepository.findEntreesIndex()) {
+            indexer((Long) ligne[0], (String) ligne[1], (String) ligne[2], (String) ligne[3], (Long) ligne[4]);
+        }
+        logger.info("Index des gérants chargé : {} personnes ({} clés calculées)", personnes.size(), sansCle.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        if (event.getType() == EntrepriseEvent.Type.DELETED) {
+            desindexerEntreprise(event.getEntrepriseId());
+        } else if (event.getType() == EntrepriseEvent.Type.CREATED) {
+            // Gérants créés en cascade par Entreprise.addGerants
+            event.getEntreprise().getGerants().forEach(this::indexer);
+        } else if (event.getAttributsModifies().contains("gerants")) {
+            // Collection chargée par Entreprise.synchroniserGerants
+            event.getEntreprise().getGerants().forEach(this::indexer);
+        }
+    }
+
     public List<Gerant> getGerantsByEntrepriseId(Long entrepriseId) {
         return gerantRepository.findByEntrepriseId(entrepriseId);
     }
@@ -30,42 +80,141 @@ public class GerantService {
     }
 
     public Gerant save(Gerant gerant) {
-        return gerantRepository.save(gerant);
+        Gerant saved = gerantRepository.save(gerant);
+        indexer(saved);
+        return saved;
     }
 
     public void deleteById(Long id) {
         gerantRepository.deleteById(id);
+        desindexer(id);
     }
 
+    // Ajouts persistés tout de suite pour obtenir leur id ; les INSERT et UPDATE partent groupés au flush
+    public void synchroniser(Entreprise entreprise, List<Gerant> gerants) {
+        gerantRepository.saveAll(entreprise.synchroniserGerants(gerants));
+    }
+
+    // L'index des personnes est mis à jour après commit (onEntrepriseEvent)
     @Transactional
     public List<Gerant> updateGerantsByEntrepriseId(Long entrepriseId, List<Gerant> updatedGerants) {
-        Optional<Entreprise> optionalEntreprise = entrepriseRepository.findById(entrepriseId);
-        if (optionalEntreprise.isEmpty()) {
-            throw new EntityNotFoundException("Entreprise introuvable avec l'id " + entrepriseId);
+        Entreprise entreprise = entrepriseRepository.findById(entrepriseId)
+                .orElseThrow(() -> new EntityNotFoundException("Entreprise introuvable avec l'id " + entrepriseId));
+        synchroniser(entreprise, updatedGerants);
+        eventPublisher.publishEvent(EntrepriseEvent.updated(entreprise, Set.of("gerants")));
+        return entreprise.getGerants();
+    }
+
+    // Recherche par préfixe sur chaque mot : "alaoui moh" trouve "Alaoui Mohamed" et "Mohammed Alaoui"
+    public List<GerantPersonneDTO> rechercher(String saisie, int limite) {
+        String cle = Normalisation.cle(saisie);
+        if (cle == null) {
+            return Collections.emptyList();
         }
+        Set<String> resultat = null;
+        for (String mot : cle.split(" ")) {
+            Set<String> cles = new HashSet<>();
+            clesParMot.subMap(mot, true, mot + Character.MAX_VALUE, true).values().forEach(cles::addAll);
+            if (resultat == null) {
+                resultat = cles;
+            } else {
+                resultat.retainAll(cles);
+            }
+        }
+        return resultat.stream()
+                .map(personnes::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingInt(Personne::nombreEntreprises).reversed()
+                        .thenComparing(p -> p.cle))
+                .limit(limite)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
 
-        Entreprise entreprise = optionalEntreprise.get();
-        List<Gerant> existingGerants = gerantRepository.findByEntrepriseId(entrepriseId);
+    public List<EntrepriseResumeDTO> getEntreprisesByCle(String cle) {
+        return gerantRepository.findEntreprisesByCleNom(cle).stream()
+                .map(l -> new EntrepriseResumeDTO((Long) l[0], (String) l[1], (String) l[2]))
+                .collect(Collectors.toList());
+    }
 
-        // Mettre à jour les gérants existants ou les ajouter si nouveaux
-        for (Gerant updatedGerant : updatedGerants) {
-            Optional<Gerant> optionalExistingGerant = existingGerants.stream()
-                    .filter(g -> g.getId().equals(updatedGerant.getId()))
-                    .findFirst();
+    private void indexer(Gerant gerant) {
+        if (gerant.getId() == null || gerant.getEntreprise() == null) {
+            return;
+        }
+        indexer(gerant.getId(), Normalisation.clePersonne(gerant.getNom(), gerant.getPrenom()),
+                gerant.getNom(), gerant.getPrenom(), gerant.getEntreprise().getId());
+    }
 
-            if (optionalExistingGerant.isPresent()) {
-                Gerant existingGerant = optionalExistingGerant.get();
-                existingGerant.setNom(updatedGerant.getNom());
-                existingGerant.setPrenom(updatedGerant.getPrenom());
-                gerantRepository.save(existingGerant);
-            } else {
-                updatedGerant.setEntreprise(entreprise);
-                gerantRepository.save(updatedGerant);
+    private synchronized void indexer(Long gerantId, String cle, String nom, String prenom, Long entrepriseId) {
+        desindexer(gerantId);
+        if (cle == null) {
+            return;
+        }
+        Personne personne = personnes.computeIfAbsent(cle, k -> new Personne(k, nom, prenom));
+        personne.entreprisesParGerant.put(gerantId, entrepriseId);
+        cleParGerant.put(gerantId, cle);
+        gerantsParEntreprise.computeIfAbsent(entrepriseId, k -> ConcurrentHashMap.newKeySet()).add(gerantId);
+        for (String mot : cle.split("-")) {
+            clesParMot.computeIfAbsent(mot, k -> ConcurrentHashMap.newKeySet()).add(cle);
+        }
+    }
+
+    private synchronized void desindexer(Long gerantId) {
+        String cle = cleParGerant.remove(gerantId);
+        if (cle == null) {
+            return;
+        }
+        Personne personne = personnes.get(cle);
+        if (personne != null) {
+            Long entrepriseId = personne.entreprisesParGerant.remove(gerantId);
+            if (entrepriseId != null) {
+                gerantsParEntreprise.computeIfPresent(entrepriseId, (k, ids) -> {
+                    ids.remove(gerantId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            if (personne.entreprisesParGerant.isEmpty()) {
+                personnes.remove(cle);
+                for (String mot : cle.split("-")) {
+                    clesParMot.computeIfPresent(mot, (k, cles) -> {
+                        cles.remove(cle);
+                        return cles.isEmpty() ? null : cles;
+                    });
+                }
             }
         }
+    }
 
+    private synchronized void desindexerEntreprise(Long entrepriseId) {
+        Set<Long> gerantIds = gerantsParEntreprise.get(entrepriseId);
+        if (gerantIds != null) {
+            new ArrayList<>(gerantIds).forEach(this::desindexer);
+        }
+    }
 
+    private GerantPersonneDTO convertToDTO(Personne personne) {
+        GerantPersonneDTO dto = new GerantPersonneDTO();
+        dto.setCle(personne.cle);
+        dto.setNom(personne.nom);
+        dto.setPrenom(personne.prenom);
+        dto.setNombreEntreprises(personne.nombreEntreprises());
+        return dto;
+    }
 
-        return gerantRepository.findByEntrepriseId(entrepriseId);
+    private static final class Personne {
+        private final String cle;
+        private final String nom;
+        private final String prenom;
+        private final Map<Long, Long> entreprisesParGerant = new ConcurrentHashMap<>();
+
+        private Personne(String cle, String nom, String prenom) {
+            this.cle = cle;
+            this.nom = nom;
+            this.prenom = prenom;
+        }
+
+        private int nombreEntreprises() {
+            return new HashSet<>(entreprisesParGerant.values()).size();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,293 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.HistoriqueAgregatDTO;
+import com.pfa.backend.entity.HistoriqueDentreprise;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.repository.HistoriqueAttributJourRepository;
+import com.pfa.backend.repository.HistoriqueEntrepriseMoisRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Agrégats de l'historique (attribut/jour et entreprise/mois) pour les statistiques de conformité :
+// les requêtes lisent ces tables au lieu de parcourir historique_dentreprise.
+// Chaque ligne d'historique insérée est comptée dans la même transaction, en une écriture groupée
+// juste avant le commit ; les lignes antérieures sont reprises par le rattrapage.
+@Service
+public class HistoriqueAgregatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoriqueAgregatService.class);
+
+    private static final String UPSERT_ATTRIBUT_JOUR =
+            "INSERT INTO historique_attribut_jour (attribut, jour, nombre) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE nombre = nombre + VALUES(nombre)";
+    private static final String UPSERT_ENTREPRISE_MOIS =
+            "INSERT INTO historique_entreprise_mois (entreprise_id, mois, nombre) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE nombre = nombre + VALUES(nombre)";
+
+    @Value("${historique.rattrapage.threads:4}")
+    private int threadsRattrapage;
+    @Value("${historique.rattrapage.taille-lot:5000}")
+    private int tailleLotRattrapage;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private HistoriqueAttributJourRepository attributJourRepository;
+    @Autowired
+    private HistoriqueEntrepriseMoisRepository entrepriseMoisRepository;
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+
+    // Comptes en attente par session Hibernate, écrits avant la fin de sa transaction
+    private final Map<EventSource, Comptes> enAttente = new ConcurrentHashMap<>();
+    private final AtomicBoolean rattrapageEnCours = new AtomicBoolean();
+    private final ExecutorService lanceur = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "historique-rattrapage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void enregistrerEcouteur() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_INSERT, new Compteur());
+    }
+
+    // Historique enregistré avant l'ajout des agrégats ; en arrière-plan pour ne pas retarder le démarrage
+    @EventListener(ApplicationReadyEvent.class)
+    public void rattraperAuDemarrage() {
+        lanceur.execute(this::rattraper);
+    }
+
+    @PreDestroy
+    public void arreter() {
+        lanceur.shutdownNow();
+    }
+
+    // Parcourt les lignes non comptées par tranches d'id traitées en parallèle, une transaction par
+    // tranche : la tranche est marquée "agrege" avec l'écriture de ses comptes, donc jamais comptée deux fois.
+    // Retourne le nombre de lignes comptées, ou -1 si un rattrapage est déjà en cours.
+    public long rattraper() {
+        if (!rattrapageEnCours.compareAndSet(false, true)) {
+            return -1;
+        }
+        ExecutorService travailleurs = Executors.newFixedThreadPool(threadsRattrapage);
+        try {
+            Map<String, Object> bornes = jdbcTemplate.queryForMap(
+                    "SELECT MIN(id) AS debut, MAX(id) AS fin FROM historique_dentreprise WHERE agrege IS NULL");
+            if (bornes.get("debut") == null) {
+                return 0;
+            }
+            long debut = ((Number) bornes.get("debut")).longValue();
+            long fin = ((Number) bornes.get("fin")).longValue();
+
+            long debutMs = System.currentTimeMillis();
+            List<Future<Integer>> tranches = new ArrayList<>();
+            for (long de = debut; de <= fin; de += tailleLotRattrapage) {
+                long a = de + tailleLotRattrapage;
+                long depuis = de;
+                tranches.add(travailleurs.submit(() -> transactionTemplate.execute(status -> rattraperTranche(depuis, a))));
+            }
+            long total = 0;
+            for (Future<Integer> tranche : tranches) {
+                total += tranche.get();
+            }
+            logger.info("Agrégats de l'historique : {} lignes rattrapées en {} tranches ({} ms)",
+                    total, tranches.size(), System.currentTimeMillis() - debutMs);
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            // Les tranches déjà validées restent acquises ; les autres seront reprises au prochain rattrapage
+            throw new IllegalStateException("Rattrapage des agrégats interrompu", e.getCause());
+        } finally {
+            travailleurs.shutdownNow();
+            rattrapageEnCours.set(false);
+        }
+    }
+
+    private int rattraperTranche(long de, long a) {
+        Comptes comptes = new Comptes();
+        int[] lignes = {0};
+        // getTimestamp : selon le pilote, getObject rend un Timestamp (MySQL) ou un LocalDateTime (MariaDB)
+        jdbcTemplate.query("SELECT attribut_modifie, date_modification, entreprise_id FROM historique_dentreprise " +
+                "WHERE id >= ? AND id < ? AND agrege IS NULL", (ResultSet ligne) -> {
+            comptes.ajouter(ligne.getString("attribut_modifie"), ligne.getTimestamp("date_modification"),
+                    ligne.getObject("entreprise_id", Long.class));
+            lignes[0]++;
+        }, de, a);
+        jdbcTemplate.update("UPDATE historique_dentreprise SET agrege = TRUE WHERE id >= ? AND id < ? AND agrege IS NULL", de, a);
+        jdbcTemplate.execute((Connection connexion) -> {
+            comptes.ecrire(connexion);
+            return null;
+        });
+        return lignes[0];
+    }
+
+    public List<HistoriqueAgregatDTO> parAttribut(LocalDate du, LocalDate au) {
+        List<HistoriqueAgregatDTO> resultat = new ArrayList<>();
+        for (Object[] ligne : attributJourRepository.sommerParAttribut(du, au)) {
+            resultat.add(agregat(ligne[0], null, ((Number) ligne[1]).longValue()));
+        }
+        return resultat;
+    }
+
+    // Série d'un attribut, par jour ou par mois (yyyy-MM)
+    public List<HistoriqueAgregatDTO> serieAttribut(String attribut, LocalDate du, LocalDate au, boolean parMois) {
+        Map<String, Long> parPeriode = new LinkedHashMap<>();
+        for (Object[] ligne : attributJourRepository.serie(attribut, du, au)) {
+            String jour = ligne[0].toString();
+            parPeriode.merge(parMois ? jour.substring(0, 7) : jour, ((Number) ligne[1]).longValue(), Long::sum);
+        }
+        List<HistoriqueAgregatDTO> resultat = new ArrayList<>();
+        parPeriode.forEach((periode, nombre) -> resultat.add(agregat(periode, attribut, nombre)));
+        return resultat;
+    }
+
+    // Entreprises les plus modifiées sur la période (au mois près)
+    public List<HistoriqueAgregatDTO> entreprisesLesPlusModifiees(LocalDate du, LocalDate au, int limite) {
+        List<Object[]> lignes = entrepriseMoisRepository.sommerParEntreprise(du.withDayOfMonth(1), au, PageRequest.of(0, limite));
+        Map<Long, String> denominations = new HashMap<>();
+        if (!lignes.isEmpty()) {
+            List<Long> ids = lignes.stream().map(l -> (Long) l[0]).toList();
+            for (Object[] ligne : entrepriseRepository.findDenominationsByIdIn(ids)) {
+                denominations.put((Long) ligne[0], (String) ligne[1]);
+            }
+        }
+        List<HistoriqueAgregatDTO> resultat = new ArrayList<>();
+        for (Object[] ligne : lignes) {
+            resultat.add(agregat(ligne[0], denominations.get((Long) ligne[0]), ((Number) ligne[1]).longValue()));
+        }
+        return resultat;
+    }
+
+    public List<HistoriqueAgregatDTO> volumeMensuel(LocalDate du, LocalDate au) {
+        List<HistoriqueAgregatDTO> resultat = new ArrayList<>();
+        for (Object[] ligne : entrepriseMoisRepository.sommerParMois(du.withDayOfMonth(1), au)) {
+            resultat.add(agregat(ligne[0].toString().substring(0, 7), null, ((Number) ligne[1]).longValue()));
+        }
+        return resultat;
+    }
+
+    private static HistoriqueAgregatDTO agregat(Object groupe, String libelle, long nombre) {
+        HistoriqueAgregatDTO dto = new HistoriqueAgregatDTO();
+        dto.setGroupe(groupe);
+        dto.setLibelle(libelle);
+        dto.setNombre(nombre);
+        return dto;
+    }
+
+    // Écouteur Hibernate : appelé après chaque INSERT, pendant le flush
+    private class Compteur implements PostInsertEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (!(event.getEntity() instanceof HistoriqueDentreprise historique)) {
+                return;
+            }
+            EventSource session = event.getSession();
+            Comptes comptes = enAttente.computeIfAbsent(session, s -> {
+                Comptes nouveaux = new Comptes();
+                // Après le flush de fin de transaction, sur la même connexion ; retiré au commit comme au rollback
+                s.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) sessionCourante ->
+                        sessionCourante.doWork(connexion -> {
+                            Comptes aEcrire = enAttente.remove(s);
+                            if (aEcrire != null) {
+                                aEcrire.ecrire(connexion);
+                            }
+                        }));
+                s.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (succes, sessionCourante) ->
+                        enAttente.remove(s));
+                return nouveaux;
+            });
+            comptes.ajouter(historique.getAttributModifie(), historique.getDateModification(),
+                    historique.getEntreprise() != null ? historique.getEntreprise().getId() : null);
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+    }
+
+    // Comptes d'une transaction ou d'une tranche, écrits en deux lots d'upserts.
+    // Clés triées : deux transactions qui touchent les mêmes lignes les verrouillent dans le même ordre.
+    private static final class Comptes {
+        private final Map<String, Map<LocalDate, Long>> parAttributJour = new TreeMap<>();
+        private final Map<Long, Map<LocalDate, Long>> parEntrepriseMois = new TreeMap<>();
+
+        private synchronized void ajouter(String attribut, Date date, Long entrepriseId) {
+            if (date == null) {
+                return;
+            }
+            LocalDate jour = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            if (attribut != null) {
+                parAttributJour.computeIfAbsent(attribut, k -> new TreeMap<>()).merge(jour, 1L, Long::sum);
+            }
+            if (entrepriseId != null) {
+                parEntrepriseMois.computeIfAbsent(entrepriseId, k -> new TreeMap<>()).merge(jour.withDayOfMonth(1), 1L, Long::sum);
+            }
+        }
+
+        private synchronized void ecrire(Connection connexion) throws SQLException {
+            try (PreparedStatement upsert = connexion.prepareStatement(UPSERT_ATTRIBUT_JOUR)) {
+                for (Map.Entry<String, Map<LocalDate, Long>> attribut : parAttributJour.entrySet()) {
+                    for (Map.Entry<LocalDate, Long> jour : attribut.getValue().entrySet()) {
+                        upsert.setString(1, attribut.getKey());
+                        upsert.setObject(2, jour.getKey());
+                        upsert.setLong(3, jour.getValue());
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+            }
+            try (PreparedStatement upsert = connexion.prepareStatement(UPSERT_ENTREPRISE_MOIS)) {
+                for (Map.Entry<Long, Map<LocalDate, Long>> entreprise : parEntrepriseMois.entrySet()) {
+                    for (Map.Entry<LocalDate, Long> mois : entreprise.getValue().entrySet()) {
+                        upsert.setLong(1, entreprise.getKey());
+                        upsert.setObject(2, mois.getKey());
+                        upsert.setLong(3, mois.getValue());
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.CompactionHistoriqueDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.entity.HistoriqueDentreprise;
+import com.pfa.backend.event.Invalidation;
+import com.pfa.backend.util.ValeurHistorique;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Entretien de historique_dentreprise : conversion au format compact (ValeurHistorique) des lignes
+// écrites avant lui, suppression des lignes d'attributs ignorés, puis rétention. Seules les lignes
+// déjà comptées dans les agrégats (agrege) sont supprimées : les statistiques restent exactes.
+@Service
+public class HistoriqueCompactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoriqueCompactionService.class);
+
+    private static final String OCTETS = "SELECT COALESCE(SUM(COALESCE(LENGTH(ancienne_valeur), 0) " +
+            "+ COALESCE(LENGTH(nouvelle_valeur), 0)), 0) FROM historique_dentreprise";
+
+    private static final int TAILLE_LOT = 1000;
+
+    // 0 : historique conservé indéfiniment
+    @Value("${historique.retention.jours:0}")
+    private int retentionJours;
+    @Value("${historique.compression.seuil:512}")
+    private int seuilCompression;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private InvalidationService invalidationService;
+
+    private final AtomicBoolean enCours = new AtomicBoolean();
+
+    @Scheduled(cron = "${historique.compaction.cron:0 45 3 * * *}")
+    public void compacterLaNuit() {
+        compacter();
+    }
+
+    // null si une compaction est déjà en cours
+    public CompactionHistoriqueDTO compacter() {
+        if (!enCours.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            long debutMs = System.currentTimeMillis();
+            CompactionHistoriqueDTO resultat = new CompactionHistoriqueDTO();
+            resultat.setOctetsAvant(octets());
+
+            long curseur = -1;
+            List<Map<String, Object>> lignes;
+            do {
+                lignes = jdbcTemplate.queryForList(
+                        "SELECT id, attribut_modifie, ancienne_valeur, nouvelle_valeur, agrege FROM historique_dentreprise " +
+                                "WHERE type_valeur IS NULL AND id > ? ORDER BY id LIMIT ?", curseur, TAILLE_LOT);
+                if (!lignes.isEmpty()) {
+                    List<Map<String, Object>> lot = lignes;
+                    curseur = ((Number) lot.get(lot.size() - 1).get("id")).longValue();
+                    int[] comptes = transactionTemplate.execute(status -> convertirLot(lot));
+                    resultat.setLignesConverties(resultat.getLignesConverties() + comptes[0]);
+                    resultat.setLignesSupprimees(resultat.getLignesSupprimees() + comptes[1]);
+                }
+            } while (lignes.size() == TAILLE_LOT);
+
+            if (retentionJours > 0) {
+                Timestamp limite = Timestamp.from(Instant.now().minus(retentionJours, ChronoUnit.DAYS));
+                int supprimees;
+                do {
+                    supprimees = jdbcTemplate.update("DELETE FROM historique_dentreprise " +
+                            "WHERE date_modification < ? AND agrege = TRUE LIMIT " + TAILLE_LOT, limite);
+                    resultat.setLignesExpirees(resultat.getLignesExpirees() + supprimees);
+                } while (supprimees == TAILLE_LOT);
+            }
+
+            resultat.setOctetsApres(octets());
+            resultat.setGain(resultat.getOctetsAvant() == 0 ? 0
+                    : 1 - (double) resultat.getOctetsApres() / resultat.getOctetsAvant());
+            if (resultat.getLignesConverties() + resultat.getLignesSupprimees() + resultat.getLignesExpirees() > 0) {
+                vider();
+            }
+            logger.info("Compaction de l'historique : {} lignes converties, {} supprimées, {} expirées, {} -> {} octets ({} ms)",
+                    resultat.getLignesConverties(), resultat.getLignesSupprimees(), resultat.getLignesExpirees(),
+                    resultat.getOctetsAvant(), resultat.getOctetsApres(), System.currentTimeMillis() - debutMs);
+            return resultat;
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    private int[] convertirLot(List<Map<String, Object>> lignes) {
+        List<Object[]> conversions = new ArrayList<>();
+        List<Object[]> suppressions = new ArrayList<>();
+        for (Map<String, Object> ligne : lignes) {
+            Long id = ((Number) ligne.get("id")).longValue();
+            ValeurHistorique.Changement changement = ValeurHistorique.convertirAncienne((String) ligne.get("attribut_modifie"),
+                    (String) ligne.get("ancienne_valeur"), (String) ligne.get("nouvelle_valeur"), seuilCompression);
+            if (changement != null) {
+                conversions.add(new Object[]{changement.type().name(), changement.ancienne(), changement.nouvelle(),
+                        changement.compresse(), id});
+            } else if (Boolean.TRUE.equals(ligne.get("agrege"))) {
+                suppressions.add(new Object[]{id});
+            }
+            // Sinon, ligne d'attribut ignoré pas encore comptée : supprimée après le rattrapage des agrégats
+        }
+        jdbcTemplate.batchUpdate("UPDATE historique_dentreprise SET type_valeur = ?, ancienne_valeur = ?, " +
+                "nouvelle_valeur = ?, valeurs_compressees = ? WHERE id = ?", conversions);
+        jdbcTemplate.batchUpdate("DELETE FROM historique_dentreprise WHERE id = ?", suppressions);
+        return new int[]{conversions.size(), suppressions.size()};
+    }
+
+    private long octets() {
+        Long octets = jdbcTemplate.queryForObject(OCTETS, Long.class);
+        return octets != null ? octets : 0;
+    }
+
+    // Écritures SQL directes : le cache de second niveau les ignore, ici comme sur les autres nœuds
+    private void vider() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(HistoriqueDentreprise.class);
+        cache.evictCollectionData(Entreprise.class.getName() + ".historiqueDentreprise");
+        invalidationService.publier(Invalidation.Region.HISTORIQUE_DENTREPRISE);
+    }
+}
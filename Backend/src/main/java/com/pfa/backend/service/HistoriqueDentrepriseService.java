@@ -3,6 +3,7 @@ package com.pfa.backend.service;
 import com.pfa.backend.DTO.HistoriqueDentrepriseDTO;
 import com.pfa.backend.entity.HistoriqueDentreprise;
 import com.pfa.backend.repository.HistoriqueDentrepriseRepository;
+import com.pfa.backend.util.ValeurHistorique;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -36,8 +37,9 @@ public class HistoriqueDentrepriseService {
         HistoriqueDentrepriseDTO dto = new HistoriqueDentrepriseDTO();
         dto.setId(historique.getId());
         dto.setAttributModifie(historique.getAttributModifie());
-        dto.setAncienneValeur(historique.getAncienneValeur());
-        dto.setNouvelleValeur(historique.getNouvelleValeur());
+        dto.setTypeValeur(historique.getTypeValeur() != null ? historique.getTypeValeur().name() : null);
+        dto.setAncienneValeur(ValeurHistorique.decoder(historique.getAncienneValeur(), historique.getValeursCompressees()));
+        dto.setNouvelleValeur(ValeurHistorique.decoder(historique.getNouvelleValeur(), historique.getValeursCompressees()));
         dto.setDateModification(historique.getDateModification());
         return dto;
     }
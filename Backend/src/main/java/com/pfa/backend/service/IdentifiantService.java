@@ -0,0 +1,67 @@
+package com.pfa.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+// Les entités passées de IDENTITY au générateur par table (id_generateur) gardent leurs lignes :
+// au démarrage, avant toute insertion, chaque compteur est placé au-delà du plus grand id existant.
+@Service
+public class IdentifiantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdentifiantService.class);
+
+    // Doit rester égal à l'allocationSize des @TableGenerator
+    private static final int TAILLE_BLOC = 50;
+
+    // sequence_name -> table
+    private static final Map<String, String> COMPTEURS = Map.of(
+            "entreprise", "entreprise",
+            "telephone", "telephone",
+            "fax", "fax",
+            "gerant", "gerant",
+            "historique_dentreprise", "historique_dentreprise",
+            "secteur_dactivite", "secteur_dactivite",
+            "forme_juridique", "forme_juridique",
+            "ville", "ville",
+            "logo_derive", "logo_derive");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    // Garantit que les migrations Flyway (dont id_generateur) ont été appliquées
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Une seule instruction par compteur : un nœud qui redémarre ne peut pas ramener next_val
+    // en deçà d'un bloc qu'un autre nœud vient de réserver (GREATEST ne fait qu'avancer)
+    @PostConstruct
+    public void synchroniserCompteurs() {
+        for (Map.Entry<String, String> compteur : COMPTEURS.entrySet()) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + compteur.getValue(), Long.class);
+            // Marge d'un bloc : aucun id du bloc servi ensuite ne peut retomber sur une ligne existante
+            long minimum = (maxId != null ? maxId : 0) + TAILLE_BLOC + 1;
+            if (avancer(compteur.getKey(), minimum) == 0) {
+                try {
+                    jdbcTemplate.update("INSERT INTO id_generateur (sequence_name, next_val) VALUES (?, ?)",
+                            compteur.getKey(), minimum);
+                } catch (DuplicateKeyException e) {
+                    // Ligne créée entre-temps par un autre nœud
+                    avancer(compteur.getKey(), minimum);
+                }
+            }
+            logger.debug("Compteur d'identifiants {} au moins à {}", compteur.getKey(), minimum);
+        }
+    }
+
+    private int avancer(String sequence, long minimum) {
+        return jdbcTemplate.update("UPDATE id_generateur SET next_val = GREATEST(next_val, ?) WHERE sequence_name = ?",
+                minimum, sequence);
+    }
+}
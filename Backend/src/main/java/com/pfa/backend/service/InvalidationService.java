@@ -0,0 +1,165 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.entity.*;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.event.Invalidation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Cache de second niveau sur plusieurs nœuds : Hibernate ne met à jour que celui du nœud qui écrit.
+// Les écritures validées sont diffusées par le BusInvalidation et chaque autre nœud retire les entrées
+// concernées, dans le délai propre au bus (invalidation.bus).
+@Service
+public class InvalidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationService.class);
+
+    // pid@hôte : distingue aussi plusieurs instances sur une même machine
+    private static final String NOEUD = ManagementFactory.getRuntimeMXBean().getName();
+
+    private static final Map<Invalidation.Region, Class<?>> ENTITES = Map.of(
+            Invalidation.Region.ENTREPRISE, Entreprise.class,
+            Invalidation.Region.TELEPHONE, Telephone.class,
+            Invalidation.Region.FAX, Fax.class,
+            Invalidation.Region.GERANT, Gerant.class,
+            Invalidation.Region.SECTEUR_DACTIVITE, SecteurDactivite.class,
+            Invalidation.Region.FORME_JURIDIQUE, FormeJuridique.class,
+            Invalidation.Region.HISTORIQUE_DENTREPRISE, HistoriqueDentreprise.class);
+
+    @Autowired
+    private BusInvalidation bus;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${invalidation.bus:jdbc}")
+    private String nomBus;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        // Une entreprise créée n'est encore dans le cache d'aucun autre nœud
+        if (event.getType() == EntrepriseEvent.Type.CREATED) {
+            return;
+        }
+        List<Invalidation> invalidations = new ArrayList<>();
+        invalidations.add(invalidation(Invalidation.Region.ENTREPRISE, List.of(event.getEntrepriseId())));
+        // Les collections sont retirées avec l'entreprise ; leurs éléments modifiés le sont aussi,
+        // sinon une collection relue depuis le cache pointerait vers des numéros périmés
+        Entreprise entreprise = event.getEntreprise();
+        Set<String> attributs = event.getAttributsModifies();
+        if (entreprise != null && attributs.contains("telephones")) {
+            ajouter(invalidations, Invalidation.Region.TELEPHONE, ids(entreprise.getTelephones(), Telephone::getId));
+        }
+        if (entreprise != null && attributs.contains("faxes")) {
+            ajouter(invalidations, Invalidation.Region.FAX, ids(entreprise.getFaxes(), Fax::getId));
+        }
+        if (entreprise != null && attributs.contains("gerants")) {
+            ajouter(invalidations, Invalidation.Region.GERANT, ids(entreprise.getGerants(), Gerant::getId));
+        }
+        publier(invalidations);
+    }
+
+    // Une liste d'ids vide viderait toute la région chez les autres nœuds
+    private void ajouter(List<Invalidation> invalidations, Invalidation.Region region, List<Long> ids) {
+        if (!ids.isEmpty()) {
+            invalidations.add(invalidation(region, ids));
+        }
+    }
+
+    // Pour les référentiels, appelé par leurs services après l'enregistrement ou la suppression
+    public void publier(Invalidation.Region region, Long id) {
+        publier(List.of(invalidation(region, List.of(id))));
+    }
+
+    // Toute la région, après des écritures SQL directes (compaction de l'historique)
+    public void publier(Invalidation.Region region) {
+        publier(List.of(invalidation(region, List.of())));
+    }
+
+    private void publier(List<Invalidation> invalidations) {
+        // Aussi remises à ce nœud : appliquer les ignore, mais pas les caches bâtis au-dessus (CacheReponseService)
+        invalidations.forEach(eventPublisher::publishEvent);
+        try {
+            bus.publier(invalidations);
+            compteurPublications("succes").increment(invalidations.size());
+        } catch (RuntimeException e) {
+            // L'écriture est validée : les autres nœuds resteront périmés jusqu'à l'expiration de leurs entrées
+            compteurPublications("echec").increment(invalidations.size());
+            logger.warn("Invalidation non diffusée ({}) : {}", invalidations, e.getMessage());
+        }
+    }
+
+    // Avant les autres écouteurs, qui peuvent relire aussitôt le cache de second niveau
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void appliquer(Invalidation invalidation) {
+        if (NOEUD.equals(invalidation.getOrigine())) {
+            return;
+        }
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        Class<?> entite = ENTITES.get(invalidation.getRegion());
+        boolean entreprise = invalidation.getRegion() == Invalidation.Region.ENTREPRISE;
+        if (invalidation.getIds().isEmpty()) {
+            cache.evictEntityData(entite);
+            if (entreprise) {
+                ArchiveService.COLLECTIONS_EN_CACHE.forEach(c -> cache.evictCollectionData(Entreprise.class.getName() + "." + c));
+            } else if (invalidation.getRegion() == Invalidation.Region.HISTORIQUE_DENTREPRISE) {
+                cache.evictCollectionData(Entreprise.class.getName() + ".historiqueDentreprise");
+            }
+        }
+        for (Long id : invalidation.getIds()) {
+            cache.evictEntityData(entite, id);
+            if (entreprise) {
+                ArchiveService.COLLECTIONS_EN_CACHE.forEach(c -> cache.evictCollectionData(Entreprise.class.getName() + "." + c, id));
+            }
+        }
+
+        if (invalidation.getHorodatage() > 0) {
+            // Horloges des nœuds supposées synchronisées (NTP) : un écart négatif compte pour zéro
+            long delai = Math.max(0, System.currentTimeMillis() - invalidation.getHorodatage());
+            Timer.builder("invalidation.propagation")
+                    .description("Délai entre la publication d'une invalidation et son application sur un autre nœud")
+                    .tag("bus", nomBus)
+                    .tag("region", invalidation.getRegion().name())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry)
+                    .record(Duration.ofMillis(delai));
+        }
+    }
+
+    private Invalidation invalidation(Invalidation.Region region, List<Long> ids) {
+        return new Invalidation(region, ids, NOEUD, System.currentTimeMillis());
+    }
+
+    private static <T> List<Long> ids(Collection<T> elements, Function<T, Long> id) {
+        return elements.stream().map(id).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private Counter compteurPublications(String resultat) {
+        return Counter.builder("invalidation.publiees").tag("bus", nomBus).tag("resultat", resultat)
+                .register(meterRegistry);
+    }
+}
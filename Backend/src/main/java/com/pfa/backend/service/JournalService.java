@@ -0,0 +1,90 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.ChangementsDTO;
+import com.pfa.backend.DTO.DeltaEntrepriseDTO;
+import com.pfa.backend.entity.JournalModification;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.JournalModificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class JournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalService.class);
+
+    // État complet d'une entreprise dans un delta : toutes les colonnes et toutes les collections
+    private static final EntrepriseProjectionService.Projection ETAT_COMPLET =
+            EntrepriseProjectionService.Projection.analyser(null, String.join(",", EntrepriseProjectionService.COLLECTIONS));
+
+    private static final long CONSERVATION_ENTREES_REMPLACEES_MS = 7L * 24 * 3600 * 1000;
+
+    @Autowired
+    private JournalModificationRepository journalRepository;
+    @Autowired
+    private EntrepriseProjectionService entrepriseProjectionService;
+
+    // Écrit dans la transaction de la modification (outbox) : pas de changement validé sans son entrée
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void enregistrer(EntrepriseEvent event) {
+        JournalModification entree = new JournalModification();
+        entree.setEntrepriseId(event.getEntrepriseId());
+        entree.setOperation(event.getType().name());
+        String attributs = String.join(",", new TreeSet<>(event.getAttributsModifies()));
+        entree.setAttributs(attributs.length() > 1000 ? attributs.substring(0, 1000) : attributs);
+        // date_modification est posée par la base (horloge commune à toutes les instances)
+        journalRepository.save(entree);
+    }
+
+    @Transactional(readOnly = true)
+    public ChangementsDTO getChangements(long depuis, int limite) {
+        List<Object[]> dernieres = journalRepository.findDernieresModifications(depuis, PageRequest.of(0, limite));
+
+        ChangementsDTO resultat = new ChangementsDTO();
+        resultat.setToken(depuis);
+        resultat.setSuite(dernieres.size() == limite);
+        if (dernieres.isEmpty()) {
+            return resultat;
+        }
+
+        // Une requête par lot pour les entreprises, puis une par collection
+        List<Long> entrepriseIds = dernieres.stream().map(l -> ((Number) l[0]).longValue()).collect(Collectors.toList());
+        Map<Long, Map<String, Object>> etats = new HashMap<>();
+        entrepriseProjectionService.getByIds(entrepriseIds, ETAT_COMPLET)
+                .forEach(etat -> etats.put((Long) etat.get("id"), etat));
+
+        for (Object[] ligne : dernieres) {
+            Long entrepriseId = ((Number) ligne[0]).longValue();
+            Long version = ((Number) ligne[1]).longValue();
+            DeltaEntrepriseDTO delta = new DeltaEntrepriseDTO();
+            delta.setEntrepriseId(entrepriseId);
+            delta.setVersion(version);
+            // État courant plutôt que chaque modification intermédiaire
+            Map<String, Object> etat = etats.get(entrepriseId);
+            delta.setOperation(etat != null ? "UPSERT" : EntrepriseEvent.Type.DELETED.name());
+            delta.setEntreprise(etat);
+            resultat.getChangements().add(delta);
+            resultat.setToken(Math.max(resultat.getToken(), version));
+        }
+        return resultat;
+    }
+
+    // Les entrées remplacées n'apportent rien à la synchronisation compactée
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void purgerEntreesRemplacees() {
+        int supprimees = journalRepository.purgerEntreesRemplacees(
+                new Date(System.currentTimeMillis() - CONSERVATION_ENTREES_REMPLACEES_MS));
+        logger.info("Journal des modifications : {} entrées remplacées supprimées", supprimees);
+    }
+}
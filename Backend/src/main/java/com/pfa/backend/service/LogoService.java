@@ -0,0 +1,362 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.ImportLogosDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.entity.LogoDerive;
+import com.pfa.backend.event.Diagnostic;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.EntrepriseArchiveRepository;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.repository.LogoDeriveRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Vignettes des logos pour les tableaux et les popups de la carte. Générées après commit sur
+// un pool dédié ; tant qu'elles ne sont pas prêtes, le logo original est servi.
+@Service
+public class LogoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogoService.class);
+
+    public static final List<Integer> TAILLES = List.of(32, 64, 128);
+
+    public static final int TAILLE_MAX_LOGO = 5 * 1024 * 1024;
+
+    private static final int TAILLE_FILE = 10_000;
+
+    // Entités (et logos) gardées en mémoire au plus pendant un lot de l'import ZIP
+    private static final int TAILLE_LOT_IMPORT = 20;
+
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+    @Autowired
+    private LogoDeriveRepository logoDeriveRepository;
+    @Autowired
+    private EntrepriseArchiveRepository entrepriseArchiveRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Une entreprise en attente n'est mise qu'une fois en file, même après plusieurs envois
+    private final Set<Long> enAttente = ConcurrentHashMap.newKeySet();
+    // Une entreprise est toujours traitée par le même thread (id modulo) : ses générations ne se chevauchent pas
+    private final List<ThreadPoolExecutor> generateurs = List.of(creerGenerateur(), creerGenerateur());
+
+    // Logos enregistrés avant l'ajout des vignettes
+    @EventListener(ApplicationReadyEvent.class)
+    public void rattraperDerives() {
+        List<Long> ids = logoDeriveRepository.findEntreprisesSansDerives();
+        ids.forEach(this::planifier);
+        if (!ids.isEmpty()) {
+            logger.info("Vignettes de logo planifiées pour {} entreprises", ids.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        if (event.getType() == EntrepriseEvent.Type.CREATED && event.getEntreprise().getLogo() != null) {
+            planifier(event.getEntrepriseId());
+        } else if (event.getType() == EntrepriseEvent.Type.UPDATED && event.getAttributsModifies().contains("logo")) {
+            // Les anciennes vignettes ne doivent plus être servies : retour à l'original jusqu'à la régénération
+            // Après commit, la transaction d'origine est terminée : il en faut une nouvelle
+            TransactionTemplate nouvelle = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            nouvelle.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            nouvelle.executeWithoutResult(status -> logoDeriveRepository.deleteByEntrepriseId(event.getEntrepriseId()));
+            planifier(event.getEntrepriseId());
+        }
+    }
+
+    // Lecture unique du flux (fichier temporaire du multipart ou entrée ZIP) : empreinte SHA-256
+    // calculée au fil de l'eau, taille plafonnée et type reconnu d'après les premiers octets.
+    public LogoRecu lire(InputStream entree) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        DigestInputStream flux = new DigestInputStream(entree, digest);
+        ByteArrayOutputStream donnees = new ByteArrayOutputStream(64 * 1024);
+        byte[] tampon = new byte[16 * 1024];
+        int lus;
+        while ((lus = flux.read(tampon)) != -1) {
+            if (donnees.size() + lus > TAILLE_MAX_LOGO) {
+                throw new IllegalArgumentException("Logo trop volumineux (maximum " + TAILLE_MAX_LOGO / (1024 * 1024) + " Mo)");
+            }
+            donnees.write(tampon, 0, lus);
+        }
+        byte[] octets = donnees.toByteArray();
+        String type = typeImage(octets);
+        if (type == null) {
+            throw new IllegalArgumentException("Format de logo non reconnu (PNG, JPEG, GIF, WebP ou BMP attendu)");
+        }
+        return new LogoRecu(octets, type, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    // Un seul passage sur l'archive : chaque entrée est lue, vérifiée puis rattachée par ICE ou par id,
+    // avec validation et vidage du contexte tous les TAILLE_LOT_IMPORT logos.
+    public ImportLogosDTO importerZip(InputStream zip, boolean parIce) throws IOException {
+        ImportLogosDTO rapport = new ImportLogosDTO();
+        Map<Long, LogoRecu> lot = new LinkedHashMap<>();
+        try (ZipInputStream entrees = new ZipInputStream(zip)) {
+            ZipEntry entree;
+            while ((entree = entrees.getNextEntry()) != null) {
+                String nom = entree.getName().substring(entree.getName().lastIndexOf('/') + 1);
+                if (entree.isDirectory() || nom.isEmpty() || nom.startsWith(".") || entree.getName().startsWith("__MACOSX")) {
+                    continue;
+                }
+                rapport.setTraites(rapport.getTraites() + 1);
+                String cle = nom.contains(".") ? nom.substring(0, nom.lastIndexOf('.')) : nom;
+
+                List<Long> ids;
+                try {
+                    ids = parIce ? entrepriseRepository.findIdsByIce(Integer.valueOf(cle.trim()))
+                            : entrepriseRepository.existsById(Long.valueOf(cle.trim())) ? List.of(Long.valueOf(cle.trim())) : List.of();
+                } catch (NumberFormatException e) {
+                    rapport.getRejetes().put(nom, "nom de fichier non numérique");
+                    continue;
+                }
+                if (ids.isEmpty()) {
+                    rapport.getIntrouvables().add(nom);
+                    continue;
+                }
+                if (ids.size() > 1) {
+                    rapport.getAmbigus().add(nom);
+                    continue;
+                }
+                try {
+                    lot.put(ids.get(0), lire(entrees));
+                } catch (IllegalArgumentException e) {
+                    rapport.getRejetes().put(nom, e.getMessage());
+                    continue;
+                }
+                if (lot.size() >= TAILLE_LOT_IMPORT) {
+                    attacher(lot, rapport);
+                }
+            }
+        }
+        attacher(lot, rapport);
+        return rapport;
+    }
+
+    private void attacher(Map<Long, LogoRecu> lot, ImportLogosDTO rapport) {
+        if (lot.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Map.Entry<Long, LogoRecu> element : lot.entrySet()) {
+                Entreprise entreprise = entityManager.find(Entreprise.class, element.getKey());
+                if (entreprise == null) {
+                    continue;
+                }
+                if (element.getValue().empreinte().equals(entreprise.getLogoEmpreinte())) {
+                    rapport.setInchanges(rapport.getInchanges() + 1);
+                    continue;
+                }
+                entreprise.setLogo(element.getValue().donnees());
+                entreprise.setLogoEmpreinte(element.getValue().empreinte());
+                eventPublisher.publishEvent(EntrepriseEvent.updated(entreprise, Set.of("logo")));
+                rapport.setAttaches(rapport.getAttaches() + 1);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        lot.clear();
+    }
+
+    public Optional<Logo> getLogo(Long entrepriseId, Integer taille) {
+        if (taille != null) {
+            Optional<LogoDerive> derive = logoDeriveRepository
+                    .findFirstByEntrepriseIdAndTailleGreaterThanEqualOrderByTailleAsc(entrepriseId, taille)
+                    .or(() -> logoDeriveRepository.findFirstByEntrepriseIdOrderByTailleDesc(entrepriseId));
+            if (derive.isPresent()) {
+                return Optional.of(new Logo(derive.get().getDonnees(), derive.get().getContentType(), true));
+            }
+        }
+        byte[] original = entrepriseRepository.findLogoById(entrepriseId);
+        if (original == null) {
+            // Entreprise archivée : ses vignettes ont été supprimées avec elle, l'original reste
+            original = entrepriseArchiveRepository.findLogoById(entrepriseId);
+        }
+        return original == null ? Optional.empty() : Optional.of(new Logo(original, contentType(original), false));
+    }
+
+    @PreDestroy
+    public void arreter() {
+        generateurs.forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    private void planifier(Long entrepriseId) {
+        if (!enAttente.add(entrepriseId)) {
+            return;
+        }
+        try {
+            generateurs.get((int) Math.floorMod(entrepriseId, (long) generateurs.size())).execute(() -> {
+                enAttente.remove(entrepriseId);
+                generer(entrepriseId);
+            });
+        } catch (RejectedExecutionException e) {
+            // File pleine : l'original reste servi, le rattrapage du prochain démarrage s'en chargera
+            enAttente.remove(entrepriseId);
+            logger.warn("File des vignettes pleine, entreprise {} ignorée", entrepriseId);
+        }
+    }
+
+    // Le logo est relu au moment du traitement : un envoi plus récent remplace toujours le précédent
+    private void generer(Long entrepriseId) {
+        try {
+            byte[] original = entrepriseRepository.findLogoById(entrepriseId);
+            if (original == null) {
+                return;
+            }
+            Diagnostic.EncodageLogo evenement = new Diagnostic.EncodageLogo();
+            evenement.begin();
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(original));
+            if (image == null) {
+                logger.debug("Logo de l'entreprise {} dans un format non lisible, pas de vignettes", entrepriseId);
+                return;
+            }
+            List<LogoDerive> derives = new ArrayList<>();
+            for (Integer taille : TAILLES) {
+                LogoDerive derive = new LogoDerive();
+                derive.setEntrepriseId(entrepriseId);
+                derive.setTaille(taille);
+                derive.setContentType("image/png");
+                derive.setDonnees(encoderPng(redimensionner(image, taille)));
+                derive.setDateCreation(new Date());
+                derives.add(derive);
+            }
+            if (evenement.shouldCommit()) {
+                evenement.entrepriseId = entrepriseId;
+                evenement.octetsOriginal = original.length;
+                evenement.octetsVignettes = derives.stream().mapToLong(d -> d.getDonnees().length).sum();
+                evenement.commit();
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                logoDeriveRepository.deleteByEntrepriseId(entrepriseId);
+                logoDeriveRepository.flush();
+                logoDeriveRepository.saveAll(derives);
+            });
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Échec de génération des vignettes de l'entreprise {}", entrepriseId, e);
+        }
+    }
+
+    private static ThreadPoolExecutor creerGenerateur() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(TAILLE_FILE), r -> {
+            Thread thread = new Thread(r, "logo-derives");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    // Image centrée dans un carré transparent ; réduction par moitiés successives pour limiter le crénelage
+    static BufferedImage redimensionner(BufferedImage source, int taille) {
+        double echelle = Math.min(1.0, Math.min((double) taille / source.getWidth(), (double) taille / source.getHeight()));
+        int largeurCible = Math.max(1, (int) Math.round(source.getWidth() * echelle));
+        int hauteurCible = Math.max(1, (int) Math.round(source.getHeight() * echelle));
+
+        BufferedImage courante = source;
+        int largeur = source.getWidth();
+        int hauteur = source.getHeight();
+        do {
+            largeur = Math.max(largeurCible, largeur / 2);
+            hauteur = Math.max(hauteurCible, hauteur / 2);
+            BufferedImage etape = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = etape.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(courante, 0, 0, largeur, hauteur, null);
+            g.dispose();
+            courante = etape;
+        } while (largeur > largeurCible || hauteur > hauteurCible);
+
+        BufferedImage carre = new BufferedImage(taille, taille, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = carre.createGraphics();
+        g.drawImage(courante, (taille - largeurCible) / 2, (taille - hauteurCible) / 2, null);
+        g.dispose();
+        return carre;
+    }
+
+    private static byte[] encoderPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", sortie);
+        return sortie.toByteArray();
+    }
+
+    private static String contentType(byte[] donnees) {
+        String type = typeImage(donnees);
+        return type != null ? type : "application/octet-stream";
+    }
+
+    // Signatures des formats d'image acceptés
+    static String typeImage(byte[] d) {
+        if (commencePar(d, 0, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (commencePar(d, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (commencePar(d, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (commencePar(d, 0, 'R', 'I', 'F', 'F') && commencePar(d, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        if (commencePar(d, 0, 'B', 'M')) {
+            return "image/bmp";
+        }
+        // Pas de SVG : servi par GET /{id}/logo sur l'origine de l'API, ses scripts s'y exécuteraient
+        return null;
+    }
+
+    private static boolean commencePar(byte[] donnees, int decalage, int... signature) {
+        if (donnees.length < decalage + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((donnees[decalage + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public record LogoRecu(byte[] donnees, String contentType, String empreinte) {
+    }
+
+    public record Logo(byte[] donnees, String contentType, boolean derive) {
+    }
+}
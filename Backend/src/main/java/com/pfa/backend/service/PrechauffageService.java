@@ -0,0 +1,89 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.repository.FormeJuridiqueRepository;
+import com.pfa.backend.repository.SecteurDactiviteRepository;
+import com.pfa.backend.repository.VilleRepository;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Profil demarrage-rapide : le cache de second niveau est rempli après la disponibilité, en arrière-plan,
+// au lieu d'attendre les premières requêtes (référentiels, puis les entreprises les plus récentes)
+@Service
+@Profile("demarrage-rapide")
+public class PrechauffageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrechauffageService.class);
+
+    private static final int TAILLE_LOT = 100;
+
+    @Value("${prechauffage.entreprises:500}")
+    private int nombreEntreprises;
+
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+    @Autowired
+    private SecteurDactiviteRepository secteurDactiviteRepository;
+    @Autowired
+    private FormeJuridiqueRepository formeJuridiqueRepository;
+    @Autowired
+    private VilleRepository villeRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService lanceur = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "prechauffage");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prechauffer() {
+        lanceur.execute(() -> {
+            long debut = System.currentTimeMillis();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    secteurDactiviteRepository.findAll();
+                    formeJuridiqueRepository.findAll();
+                    villeRepository.findAll().forEach(ville -> Hibernate.initialize(ville.getAlias()));
+                });
+                List<Long> ids = entrepriseRepository.findIdsRecents(PageRequest.of(0, nombreEntreprises));
+                for (int debutLot = 0; debutLot < ids.size(); debutLot += TAILLE_LOT) {
+                    List<Long> lot = ids.subList(debutLot, Math.min(debutLot + TAILLE_LOT, ids.size()));
+                    transactionTemplate.executeWithoutResult(status -> {
+                        for (Entreprise entreprise : entrepriseRepository.findAllById(lot)) {
+                            Hibernate.initialize(entreprise.getTelephones());
+                            Hibernate.initialize(entreprise.getFaxes());
+                            Hibernate.initialize(entreprise.getGerants());
+                        }
+                    });
+                }
+                logger.info("Cache préchauffé : {} entreprises en {} ms", ids.size(), System.currentTimeMillis() - debut);
+            } catch (RuntimeException e) {
+                // Sans conséquence : le cache se remplira au fil des requêtes
+                logger.warn("Préchauffage du cache interrompu", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void arreter() {
+        lanceur.shutdownNow();
+    }
+}
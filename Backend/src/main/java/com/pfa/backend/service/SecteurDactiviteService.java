@@ -2,6 +2,7 @@ package com.pfa.backend.service;
 
 import com.pfa.backend.DTO.SecteurDactiviteDTO;
 import com.pfa.backend.entity.SecteurDactivite;
+import com.pfa.backend.event.Invalidation;
 import com.pfa.backend.repository.SecteurDactiviteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,8 @@ public class SecteurDactiviteService {
 
     @Autowired
     private SecteurDactiviteRepository secteurDactiviteRepository;
+    @Autowired
+    private InvalidationService invalidationService;
 
     public List<SecteurDactiviteDTO> getAllSecteursDactivite() {
         // Récupérer toutes les entités SecteurDactivite
@@ -38,10 +41,14 @@ public class SecteurDactiviteService {
         return dto;
     }
     public SecteurDactivite createSecteurDactivite(SecteurDactivite secteurDactivite) {
-        return secteurDactiviteRepository.save(secteurDactivite);
+        SecteurDactivite enregistre = secteurDactiviteRepository.save(secteurDactivite);
+        // Un id existant est une mise à jour : les autres nœuds peuvent l'avoir en cache
+        invalidationService.publier(Invalidation.Region.SECTEUR_DACTIVITE, enregistre.getId());
+        return enregistre;
     }
 
     public void deleteSecteurDactivite(Long id) {
         secteurDactiviteRepository.deleteById(id);
+        invalidationService.publier(Invalidation.Region.SECTEUR_DACTIVITE, id);
     }
 }
@@ -0,0 +1,129 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.StatistiqueGroupeDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.entity.FormeJuridique;
+import com.pfa.backend.entity.SecteurDactivite;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.repository.FormeJuridiqueRepository;
+import com.pfa.backend.repository.SecteurDactiviteRepository;
+import com.pfa.backend.service.EntrepriseSnapshot.Accumulateur;
+import com.pfa.backend.service.EntrepriseSnapshot.Dimension;
+import com.pfa.backend.service.EntrepriseSnapshot.Filtre;
+import com.pfa.backend.service.EntrepriseSnapshot.Mesure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class StatistiquesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatistiquesService.class);
+
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+    @Autowired
+    private SecteurDactiviteRepository secteurDactiviteRepository;
+    @Autowired
+    private FormeJuridiqueRepository formeJuridiqueRepository;
+
+    private volatile EntrepriseSnapshot snapshot = new EntrepriseSnapshot();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void chargerSnapshot() {
+        long debut = System.currentTimeMillis();
+        EntrepriseSnapshot nouveau = new EntrepriseSnapshot();
+        for (Object[] ligne : entrepriseRepository.findColonnesStatistiques()) {
+            nouveau.upsert((Long) ligne[0], (Float) ligne[1], (Integer) ligne[2], annee((Date) ligne[3]),
+                    (String) ligne[4], (Long) ligne[5], (Long) ligne[6]);
+        }
+        snapshot = nouveau;
+        logger.info("Snapshot statistique chargé : {} entreprises en {} ms", nouveau.taille(), System.currentTimeMillis() - debut);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntrepriseEvent(EntrepriseEvent event) {
+        if (event.getType() == EntrepriseEvent.Type.DELETED) {
+            snapshot.supprimer(event.getEntrepriseId());
+            return;
+        }
+        Entreprise e = event.getEntreprise();
+        snapshot.upsert(e.getId(), e.getCapitalSocial(), e.getNombreEmployes(), annee(e.getDateCreation()), e.getVille(),
+                e.getSecteurDactivite() != null ? e.getSecteurDactivite().getId() : null,
+                e.getFormeJuridique() != null ? e.getFormeJuridique().getId() : null);
+    }
+
+    public List<StatistiqueGroupeDTO> agreger(Dimension dimension, Mesure mesure, Double largeurTranche,
+                                              List<Double> percentiles, Filtre filtre) {
+        if ((dimension == Dimension.TRANCHE_EMPLOYES || dimension == Dimension.TRANCHE_CAPITAL)
+                && (largeurTranche == null || largeurTranche <= 0)) {
+            throw new IllegalArgumentException("largeur doit être positive pour un regroupement par tranche");
+        }
+        boolean avecPercentiles = mesure != null && percentiles != null && !percentiles.isEmpty();
+        Map<Object, Accumulateur> groupes = snapshot.agreger(dimension, mesure,
+                largeurTranche != null ? largeurTranche : 1, filtre, avecPercentiles);
+
+        Map<Object, String> libelles = libelles(dimension);
+        List<StatistiqueGroupeDTO> resultat = new ArrayList<>();
+        groupes.forEach((groupe, acc) -> {
+            StatistiqueGroupeDTO dto = new StatistiqueGroupeDTO();
+            dto.setGroupe(groupe);
+            dto.setLibelle(libelles != null ? libelles.get(groupe) : (groupe != null ? groupe.toString() : null));
+            dto.setNombre(acc.getNombre());
+            if (mesure != null) {
+                dto.setSomme(acc.getSomme());
+                dto.setMoyenne(acc.getMoyenne());
+                dto.setMin(acc.getMin());
+                dto.setMax(acc.getMax());
+            }
+            if (avecPercentiles) {
+                for (Double p : percentiles) {
+                    dto.getPercentiles().put("p" + p.toString().replaceAll("\\.0$", ""), acc.percentile(p));
+                }
+            }
+            resultat.add(dto);
+        });
+
+        if (dimension == Dimension.ANNEE_CREATION || dimension == Dimension.TRANCHE_EMPLOYES || dimension == Dimension.TRANCHE_CAPITAL) {
+            resultat.sort(Comparator.comparing(d -> d.getGroupe() != null ? ((Number) d.getGroupe()).doubleValue() : Double.MAX_VALUE));
+        } else {
+            resultat.sort(Comparator.comparingLong(StatistiqueGroupeDTO::getNombre).reversed());
+        }
+        return resultat;
+    }
+
+    public int nombreEntreprises() {
+        return snapshot.taille();
+    }
+
+    private Map<Object, String> libelles(Dimension dimension) {
+        if (dimension == Dimension.SECTEUR) {
+            return secteurDactiviteRepository.findAll().stream()
+                    .filter(s -> s.getNom() != null)
+                    .collect(Collectors.toMap(SecteurDactivite::getId, SecteurDactivite::getNom));
+        }
+        if (dimension == Dimension.FORME) {
+            return formeJuridiqueRepository.findAll().stream()
+                    .filter(f -> f.getNom() != null)
+                    .collect(Collectors.toMap(FormeJuridique::getId, FormeJuridique::getNom));
+        }
+        return null;
+    }
+
+    private static Integer annee(Date date) {
+        if (date == null) {
+            return null;
+        }
+        Calendar calendrier = Calendar.getInstance();
+        calendrier.setTime(date);
+        return calendrier.get(Calendar.YEAR);
+    }
+}
@@ -2,15 +2,18 @@ package com.pfa.backend.service;
 
 import com.pfa.backend.entity.Entreprise;
 import com.pfa.backend.entity.Telephone;
+import com.pfa.backend.event.EntrepriseEvent;
 import com.pfa.backend.repository.EntrepriseRepository;
 import com.pfa.backend.repository.TelephoneRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class TelephoneService {
@@ -18,6 +21,10 @@ public class TelephoneService {
     private EntrepriseRepository entrepriseRepository;
     @Autowired
     private TelephoneRepository telephoneRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private AnnuaireService annuaireService;
     public List<Telephone> getTelephonesByEntrepriseId(Long entrepriseId) {
         return telephoneRepository.findByEntrepriseId(entrepriseId);
     }
@@ -26,42 +33,29 @@ public class TelephoneService {
     }
 
     public Telephone save(Telephone telephone) {
-        return telephoneRepository.save(telephone);
+        Telephone saved = telephoneRepository.save(telephone);
+        annuaireService.indexer(saved);
+        return saved;
     }
 
     public void deleteById(Long id) {
         telephoneRepository.deleteById(id);
+        annuaireService.retirer(AnnuaireService.TELEPHONE, id);
+    }
+
+    // Ajouts persistés tout de suite pour obtenir leur id ; les INSERT et UPDATE partent groupés au flush
+    public void synchroniser(Entreprise entreprise, List<Telephone> telephones) {
+        telephoneRepository.saveAll(entreprise.synchroniserTelephones(telephones));
     }
 
+    // L'annuaire est mis à jour après commit (AnnuaireService.onEntrepriseEvent)
     @Transactional
     public List<Telephone> updateTelephonesByEntrepriseId(Long entrepriseId, List<Telephone> updatedTelephones) {
-        Optional<Entreprise> optionalEntreprise = entrepriseRepository.findById(entrepriseId);
-        if (optionalEntreprise.isEmpty()) {
-            throw new EntityNotFoundException("Entreprise introuvable avec l'id " + entrepriseId);
-        }
-
-        Entreprise entreprise = optionalEntreprise.get();
-        List<Telephone> existingTelephones = telephoneRepository.findByEntrepriseId(entrepriseId);
-
-        // Mettre à jour les téléphones existants ou les ajouter si nouveaux
-        for (Telephone updatedTelephone : updatedTelephones) {
-            Optional<Telephone> optionalExistingTelephone = existingTelephones.stream()
-                    .filter(t -> t.getId().equals(updatedTelephone.getId()))
-                    .findFirst();
-
-            if (optionalExistingTelephone.isPresent()) {
-                Telephone existingTelephone = optionalExistingTelephone.get();
-                existingTelephone.setNumero(updatedTelephone.getNumero());
-                telephoneRepository.save(existingTelephone);
-            } else {
-                updatedTelephone.setEntreprise(entreprise);
-                telephoneRepository.save(updatedTelephone);
-            }
-        }
-
-
-
-        return telephoneRepository.findByEntrepriseId(entrepriseId);
+        Entreprise entreprise = entrepriseRepository.findById(entrepriseId)
+                .orElseThrow(() -> new EntityNotFoundException("Entreprise introuvable avec l'id " + entrepriseId));
+        synchroniser(entreprise, updatedTelephones);
+        eventPublisher.publishEvent(EntrepriseEvent.updated(entreprise, Set.of("telephones")));
+        return entreprise.getTelephones();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.VilleDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.entity.Ville;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.EntrepriseRepository;
+import com.pfa.backend.repository.VilleRepository;
+import com.pfa.backend.util.Normalisation;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class VilleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VilleService.class);
+
+    // Graphies courantes (clé normalisée -> clé de la ville) qu'aucune normalisation ne rapproche ;
+    // rattachées au démarrage si la ville existe, les autres alias restent à ajouter à la main
+    static final Map<String, String> ALIAS_COURANTS = Map.of(
+            "casa", "casablanca",
+            "dar el beida", "casablanca",
+            "tangier", "tanger",
+            "tangiers", "tanger",
+            "marrakesh", "marrakech",
+            "fez", "fes",
+            "tetuan", "tetouan",
+            "mohammadia", "mohammedia",
+            "eljadida", "el jadida");
+
+    @Autowired
+    private VilleRepository villeRepository;
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Index en mémoire reconstruit à chaque création de ville (quelques centaines d'entrées)
+    private volatile Index index = new Index(Collections.emptyMap(), Collections.emptyMap(), new VilleTrie(), Collections.emptyList());
+
+    // Migration unique : rattache les entreprises dont la ville n'est encore qu'un texte libre
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void migrerVillesExistantes() {
+        recharger();
+        List<Object[]> graphies = entrepriseRepository.compterVillesNonRattachees();
+        if (!graphies.isEmpty()) {
+            rattacherGraphies(graphies);
+            recharger();
+        }
+        ajouterAliasCourants();
+    }
+
+    private void rattacherGraphies(List<Object[]> graphies) {
+        // Regroupe les graphies par clé normalisée ; la plus fréquente devient le nom canonique
+        Map<String, List<Object[]>> parCle = new HashMap<>();
+        for (Object[] graphie : graphies) {
+            String cle = Normalisation.cle((String) graphie[0]);
+            if (cle != null) {
+                parCle.computeIfAbsent(cle, k -> new ArrayList<>()).add(graphie);
+            }
+        }
+
+        int entreprisesRattachees = 0;
+        for (Map.Entry<String, List<Object[]>> groupe : parCle.entrySet()) {
+            Ville ville = index.parCle.containsKey(groupe.getKey())
+                    ? villeRepository.getReferenceById(index.parCle.get(groupe.getKey()).getId())
+                    : null;
+            if (ville == null) {
+                String nom = groupe.getValue().stream()
+                        .max(Comparator.comparingLong(g -> (Long) g[1]))
+                        .map(g -> Normalisation.nettoyer((String) g[0]))
+                        .orElseThrow();
+                ville = new Ville();
+                ville.setNom(nom);
+                ville.setNomNormalise(groupe.getKey());
+                // Id alloué par le générateur : sans flush, l'insertion attendrait la fin de la transaction,
+                // après la mise à jour en masse qui référence déjà la ville
+                ville = villeRepository.saveAndFlush(ville);
+            }
+            String nomCanonique = ville.getNom();
+            for (Object[] graphie : groupe.getValue()) {
+                entreprisesRattachees += entrepriseRepository.rattacherVille((String) graphie[0], nomCanonique, ville);
+            }
+        }
+        logger.info("Migration des villes : {} graphies regroupées en {} villes, {} entreprises rattachées",
+                graphies.size(), parCle.size(), entreprisesRattachees);
+    }
+
+    // Une graphie déjà enregistrée comme ville à part y est fusionnée (ajouterAlias)
+    private void ajouterAliasCourants() {
+        for (Map.Entry<String, String> alias : ALIAS_COURANTS.entrySet()) {
+            VilleDTO cible = index.parCle.get(alias.getValue());
+            VilleDTO actuelle = index.parCle.get(alias.getKey());
+            if (cible != null && (actuelle == null || !actuelle.getId().equals(cible.getId()))) {
+                ajouterAlias(cible.getId(), alias.getKey());
+            }
+        }
+    }
+
+    public void recharger() {
+        Map<String, VilleDTO> parCle = new HashMap<>();
+        Map<Long, VilleDTO> parId = new HashMap<>();
+        VilleTrie trie = new VilleTrie();
+        for (Ville ville : villeRepository.findAll()) {
+            VilleDTO dto = convertToDTO(ville);
+            parId.put(ville.getId(), dto);
+            parCle.put(ville.getNomNormalise(), dto);
+            trie.inserer(ville.getNomNormalise(), ville.getId());
+            for (String alias : ville.getAlias()) {
+                parCle.put(alias, dto);
+                trie.inserer(alias, ville.getId());
+            }
+        }
+        List<VilleDTO> triees = parId.values().stream()
+                .sorted(Comparator.comparing(VilleDTO::getNom, String.CASE_INSENSITIVE_ORDER))
+                .collect(Collectors.toList());
+        index = new Index(parCle, parId, trie, triees);
+    }
+
+    public List<String> getNomsVilles() {
+        return index.triees.stream().map(VilleDTO::getNom).collect(Collectors.toList());
+    }
+
+    public List<VilleDTO> getAllVilles() {
+        return index.triees;
+    }
+
+    public Optional<VilleDTO> trouver(String saisie) {
+        String cle = Normalisation.cle(saisie);
+        return cle == null ? Optional.empty() : Optional.ofNullable(index.parCle.get(cle));
+    }
+
+    public List<VilleDTO> autocompleter(String saisie, int limite) {
+        Index courant = index;
+        String cle = Normalisation.cle(saisie);
+        if (cle == null) {
+            return courant.triees.stream().limit(limite).collect(Collectors.toList());
+        }
+        return courant.trie.rechercher(cle, limite).stream()
+                .map(courant.parId::get)
+                .collect(Collectors.toList());
+    }
+
+    // Étape de canonicalisation appliquée à chaque écriture d'entreprise
+    public void canonicaliser(Entreprise entreprise) {
+        VilleDTO ville = resoudre(entreprise.getVille());
+        entreprise.setVille(ville != null ? ville.getNom() : null);
+        entreprise.setVilleReference(ville != null ? villeRepository.getReferenceById(ville.getId()) : null);
+    }
+
+    public synchronized VilleDTO resoudre(String saisie) {
+        String cle = Normalisation.cle(saisie);
+        if (cle == null) {
+            return null;
+        }
+        VilleDTO existante = index.parCle.get(cle);
+        if (existante != null) {
+            return existante;
+        }
+
+        Ville ville = creer(Normalisation.nettoyer(saisie), cle);
+        rechargerApresTransaction();
+        return convertToDTO(ville);
+    }
+
+    // Création validée dans sa propre transaction : le verrou de resoudre ne couvre pas la validation
+    // de la transaction appelante, ni les autres instances. Si une autre transaction a créé la même
+    // ville entre-temps, la contrainte unique sur nom_normalise échoue et on relit la ville validée.
+    private Ville creer(String nom, String cle) {
+        TransactionTemplate nouvelle = new TransactionTemplate(transactionManager);
+        nouvelle.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return nouvelle.execute(status -> villeRepository.findByNomNormalise(cle).orElseGet(() -> {
+                Ville ville = new Ville();
+                ville.setNom(nom);
+                ville.setNomNormalise(cle);
+                return villeRepository.saveAndFlush(ville);
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return nouvelle.execute(status -> villeRepository.findByNomNormalise(cle).orElseThrow(() -> e));
+        }
+    }
+
+    // Rattache une autre graphie à une ville ; si cette graphie existait comme ville à part, elle y est fusionnée
+    @Transactional
+    public VilleDTO ajouterAlias(Long villeId, String alias) {
+        Ville ville = villeRepository.findById(villeId)
+                .orElseThrow(() -> new EntityNotFoundException("Ville introuvable avec l'id " + villeId));
+        String cle = Normalisation.cle(alias);
+        if (cle == null || cle.equals(ville.getNomNormalise())) {
+            return convertToDTO(ville);
+        }
+
+        Optional<Ville> doublon = villeRepository.findByNomNormalise(cle);
+        if (doublon.isPresent() && !doublon.get().getId().equals(villeId)) {
+            Ville source = doublon.get();
+            // La mise à jour en masse ne passe par aucun écouteur : les entreprises déplacées sont publiées
+            // comme modifiées (journal, flux SSE, statistiques, caches de réponses et des autres nœuds)
+            List<Long> entrepriseIds = entrepriseRepository.findIdsByVilleReference(source);
+            int deplacees = entrepriseRepository.fusionnerVille(source, ville.getNom(), ville);
+            entrepriseRepository.findAllById(entrepriseIds)
+                    .forEach(entreprise -> eventPublisher.publishEvent(EntrepriseEvent.updated(entreprise, Set.of("ville"),
+                            Collections.singletonMap("ville", source.getNom()))));
+            ville.getAlias().addAll(source.getAlias());
+            villeRepository.delete(source);
+            villeRepository.flush();
+            logger.info("Ville '{}' fusionnée dans '{}' ({} entreprises)", source.getNom(), ville.getNom(), deplacees);
+        }
+        ville.getAlias().add(cle);
+        villeRepository.save(ville);
+        rechargerApresTransaction();
+        return convertToDTO(ville);
+    }
+
+    // Hors transaction (générateur de données), la ville est déjà enregistrée : rechargement immédiat
+    private void rechargerApresTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recharger();
+                }
+            });
+        } else {
+            recharger();
+        }
+    }
+
+    private VilleDTO convertToDTO(Ville ville) {
+        VilleDTO dto = new VilleDTO();
+        dto.setId(ville.getId());
+        dto.setNom(ville.getNom());
+        return dto;
+    }
+
+    private record Index(Map<String, VilleDTO> parCle, Map<Long, VilleDTO> parId, VilleTrie trie, List<VilleDTO> triees) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.pfa.backend.service;
+
+import java.util.*;
+
+// Arbre préfixe sur les clés normalisées des villes (noms et alias).
+// Non synchronisé : VilleService le reconstruit puis le publie par référence volatile.
+public class VilleTrie {
+
+    private final Noeud racine = new Noeud();
+
+    public void inserer(String cle, Long villeId) {
+        Noeud noeud = racine;
+        for (int i = 0; i < cle.length(); i++) {
+            noeud = noeud.enfants.computeIfAbsent(cle.charAt(i), c -> new Noeud());
+        }
+        noeud.villes.add(villeId);
+    }
+
+    // Parcours en ordre lexicographique à partir du nœud du préfixe, arrêté dès que la limite est atteinte
+    public List<Long> rechercher(String prefixe, int limite) {
+        Noeud noeud = racine;
+        for (int i = 0; i < prefixe.length() && noeud != null; i++) {
+            noeud = noeud.enfants.get(prefixe.charAt(i));
+        }
+        if (noeud == null) {
+            return Collections.emptyList();
+        }
+        Set<Long> resultat = new LinkedHashSet<>();
+        collecter(noeud, resultat, limite);
+        return new ArrayList<>(resultat);
+    }
+
+    private void collecter(Noeud noeud, Set<Long> resultat, int limite) {
+        for (Long villeId : noeud.villes) {
+            if (resultat.size() >= limite) {
+                return;
+            }
+            resultat.add(villeId);
+        }
+        for (Noeud enfant : noeud.enfants.values()) {
+            if (resultat.size() >= limite) {
+                return;
+            }
+            collecter(enfant, resultat, limite);
+        }
+    }
+
+    private static class Noeud {
+        private final TreeMap<Character, Noeud> enfants = new TreeMap<>();
+        private final List<Long> villes = new ArrayList<>(1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.pfa.backend.util;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class Normalisation {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIQUE = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern ESPACES = Pattern.compile("\\s+");
+
+    private Normalisation() {
+    }
+
+    // "  Fès-Boulemane " -> "fes boulemane" : sans accents, minuscules, séparateurs réduits à un espace
+    public static String cle(String texte) {
+        if (texte == null) {
+            return null;
+        }
+        String sansAccents = DIACRITIQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        String cle = NON_ALPHANUMERIQUE.matcher(sansAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return cle.isEmpty() ? null : cle;
+    }
+
+    // Clé de personne indépendante de l'ordre des mots : ("El Amrani", "Youssef") -> "amrani-el-youssef"
+    public static String clePersonne(String... parties) {
+        String cle = cle(String.join(" ", Arrays.stream(parties).map(p -> p != null ? p : "").toArray(String[]::new)));
+        if (cle == null) {
+            return null;
+        }
+        String[] mots = cle.split(" ");
+        Arrays.sort(mots);
+        return String.join("-", mots);
+    }
+
+    // Supprime les espaces superflus sans toucher à la casse ni aux accents
+    public static String nettoyer(String texte) {
+        if (texte == null) {
+            return null;
+        }
+        String nettoye = ESPACES.matcher(texte).replaceAll(" ").trim();
+        return nettoye.isEmpty() ? null : nettoye;
+    }
+}
@@ -0,0 +1,45 @@
+package com.pfa.backend.util;
+
+public final class NumeroTelephone {
+
+    // Indicatif appliqué aux numéros nationaux (0XXXXXXXXX)
+    public static final String INDICATIF_PAR_DEFAUT = "212";
+
+    private NumeroTelephone() {
+    }
+
+    // Forme E.164 : "05 22-12.34.56", "00212522123456" et "+212 522 12 34 56" -> "+212522123456".
+    // Retourne null si le numéro ne contient pas assez de chiffres pour être exploitable.
+    public static String normaliser(String numero) {
+        if (numero == null) {
+            return null;
+        }
+        String chiffres = numero.replaceAll("[^0-9]", "");
+        boolean international = numero.trim().startsWith("+");
+
+        if (!international && chiffres.startsWith("00")) {
+            chiffres = chiffres.substring(2);
+            international = true;
+        }
+        if (!international) {
+            if (chiffres.startsWith("0") && chiffres.length() == 10) {
+                chiffres = INDICATIF_PAR_DEFAUT + chiffres.substring(1);
+            } else if (chiffres.length() == 9) {
+                chiffres = INDICATIF_PAR_DEFAUT + chiffres;
+            }
+        } else if (chiffres.startsWith(INDICATIF_PAR_DEFAUT + "0")) {
+            // "+212 0522..." : le 0 national ne doit pas être conservé
+            chiffres = INDICATIF_PAR_DEFAUT + chiffres.substring(INDICATIF_PAR_DEFAUT.length() + 1);
+        }
+
+        if (chiffres.length() < 8 || chiffres.length() > 15) {
+            return null;
+        }
+        return "+" + chiffres;
+    }
+
+    public static boolean memeNumero(String a, String b) {
+        String na = normaliser(a);
+        return na != null ? na.equals(normaliser(b)) : a != null && a.equals(b);
+    }
+}
@@ -0,0 +1,44 @@
+package com.pfa.backend.util;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.entry.CollectionCacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+
+// Poids approximatif (en octets) d'une entrée du cache de second niveau : une entreprise
+// avec un logo de quelques Mo ne compte pas comme une entreprise sans logo.
+public class PoidsEntreeCache implements Weigher<Object, Object> {
+
+    private static final int SURCOUT_ENTREE = 64;
+
+    @Override
+    public int weigh(Object cle, Object valeur) {
+        return (int) Math.min(Integer.MAX_VALUE, SURCOUT_ENTREE + poids(valeur));
+    }
+
+    private static long poids(Object valeur) {
+        if (valeur instanceof AbstractReadWriteAccess.Item item) {
+            return poids(item.getValue());
+        }
+        if (valeur instanceof CacheEntry entree) {
+            return poids(entree.getDisassembledState());
+        }
+        if (valeur instanceof CollectionCacheEntry collection) {
+            return poids(collection.getState());
+        }
+        if (valeur instanceof byte[] octets) {
+            return octets.length;
+        }
+        if (valeur instanceof String texte) {
+            return 2L * texte.length();
+        }
+        if (valeur instanceof Object[] tableau) {
+            long total = 16;
+            for (Object element : tableau) {
+                total += poids(element);
+            }
+            return total;
+        }
+        return 16;
+    }
+}
@@ -0,0 +1,64 @@
+package com.pfa.backend.util;
+
+public final class Similarite {
+
+    private Similarite() {
+    }
+
+    // Jaro-Winkler classique (préfixe commun plafonné à 4, facteur 0.1) ; 1.0 = identiques
+    public static double jaroWinkler(String a, String b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        int la = a.length();
+        int lb = b.length();
+        if (la == 0 || lb == 0) {
+            return 0;
+        }
+
+        int fenetre = Math.max(0, Math.max(la, lb) / 2 - 1);
+        boolean[] correspondA = new boolean[la];
+        boolean[] correspondB = new boolean[lb];
+        int correspondances = 0;
+        for (int i = 0; i < la; i++) {
+            int debut = Math.max(0, i - fenetre);
+            int fin = Math.min(i + fenetre + 1, lb);
+            for (int j = debut; j < fin; j++) {
+                if (!correspondB[j] && a.charAt(i) == b.charAt(j)) {
+                    correspondA[i] = true;
+                    correspondB[j] = true;
+                    correspondances++;
+                    break;
+                }
+            }
+        }
+        if (correspondances == 0) {
+            return 0;
+        }
+
+        int transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < la; i++) {
+            if (correspondA[i]) {
+                while (!correspondB[k]) {
+                    k++;
+                }
+                if (a.charAt(i) != b.charAt(k)) {
+                    transpositions++;
+                }
+                k++;
+            }
+        }
+
+        double m = correspondances;
+        double jaro = (m / la + m / lb + (m - transpositions / 2.0) / m) / 3.0;
+        int prefixe = 0;
+        while (prefixe < Math.min(4, Math.min(la, lb)) && a.charAt(prefixe) == b.charAt(prefixe)) {
+            prefixe++;
+        }
+        return jaro + prefixe * 0.1 * (1 - jaro);
+    }
+}
@@ -0,0 +1,70 @@
+package com.pfa.backend.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Regroupe les appels identiques simultanés : le premier calcule, les suivants attendent son résultat.
+// Rien n'est conservé après la fin du calcul ; ce n'est pas un cache.
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> enCours = new ConcurrentHashMap<>();
+    private final Counter calculs;
+    private final Counter regroupes;
+
+    public SingleFlight(String nom, MeterRegistry meterRegistry) {
+        this.calculs = Counter.builder("singleflight.requetes").tag("nom", nom).tag("role", "calcul")
+                .register(meterRegistry);
+        this.regroupes = Counter.builder("singleflight.requetes").tag("nom", nom).tag("role", "regroupe")
+                .register(meterRegistry);
+        // Part des requêtes servies par un calcul déjà en cours
+        Gauge.builder("singleflight.ratio", this, s -> {
+            double total = s.calculs.count() + s.regroupes.count();
+            return total == 0 ? 0 : s.regroupes.count() / total;
+        }).tag("nom", nom).register(meterRegistry);
+    }
+
+    public V executer(K cle, Supplier<V> calcul) {
+        CompletableFuture<V> nouveau = new CompletableFuture<>();
+        CompletableFuture<V> existant = enCours.putIfAbsent(cle, nouveau);
+        if (existant != null) {
+            regroupes.increment();
+            try {
+                return existant.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error erreur) {
+                    throw erreur;
+                }
+                throw e.getCause() instanceof RuntimeException r ? r : e;
+            }
+        }
+
+        calculs.increment();
+        try {
+            V valeur = calcul.get();
+            nouveau.complete(valeur);
+            return valeur;
+        } catch (Throwable e) {
+            // Erreurs comprises (OutOfMemoryError, StackOverflowError) : sinon les appels regroupés attendraient indéfiniment
+            nouveau.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCours.remove(cle, nouveau);
+        }
+    }
+
+    // Après une écriture : les requêtes suivantes ne rejoignent plus un calcul commencé avant elle
+    public void invalider(K cle) {
+        enCours.remove(cle);
+    }
+
+    public void invaliderTout() {
+        enCours.clear();
+    }
+}
@@ -0,0 +1,289 @@
+package com.pfa.backend.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pfa.backend.entity.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Encodage compact des valeurs de l'historique d'entreprise : type explicite, empreinte SHA-256 pour
+// les binaires, id pour les références, différence pour les collections, compression (Deflate + Base64)
+// des valeurs longues. Jamais de toString() d'entité : Lombok y parcourt les associations.
+public final class ValeurHistorique {
+
+    public enum Type { TEXTE, NOMBRE, BOOLEEN, DATE, REFERENCE, EMPREINTE, DIFF }
+
+    // Taille des colonnes ancienne_valeur et nouvelle_valeur
+    public static final int LONGUEUR_MAX = 4000;
+
+    // Propriétés techniques, ou dérivées d'une autre déjà historisée (logo, ville)
+    public static final Set<String> IGNOREES = Set.of(
+            "id", "originalValues", "historiqueDentreprise", "logoEmpreinte", "villeReference");
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // "Ville(id=3, nom=Fes, ...)" : toString Lombok des anciennes lignes
+    private static final Pattern ID_LOMBOK = Pattern.compile("^\\w+\\(id=(\\d+)");
+
+    public record Changement(Type type, String ancienne, String nouvelle, boolean compresse) {
+    }
+
+    private ValeurHistorique() {
+    }
+
+    // Image d'une collection avant modification (la liste est modifiée sur place) : id -> libellé
+    public static Map<Long, String> instantane(Collection<?> elements) {
+        Map<Long, String> image = new TreeMap<>();
+        for (Object element : elements) {
+            if (element instanceof Telephone telephone && telephone.getId() != null) {
+                image.put(telephone.getId(), telephone.getNumero());
+            } else if (element instanceof Fax fax && fax.getId() != null) {
+                image.put(fax.getId(), fax.getNumero());
+            } else if (element instanceof Gerant gerant && gerant.getId() != null) {
+                image.put(gerant.getId(), gerant.getNom() + " " + gerant.getPrenom());
+            }
+        }
+        return image;
+    }
+
+    // null si les deux valeurs sont équivalentes ; les collections arrivent sous forme d'instantane()
+    @SuppressWarnings("unchecked")
+    public static Changement encoder(Object avant, Object apres, int seuilCompression) {
+        if (equivalentes(avant, apres)) {
+            return null;
+        }
+        Type type = type(avant != null ? avant : apres);
+        if (type == Type.DIFF) {
+            return compacter(type, null, diff((Map<Long, String>) avant, (Map<Long, String>) apres), seuilCompression);
+        }
+        return compacter(type, texte(avant), texte(apres), seuilCompression);
+    }
+
+    // Lignes écrites avant l'encodage compact (toString de chaque valeur) ; null : ligne à supprimer
+    public static Changement convertirAncienne(String attribut, String ancienne, String nouvelle, int seuilCompression) {
+        if (IGNOREES.contains(attribut)) {
+            return null;
+        }
+        Class<?> typeChamp;
+        try {
+            typeChamp = Entreprise.class.getDeclaredField(attribut).getType();
+        } catch (NoSuchFieldException e) {
+            return compacter(Type.TEXTE, ancienne, nouvelle, seuilCompression);
+        }
+        if (typeChamp == byte[].class) {
+            // "[B@1a2b3c" n'identifie pas le contenu : rien à conserver
+            return new Changement(Type.EMPREINTE, null, null, false);
+        }
+        if (Collection.class.isAssignableFrom(typeChamp)) {
+            return new Changement(Type.DIFF, null, null, false);
+        }
+        if (Date.class.isAssignableFrom(typeChamp)) {
+            String a = dateAncienne(ancienne);
+            String n = dateAncienne(nouvelle);
+            if ((ancienne == null || a != null) && (nouvelle == null || n != null)) {
+                return compacter(Type.DATE, a, n, seuilCompression);
+            }
+        } else if (Number.class.isAssignableFrom(typeChamp)) {
+            return compacter(Type.NOMBRE, ancienne, nouvelle, seuilCompression);
+        } else if (typeChamp == Boolean.class) {
+            return compacter(Type.BOOLEEN, ancienne, nouvelle, seuilCompression);
+        } else if (typeChamp != String.class) {
+            return compacter(Type.REFERENCE, idLombok(ancienne), idLombok(nouvelle), seuilCompression);
+        }
+        return compacter(Type.TEXTE, ancienne, nouvelle, seuilCompression);
+    }
+
+    public static String decoder(String valeur, Boolean compresse) {
+        if (valeur == null || !Boolean.TRUE.equals(compresse)) {
+            return valeur;
+        }
+        try (InputStream flux = new InflaterInputStream(new java.io.ByteArrayInputStream(Base64.getDecoder().decode(valeur)))) {
+            return new String(flux.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Valeur d'historique compressée illisible", e);
+        }
+    }
+
+    private static boolean equivalentes(Object avant, Object apres) {
+        if (avant instanceof byte[] a && apres instanceof byte[] b) {
+            return a == b || Arrays.equals(a, b);
+        }
+        if (avant instanceof Date a && apres instanceof Date b) {
+            // Timestamp (lu par Hibernate) et Date ne sont pas égaux entre eux pour le même instant
+            return a.getTime() == b.getTime();
+        }
+        if (estReference(avant) && estReference(apres)) {
+            return Objects.equals(idReference(avant), idReference(apres));
+        }
+        return Objects.equals(avant, apres);
+    }
+
+    private static Type type(Object valeur) {
+        if (valeur instanceof byte[]) {
+            return Type.EMPREINTE;
+        }
+        if (valeur instanceof Map) {
+            return Type.DIFF;
+        }
+        if (valeur instanceof Number) {
+            return Type.NOMBRE;
+        }
+        if (valeur instanceof Boolean) {
+            return Type.BOOLEEN;
+        }
+        if (valeur instanceof Date) {
+            return Type.DATE;
+        }
+        return estReference(valeur) ? Type.REFERENCE : Type.TEXTE;
+    }
+
+    private static String texte(Object valeur) {
+        if (valeur == null) {
+            return null;
+        }
+        if (valeur instanceof byte[] octets) {
+            return sha256(octets);
+        }
+        if (valeur instanceof Date date) {
+            return date.toInstant().toString();
+        }
+        if (estReference(valeur)) {
+            Long id = idReference(valeur);
+            return id != null ? id.toString() : null;
+        }
+        return valeur.toString();
+    }
+
+    private static boolean estReference(Object valeur) {
+        return valeur instanceof SecteurDactivite || valeur instanceof FormeJuridique || valeur instanceof Ville;
+    }
+
+    private static Long idReference(Object valeur) {
+        if (valeur instanceof SecteurDactivite secteur) {
+            return secteur.getId();
+        }
+        if (valeur instanceof FormeJuridique forme) {
+            return forme.getId();
+        }
+        return valeur instanceof Ville ville ? ville.getId() : null;
+    }
+
+    // {"+":{id:libellé}, "-":{id:libellé}, "~":{id:[avant, après]}}
+    private static String diff(Map<Long, String> avant, Map<Long, String> apres) {
+        Map<Long, String> ajoutes = new TreeMap<>();
+        Map<Long, String> retires = new TreeMap<>();
+        Map<Long, List<String>> modifies = new TreeMap<>();
+        avant = avant != null ? avant : Map.of();
+        apres = apres != null ? apres : Map.of();
+        for (Map.Entry<Long, String> element : apres.entrySet()) {
+            String ancien = avant.get(element.getKey());
+            if (!avant.containsKey(element.getKey())) {
+                ajoutes.put(element.getKey(), element.getValue());
+            } else if (!Objects.equals(ancien, element.getValue())) {
+                modifies.put(element.getKey(), Arrays.asList(ancien, element.getValue()));
+            }
+        }
+        for (Map.Entry<Long, String> element : avant.entrySet()) {
+            if (!apres.containsKey(element.getKey())) {
+                retires.put(element.getKey(), element.getValue());
+            }
+        }
+        Map<String, Object> diff = new LinkedHashMap<>();
+        if (!ajoutes.isEmpty()) {
+            diff.put("+", ajoutes);
+        }
+        if (!retires.isEmpty()) {
+            diff.put("-", retires);
+        }
+        if (!modifies.isEmpty()) {
+            diff.put("~", modifies);
+        }
+        try {
+            return JSON.writeValueAsString(diff);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Compression seulement si elle raccourcit ; trop long même compressé : empreintes des deux valeurs
+    private static Changement compacter(Type type, String ancienne, String nouvelle, int seuilCompression) {
+        if (seuilCompression > 0 && (longueur(ancienne) > seuilCompression || longueur(nouvelle) > seuilCompression)) {
+            String a = compresser(ancienne);
+            String n = compresser(nouvelle);
+            if (longueur(a) + longueur(n) < longueur(ancienne) + longueur(nouvelle)
+                    && longueur(a) <= LONGUEUR_MAX && longueur(n) <= LONGUEUR_MAX) {
+                return new Changement(type, a, n, true);
+            }
+        }
+        if (longueur(ancienne) > LONGUEUR_MAX || longueur(nouvelle) > LONGUEUR_MAX) {
+            return new Changement(Type.EMPREINTE, empreinte(ancienne), empreinte(nouvelle), false);
+        }
+        return new Changement(type, ancienne, nouvelle, false);
+    }
+
+    private static int longueur(String valeur) {
+        return valeur != null ? valeur.length() : 0;
+    }
+
+    private static String compresser(String valeur) {
+        if (valeur == null) {
+            return null;
+        }
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        try (OutputStream flux = new DeflaterOutputStream(sortie, new Deflater(Deflater.BEST_COMPRESSION))) {
+            flux.write(valeur.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getEncoder().encodeToString(sortie.toByteArray());
+    }
+
+    private static String empreinte(String valeur) {
+        return valeur != null ? sha256(valeur.getBytes(StandardCharsets.UTF_8)) : null;
+    }
+
+    private static String sha256(byte[] octets) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(octets));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Date.toString() ("Wed Jan 01 00:00:00 UTC 2020") ou Timestamp.toString() ("2020-01-01 00:00:00.0")
+    private static String dateAncienne(String valeur) {
+        if (valeur == null) {
+            return null;
+        }
+        for (String format : List.of("EEE MMM dd HH:mm:ss zzz yyyy", "yyyy-MM-dd HH:mm:ss.S")) {
+            try {
+                return new SimpleDateFormat(format, Locale.US).parse(valeur).toInstant().toString();
+            } catch (ParseException e) {
+                // format suivant
+            }
+        }
+        return null;
+    }
+
+    private static String idLombok(String valeur) {
+        if (valeur == null) {
+            return null;
+        }
+        Matcher matcher = ID_LOMBOK.matcher(valeur);
+        return matcher.find() ? matcher.group(1) : valeur;
+    }
+}
@@ -0,0 +1,105 @@
+-- Schéma d'origine, tel que généré par Hibernate (ddl-auto: update) avant le passage aux migrations.
+--
+-- Mise à jour d'une base existante :
+-- - base vide : V1 à V5 sont appliquées ;
+-- - base de l'application d'origine : marquée en V1 sans rejouer ce script (baseline-on-migrate),
+--   puis V2 à V5 sont appliquées ;
+-- - base déjà migrée avec l'ancienne numérotation (V1 contenait tout le schéma, suivie de
+--   V2__index_recherche à V4__historique_compact) : son schéma est celui de V5, mais les sommes de
+--   contrôle ne correspondent plus. Supprimer flyway_schema_history puis démarrer une fois avec
+--   spring.flyway.baseline-version=5 ;
+-- - base créée en ddl-auto par une version intermédiaire, avec une partie des tables de V2 : aucune
+--   version ne correspond, le schéma est à aligner à la main (ou la base à recréer) avant de la marquer.
+
+create table entreprise (
+    id bigint not null auto_increment,
+    adresse varchar(255),
+    capital_social float(23),
+    date_cessation_activite datetime(6),
+    date_creation datetime(6),
+    denomination varchar(255),
+    ice integer,
+    identifiant_fiscal integer,
+    latitude varchar(255),
+    logo LONGBLOB,
+    longitude varchar(255),
+    mail varchar(255),
+    nombre_employes integer,
+    num_affiliation_cnss integer,
+    num_patente integer,
+    num_registre_commerce integer,
+    site_web varchar(255),
+    ville varchar(255),
+    forme_juridique_id bigint,
+    secteur_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table entreprise_commerciale (
+    id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table entreprise_de_service (
+    id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table entreprise_industrielle (
+    id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table fax (
+    id bigint not null auto_increment,
+    numero varchar(255),
+    entreprise_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table forme_juridique (
+    id bigint not null auto_increment,
+    nom varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table gerant (
+    id bigint not null auto_increment,
+    nom varchar(255),
+    prenom varchar(255),
+    entreprise_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table historique_dentreprise (
+    id bigint not null auto_increment,
+    ancienne_valeur varchar(255),
+    attribut_modifie varchar(255),
+    date_modification datetime(6),
+    nouvelle_valeur varchar(255),
+    entreprise_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table secteur_dactivite (
+    id bigint not null auto_increment,
+    nom varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table telephone (
+    id bigint not null auto_increment,
+    numero varchar(255),
+    entreprise_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+alter table entreprise add constraint FKkbx5cqxaa722pkyoevixg8ek9 foreign key (forme_juridique_id) references forme_juridique (id);
+alter table entreprise add constraint FKatgp8ro9c1s2u057rq3fmon7c foreign key (secteur_id) references secteur_dactivite (id);
+alter table entreprise_commerciale add constraint FK4gcq5cktqpb54k7wh6pspg3lc foreign key (id) references entreprise (id);
+alter table entreprise_de_service add constraint FKtce3pgem0bonrs0gt96y8erxs foreign key (id) references entreprise (id);
+alter table entreprise_industrielle add constraint FK7rrqnp1od1av2pq7m338espyj foreign key (id) references entreprise (id);
+alter table fax add constraint FKnxubbqdngu3u9xcaywr0vbeaj foreign key (entreprise_id) references entreprise (id);
+alter table gerant add constraint FKr8fsbc9wcqwd509pclg3mlox9 foreign key (entreprise_id) references entreprise (id);
+alter table historique_dentreprise add constraint FKcw4oa1ja93onkc64nglfn72vf foreign key (entreprise_id) references entreprise (id);
+alter table telephone add constraint FK9gt5sdqjx6qgn60g9ug5c24gk foreign key (entreprise_id) references entreprise (id);
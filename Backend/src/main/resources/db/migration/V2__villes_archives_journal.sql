@@ -0,0 +1,106 @@
+-- Tables et colonnes des fonctionnalités ajoutées au schéma d'origine : villes de référence, suppression
+-- logique et archives, journal des modifications, générateur d'identifiants par table, vignettes de logos,
+-- agrégats de l'historique, numéros et noms normalisés. Une base de l'application d'origine, marquée en V1,
+-- les reçoit ici ; voir V1__schema_initial.sql pour les autres cas de mise à jour.
+
+-- Identifiants alloués par blocs (@TableGenerator) ; IdentifiantService aligne chaque compteur
+-- sur le plus grand id existant au démarrage. Les colonnes restent auto_increment, sans effet.
+create table id_generateur (
+    next_val bigint,
+    sequence_name varchar(255) not null,
+    primary key (sequence_name)
+) engine=InnoDB;
+insert into id_generateur(sequence_name, next_val) values ('ville',0);
+insert into id_generateur(sequence_name, next_val) values ('fax',0);
+insert into id_generateur(sequence_name, next_val) values ('secteur_dactivite',0);
+insert into id_generateur(sequence_name, next_val) values ('entreprise',0);
+insert into id_generateur(sequence_name, next_val) values ('historique_dentreprise',0);
+insert into id_generateur(sequence_name, next_val) values ('logo_derive',0);
+insert into id_generateur(sequence_name, next_val) values ('telephone',0);
+insert into id_generateur(sequence_name, next_val) values ('gerant',0);
+insert into id_generateur(sequence_name, next_val) values ('forme_juridique',0);
+
+create table ville (
+    id bigint not null,
+    nom varchar(255),
+    nom_normalise varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table ville_alias (
+    ville_id bigint not null,
+    alias varchar(255)
+) engine=InnoDB;
+
+create table entreprise_archive (
+    ice integer,
+    date_archivage datetime(6),
+    date_cessation_activite datetime(6),
+    date_suppression datetime(6),
+    id bigint not null,
+    denomination varchar(255),
+    motif varchar(255),
+    ville varchar(255),
+    contenu LONGTEXT,
+    logo LONGBLOB,
+    primary key (id)
+) engine=InnoDB;
+
+create table journal_modification (
+    date_modification datetime(6),
+    entreprise_id bigint not null,
+    id bigint not null auto_increment,
+    attributs varchar(1000),
+    operation varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table logo_derive (
+    taille integer not null,
+    date_creation datetime(6),
+    entreprise_id bigint not null,
+    id bigint not null,
+    content_type varchar(255),
+    donnees MEDIUMBLOB,
+    primary key (id)
+) engine=InnoDB;
+
+create table historique_attribut_jour (
+    jour date not null,
+    nombre bigint not null,
+    attribut varchar(255) not null,
+    primary key (jour, attribut)
+) engine=InnoDB;
+
+create table historique_entreprise_mois (
+    mois date not null,
+    entreprise_id bigint not null,
+    nombre bigint not null,
+    primary key (mois, entreprise_id)
+) engine=InnoDB;
+
+-- Les lignes existantes gardent null ; les valeurs sont calculées au démarrage de l'application
+-- (VilleService, AnnuaireService, GerantService, HistoriqueAgregatService)
+alter table entreprise add column date_suppression datetime(6);
+alter table entreprise add column ville_id bigint;
+alter table entreprise add column logo_empreinte varchar(64);
+alter table fax add column numero_normalise varchar(16);
+alter table telephone add column numero_normalise varchar(16);
+alter table gerant add column cle_nom varchar(255);
+alter table historique_dentreprise add column agrege bit;
+
+create index idx_entreprise_ville_id on entreprise (ville_id);
+create index idx_entreprise_archive_ville on entreprise_archive (ville);
+create index idx_entreprise_archive_ice on entreprise_archive (ice);
+create index idx_fax_numero_normalise on fax (numero_normalise);
+create index idx_gerant_cle_nom on gerant (cle_nom);
+create index idx_historique_attribut_jour_jour on historique_attribut_jour (jour);
+create index idx_historique_entreprise_mois_mois on historique_entreprise_mois (mois);
+create index idx_journal_entreprise_id on journal_modification (entreprise_id);
+alter table logo_derive add constraint uk_logo_derive_entreprise_taille unique (entreprise_id, taille);
+create index idx_telephone_numero_normalise on telephone (numero_normalise);
+alter table ville add constraint UKs6s0w1oyhg6tdua74nmg63599 unique (nom_normalise);
+alter table ville_alias add constraint UKrff6hi4jta8nberjysfigrqn1 unique (alias);
+
+alter table entreprise add constraint FKr2no47uqivlev96x434k3vc6k foreign key (ville_id) references ville (id);
+alter table ville_alias add constraint FK52tvx8lv95s5wi5y51m1e31sd foreign key (ville_id) references ville (id);
@@ -0,0 +1,18 @@
+-- Index des requêtes principales (voir SchemaIndexTest, qui vérifie les plans par EXPLAIN).
+
+-- Collections d'une entreprise (findByEntrepriseId, findXxxByEntrepriseIdIn) : index nommés sur les clés
+-- étrangères. InnoDB supprime de lui-même l'index implicite qu'il avait créé sous le nom de la contrainte.
+create index idx_telephone_entreprise_id on telephone (entreprise_id);
+create index idx_fax_entreprise_id on fax (entreprise_id);
+create index idx_gerant_entreprise_id on gerant (entreprise_id);
+
+-- Historique d'une entreprise dans l'ordre chronologique ; couvre aussi la clé étrangère seule
+create index idx_historique_entreprise_date on historique_dentreprise (entreprise_id, date_modification);
+
+-- Filtres et recherches sur l'entreprise. L'ICE n'est pas unique : les doublons sont signalés
+-- par DoublonService et l'import des logos par ICE accepte plusieurs entreprises.
+create index idx_entreprise_ville on entreprise (ville);
+create index idx_entreprise_ice on entreprise (ice);
+create index idx_entreprise_identifiant_fiscal on entreprise (identifiant_fiscal);
+-- Recherche par début de nom et tri alphabétique : un préfixe de 64 caractères suffit à départager
+create index idx_entreprise_denomination on entreprise (denomination(64));
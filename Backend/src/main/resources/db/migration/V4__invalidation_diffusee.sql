@@ -0,0 +1,12 @@
+-- Invalidations du cache de second niveau diffusées entre nœuds (invalidation.bus: jdbc).
+-- Chaque nœud relit les lignes d'id supérieur à son curseur ; les plus anciennes sont purgées.
+create table invalidation_diffusee (
+    id bigint not null auto_increment,
+    horodatage bigint not null,
+    region varchar(32),
+    origine varchar(255),
+    cles varchar(4000),
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_invalidation_diffusee_horodatage on invalidation_diffusee (horodatage);
@@ -0,0 +1,7 @@
+-- Historique compact (ValeurHistorique) : type des valeurs, compression des valeurs longues,
+-- différences de collections jusqu'à 4000 caractères. Les lignes existantes gardent type_valeur
+-- à null jusqu'à leur conversion par HistoriqueCompactionService.
+alter table historique_dentreprise add column type_valeur varchar(16);
+alter table historique_dentreprise add column valeurs_compressees bit;
+alter table historique_dentreprise modify column ancienne_valeur varchar(4000);
+alter table historique_dentreprise modify column nouvelle_valeur varchar(4000);
@@ -0,0 +1,4 @@
+-- Date du journal posée par la base : l'horizon de validation de /changes compare
+-- date_modification à NOW() de la même horloge, quelle que soit l'instance qui a écrit.
+update journal_modification set date_modification = current_timestamp(6) where date_modification is null;
+alter table journal_modification modify column date_modification datetime(6) not null default current_timestamp(6);
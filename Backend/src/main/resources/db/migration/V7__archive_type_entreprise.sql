@@ -0,0 +1,2 @@
+-- Sous-classe de l'entreprise archivée (héritage JOINED) ; inconnue pour les archives existantes
+alter table entreprise_archive add column type_entreprise varchar(255);
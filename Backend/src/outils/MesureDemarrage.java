@@ -0,0 +1,74 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Temps jusqu'à la première requête servie : du lancement de la JVM à la première réponse 200 sur l'url donnée.
+// Lancé par le profil Maven demarrage-rapide (phase verify) ; chaque configuration est mesurée plusieurs fois.
+//   java src/outils/MesureDemarrage.java <url> <essais> <nom> <répertoire> <commande java...> [-- <nom> <répertoire> <commande...>]
+public class MesureDemarrage {
+
+    private static final Duration DELAI_MAX = Duration.ofMinutes(3);
+
+    public static void main(String[] args) throws Exception {
+        String url = args[0];
+        int essais = Integer.parseInt(args[1]);
+        List<String> rapport = new ArrayList<>();
+        List<String> reste = Arrays.asList(args).subList(2, args.length);
+        while (!reste.isEmpty()) {
+            int fin = reste.indexOf("--");
+            List<String> configuration = fin < 0 ? reste : reste.subList(0, fin);
+            reste = fin < 0 ? List.of() : reste.subList(fin + 1, reste.size());
+
+            String nom = configuration.get(0);
+            java.io.File repertoire = new java.io.File(configuration.get(1));
+            List<String> commande = configuration.subList(2, configuration.size());
+            List<Long> mesures = new ArrayList<>();
+            for (int essai = 1; essai <= essais; essai++) {
+                long ms = mesurer(url, repertoire, commande);
+                System.out.printf("[demarrage] %s, essai %d : %d ms%n", nom, essai, ms);
+                mesures.add(ms);
+            }
+            Collections.sort(mesures);
+            rapport.add(String.format("%-16s médiane %6d ms   (min %d, max %d)", nom, mesures.get(mesures.size() / 2),
+                    mesures.get(0), mesures.get(mesures.size() - 1)));
+        }
+        System.out.println("[demarrage] Temps jusqu'à la première requête (" + url + ")");
+        rapport.forEach(ligne -> System.out.println("[demarrage]   " + ligne));
+    }
+
+    private static long mesurer(String url, java.io.File repertoire, List<String> commande) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest requete = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10)).build();
+        long debut = System.nanoTime();
+        Process processus = new ProcessBuilder(commande).directory(repertoire)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - debut < DELAI_MAX.toNanos()) {
+                if (!processus.isAlive()) {
+                    throw new IllegalStateException("L'application s'est arrêtée (code " + processus.exitValue() + ") : "
+                            + String.join(" ", commande));
+                }
+                try {
+                    if (client.send(requete, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - debut) / 1_000_000;
+                    }
+                } catch (java.io.IOException e) {
+                    // Pas encore à l'écoute
+                }
+                Thread.sleep(20);
+            }
+            throw new IllegalStateException("Aucune réponse après " + DELAI_MAX.toSeconds() + " s : " + url);
+        } finally {
+            processus.destroy();
+            processus.waitFor();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.pfa.backend;
+
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+// Intercepteur du pilote MySQL (paramètre d'URL queryInterceptors) : relève le SQL envoyé, paramètres
+// compris, pour pouvoir le repasser sous EXPLAIN
+public class RequetesCapturees implements QueryInterceptor {
+
+    private static volatile List<String> capture;
+
+    public static void demarrer() {
+        capture = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    public static List<String> arreter() {
+        List<String> requetes = capture;
+        capture = null;
+        return requetes != null ? new ArrayList<>(requetes) : List.of();
+    }
+
+    @Override
+    public QueryInterceptor init(MysqlConnection conn, Properties props, Log log) {
+        return this;
+    }
+
+    @Override
+    public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+        List<String> requetes = capture;
+        if (requetes != null) {
+            requetes.add(sql.get());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean executeTopLevelOnly() {
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery, T originalResultSet,
+                                               ServerSession serverSession) {
+        return null;
+    }
+}
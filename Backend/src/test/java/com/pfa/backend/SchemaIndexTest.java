@@ -0,0 +1,140 @@
+package com.pfa.backend;
+
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Schéma créé par les migrations Flyway sur un vrai MySQL, jeu de données assez gros pour que
+// l'optimiseur préfère les index, puis EXPLAIN de chaque requête émise par les repositories
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaIndexTest {
+
+    private static final int ENTREPRISES = 2000;
+    // En dessous, un parcours complet est normal (secteurs, formes juridiques)
+    private static final long LIGNES_TOLEREES = 100;
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
+            .withUrlParam("queryInterceptors", RequetesCapturees.class.getName());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntrepriseRepository entrepriseRepository;
+    @Autowired
+    private TelephoneRepository telephoneRepository;
+    @Autowired
+    private FaxRepository faxRepository;
+    @Autowired
+    private GerantRepository gerantRepository;
+    @Autowired
+    private HistoriqueDentrepriseRepository historiqueDentrepriseRepository;
+
+    private final List<String> echecs = new ArrayList<>();
+
+    @BeforeEach
+    void remplir() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM entreprise", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO secteur_dactivite (id, nom) VALUES (?, ?)",
+                List.of(new Object[]{1L, "Informatique"}, new Object[]{2L, "Commerce"}));
+        jdbcTemplate.batchUpdate("INSERT INTO forme_juridique (id, nom) VALUES (?, ?)",
+                List.of(new Object[]{1L, "SARL"}, new Object[]{2L, "SA"}));
+
+        List<Object[]> entreprises = new ArrayList<>();
+        List<Object[]> telephones = new ArrayList<>();
+        List<Object[]> faxes = new ArrayList<>();
+        List<Object[]> gerants = new ArrayList<>();
+        List<Object[]> historique = new ArrayList<>();
+        for (long id = 1; id <= ENTREPRISES; id++) {
+            entreprises.add(new Object[]{id, "Entreprise " + id, "Ville " + id % 40, (int) (100000 + id),
+                    (int) (500000 + id), id % 2 + 1, id % 2 + 1});
+            for (int i = 0; i < 3; i++) {
+                telephones.add(new Object[]{id * 10 + i, id, String.format("05%08d", id * 10 + i)});
+                historique.add(new Object[]{id * 10 + i, id, "ville", "Ville " + i, "Ville " + (i + 1)});
+            }
+            for (int i = 0; i < 2; i++) {
+                faxes.add(new Object[]{id * 10 + i, id, String.format("05%08d", id * 10 + i)});
+                gerants.add(new Object[]{id * 10 + i, id, "Nom" + id, "Prenom" + i, "nom" + id + "-prenom" + i});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO entreprise (id, denomination, ville, ice, identifiant_fiscal, secteur_id, " +
+                "forme_juridique_id) VALUES (?, ?, ?, ?, ?, ?, ?)", entreprises);
+        jdbcTemplate.batchUpdate("INSERT INTO telephone (id, entreprise_id, numero) VALUES (?, ?, ?)", telephones);
+        jdbcTemplate.batchUpdate("INSERT INTO fax (id, entreprise_id, numero) VALUES (?, ?, ?)", faxes);
+        jdbcTemplate.batchUpdate("INSERT INTO gerant (id, entreprise_id, nom, prenom, cle_nom) VALUES (?, ?, ?, ?, ?)", gerants);
+        jdbcTemplate.batchUpdate("INSERT INTO historique_dentreprise (id, entreprise_id, attribut_modifie, ancienne_valeur, " +
+                "nouvelle_valeur, date_modification, agrege) VALUES (?, ?, ?, ?, ?, NOW(), true)", historique);
+        jdbcTemplate.execute("ANALYZE TABLE entreprise, telephone, fax, gerant, historique_dentreprise");
+    }
+
+    @Test
+    void requetesPrincipalesSansParcoursComplet() {
+        Long id = 1234L;
+        List<Long> ids = List.of(12L, 345L, 1678L);
+        Entreprise entreprise = entrepriseRepository.findById(id).orElseThrow();
+
+        verifier("TelephoneRepository.findByEntrepriseId", () -> telephoneRepository.findByEntrepriseId(id));
+        verifier("FaxRepository.findByEntrepriseId", () -> faxRepository.findByEntrepriseId(id));
+        verifier("GerantRepository.findByEntrepriseId", () -> gerantRepository.findByEntrepriseId(id));
+        verifier("HistoriqueDentrepriseRepository.findByEntrepriseId", () -> historiqueDentrepriseRepository.findByEntrepriseId(id));
+        verifier("TelephoneRepository.findNumerosByEntrepriseIdIn", () -> telephoneRepository.findNumerosByEntrepriseIdIn(ids));
+        verifier("FaxRepository.findNumerosByEntrepriseIdIn", () -> faxRepository.findNumerosByEntrepriseIdIn(ids));
+        verifier("GerantRepository.findNomsByEntrepriseIdIn", () -> gerantRepository.findNomsByEntrepriseIdIn(ids));
+        verifier("HistoriqueDentrepriseRepository.findLignesByEntrepriseIdIn",
+                () -> historiqueDentrepriseRepository.findLignesByEntrepriseIdIn(ids));
+        verifier("HistoriqueDentrepriseRepository.findValeursByEntrepriseAndAttributs",
+                () -> historiqueDentrepriseRepository.findValeursByEntrepriseAndAttributs(entreprise, Set.of("ville", "mail")));
+        verifier("GerantRepository.findEntreprisesByCleNom", () -> gerantRepository.findEntreprisesByCleNom("nom1234-prenom1"));
+        verifier("EntrepriseRepository.findIdsByIce", () -> entrepriseRepository.findIdsByIce(101234));
+        verifier("EntrepriseRepository.filterEntreprises(ville)",
+                () -> entrepriseRepository.filterEntreprises("Ville 7", null, null, null));
+        verifier("EntrepriseRepository.findDenominationsParPrefixe",
+                () -> entrepriseRepository.findDenominationsParPrefixe("Entreprise 123", PageRequest.of(0, 10)));
+
+        assertTrue(echecs.isEmpty(), "Parcours complets :\n" + String.join("\n", echecs));
+    }
+
+    private void verifier(String nom, Runnable appel) {
+        RequetesCapturees.demarrer();
+        try {
+            appel.run();
+        } finally {
+            List<String> requetes = RequetesCapturees.arreter();
+            assertTrue(requetes.stream().anyMatch(this::estSelect), nom + " : aucune requête envoyée");
+            for (String sql : requetes) {
+                if (!estSelect(sql)) {
+                    continue;
+                }
+                for (Map<String, Object> ligne : jdbcTemplate.queryForList("EXPLAIN " + sql)) {
+                    String type = String.valueOf(ligne.get("type"));
+                    Object lignes = ligne.get("rows");
+                    if ((type.equals("ALL") || type.equals("index")) && lignes != null
+                            && Long.parseLong(lignes.toString()) > LIGNES_TOLEREES) {
+                        echecs.add(nom + " : " + type + " sur " + ligne.get("table") + " (" + lignes + " lignes) — " + sql);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean estSelect(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+    }
+}
@@ -0,0 +1,39 @@
+package com.pfa.backend.controller;
+
+import com.pfa.backend.service.AdmissionService.Classe;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionFilterTest {
+
+    @Test
+    void variantesDuCheminRestentLourdes() {
+        for (String uri : new String[]{
+                "/api/entreprises/filter",
+                "/api/entreprises/filter/",
+                "/API/Entreprises/Filter",
+                "/api/entreprises/filter;jsessionid=ABC",
+                "/api//entreprises/filter",
+                "/api/entreprises/%66ilter"}) {
+            assertEquals(Classe.LOURDE, AdmissionFilter.classe(new MockHttpServletRequest("GET", uri)), uri);
+        }
+        assertEquals(Classe.LOURDE, AdmissionFilter.classe(new MockHttpServletRequest("post", "/api/entreprises/batch-get/")));
+    }
+
+    @Test
+    void autresRequetesLegeres() {
+        assertEquals(Classe.LEGERE, AdmissionFilter.classe(new MockHttpServletRequest("GET", "/api/entreprises/12")));
+        assertEquals(Classe.LEGERE, AdmissionFilter.classe(new MockHttpServletRequest("POST", "/api/entreprises/filter")));
+        assertEquals(Classe.LEGERE, AdmissionFilter.classe(new MockHttpServletRequest("GET", "/api/entreprises/filterx")));
+    }
+
+    @Test
+    void contexteApplicatifRetire() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/api/entreprises/changes/");
+        request.setContextPath("/app");
+        assertEquals("/api/entreprises/changes", AdmissionFilter.chemin(request));
+        assertEquals(Classe.LOURDE, AdmissionFilter.classe(request));
+    }
+}
@@ -0,0 +1,112 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.service.AdmissionService.Classe;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionServiceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionService admissionService = new AdmissionService();
+
+    @BeforeEach
+    void configurer() {
+        ReflectionTestUtils.setField(admissionService, "debitParSeconde", 10.0);
+        ReflectionTestUtils.setField(admissionService, "rafale", 20.0);
+        ReflectionTestUtils.setField(admissionService, "coutLourde", 5);
+        ReflectionTestUtils.setField(admissionService, "lourdesSimultanees", 1);
+        ReflectionTestUtils.setField(admissionService, "lourdesFile", 0);
+        ReflectionTestUtils.setField(admissionService, "lourdesAttenteMs", 10L);
+        ReflectionTestUtils.setField(admissionService, "legeresSimultanees", 1);
+        ReflectionTestUtils.setField(admissionService, "legeresFile", 1);
+        ReflectionTestUtils.setField(admissionService, "legeresAttenteMs", 10L);
+        ReflectionTestUtils.setField(admissionService, "clesApi", Set.of("partenaire"));
+        ReflectionTestUtils.setField(admissionService, "meterRegistry", meterRegistry);
+        admissionService.initialiser();
+    }
+
+    @Test
+    void rafaleAdmisePuisRefus() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, admissionService.consommer("ip:1", Classe.LEGERE), "requête " + i);
+        }
+        long attente = admissionService.consommer("ip:1", Classe.LEGERE);
+        // Un jeton manquant à 10 jetons/s : environ 100 ms
+        assertTrue(attente > 0 && attente <= 100, "attente " + attente);
+        assertEquals(1, meterRegistry.get("admission.requetes")
+                .tag("classe", "legere").tag("resultat", "debit_depasse").counter().count());
+    }
+
+    @Test
+    void requeteLourdeCoutePlusieursJetons() {
+        for (int i = 0; i < 16; i++) {
+            assertEquals(0, admissionService.consommer("ip:1", Classe.LEGERE));
+        }
+        // 4 jetons restants : insuffisant pour une lourde (5), assez pour une légère
+        long attente = admissionService.consommer("ip:1", Classe.LOURDE);
+        assertTrue(attente > 0 && attente <= 100, "attente " + attente);
+        assertEquals(0, admissionService.consommer("ip:1", Classe.LEGERE));
+    }
+
+    @Test
+    void seauxParClient() {
+        for (int i = 0; i < 20; i++) {
+            admissionService.consommer("ip:1", Classe.LEGERE);
+        }
+        assertTrue(admissionService.consommer("ip:1", Classe.LEGERE) > 0);
+        assertEquals(0, admissionService.consommer("ip:2", Classe.LEGERE));
+    }
+
+    @Test
+    void rechargeAvecLeTemps() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            admissionService.consommer("ip:1", Classe.LEGERE);
+        }
+        assertTrue(admissionService.consommer("ip:1", Classe.LEGERE) > 0);
+        Thread.sleep(250);
+        assertEquals(0, admissionService.consommer("ip:1", Classe.LEGERE));
+    }
+
+    @Test
+    void cleApiInconnueCompteePourLAdresse() {
+        assertEquals("cle:partenaire", admissionService.client("partenaire", "10.0.0.1"));
+        assertEquals("ip:10.0.0.1", admissionService.client("inventee-" + System.nanoTime(), "10.0.0.1"));
+        assertEquals("ip:10.0.0.1", admissionService.client(null, "10.0.0.1"));
+    }
+
+    @Test
+    void clientsInactifsOublies() throws InterruptedException {
+        admissionService.consommer("ip:1", Classe.LEGERE);
+        admissionService.oublierClientsInactifs();
+        assertEquals(1, seaux().size());
+
+        // Rafale de 0,5 jeton à 10 jetons/s : un seau inactif depuis 50 ms est plein
+        ReflectionTestUtils.setField(admissionService, "rafale", 0.5);
+        Thread.sleep(60);
+        admissionService.oublierClientsInactifs();
+        assertTrue(seaux().isEmpty());
+    }
+
+    @Test
+    void cloisonBornee() throws InterruptedException {
+        assertEquals(AdmissionService.Resultat.ADMISE, admissionService.entrer(Classe.LOURDE));
+        assertEquals(AdmissionService.Resultat.FILE_PLEINE, admissionService.entrer(Classe.LOURDE));
+        assertEquals(AdmissionService.Resultat.ADMISE, admissionService.entrer(Classe.LEGERE));
+        assertEquals(AdmissionService.Resultat.ATTENTE_EXPIREE, admissionService.entrer(Classe.LEGERE));
+        admissionService.sortir(Classe.LOURDE);
+        assertEquals(AdmissionService.Resultat.ADMISE, admissionService.entrer(Classe.LOURDE));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> seaux() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(admissionService, "seaux");
+    }
+}
@@ -0,0 +1,104 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.DoublonCandidatDTO;
+import com.pfa.backend.DTO.DoublonClusterDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.event.EntrepriseEvent;
+import com.pfa.backend.repository.EntrepriseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DoublonServiceTest {
+
+    private final DoublonService doublonService = new DoublonService();
+
+    @BeforeEach
+    void charger() {
+        EntrepriseRepository entrepriseRepository = mock(EntrepriseRepository.class);
+        when(entrepriseRepository.findFichesDoublons()).thenReturn(List.of(
+                new Object[]{1L, "Atlas Soft SARL", 111, null, "Casablanca"},
+                new Object[]{2L, "Sté Atlas Soft S.A.R.L.", null, null, "casablanca"},
+                new Object[]{3L, "Atlas Sofft", null, 777, "Rabat"},
+                new Object[]{4L, "Maroc Textile", 111, null, "Fès"},
+                new Object[]{5L, "Boulangerie Nour", null, 777, "Tanger"},
+                new Object[]{6L, "Pharmacie Centrale", null, null, "Agadir"}));
+        ReflectionTestUtils.setField(doublonService, "entrepriseRepository", entrepriseRepository);
+        doublonService.chargerIndex();
+    }
+
+    @Test
+    void nomSansFormeJuridique() {
+        assertEquals("atlas soft", DoublonService.nomNormalise("Sté Atlas Soft S.A.R.L."));
+        assertEquals("atlas soft", DoublonService.nomNormalise("ATLAS SOFT sarl"));
+        assertEquals("nour", DoublonService.nomNormalise("Ets. de la Nour"));
+        assertEquals("", DoublonService.nomNormalise(null));
+    }
+
+    @Test
+    void identifiantsPrioritairesSurLeNom() {
+        List<DoublonCandidatDTO> candidats = doublonService.candidats(1L, DoublonService.SEUIL_PAR_DEFAUT, 10);
+        DoublonCandidatDTO ice = candidat(candidats, 4L);
+        assertEquals(1.0, ice.getScore());
+        assertEquals("ICE identique", ice.getRaison());
+
+        DoublonCandidatDTO identifiantFiscal = candidat(doublonService.candidats(3L, DoublonService.SEUIL_PAR_DEFAUT, 10), 5L);
+        assertEquals(0.98, identifiantFiscal.getScore());
+    }
+
+    @Test
+    void nomProcheBonifieParLaVille() {
+        List<DoublonCandidatDTO> candidats = doublonService.candidats(1L, DoublonService.SEUIL_PAR_DEFAUT, 10);
+        // Même nom normalisé, même ville (à la casse près) : 1 + 0,03 plafonné à 1
+        assertEquals(1.0, candidat(candidats, 2L).getScore());
+        assertEquals("dénomination proche, même ville", candidat(candidats, 2L).getRaison());
+        DoublonCandidatDTO autreVille = candidat(candidats, 3L);
+        assertEquals("dénomination proche", autreVille.getRaison());
+        assertTrue(autreVille.getScore() < 1.0 && autreVille.getScore() >= DoublonService.SEUIL_PAR_DEFAUT);
+        assertTrue(candidats.stream().noneMatch(c -> c.getId() == 6L));
+    }
+
+    @Test
+    void saisieNonEnregistreeEtLimite() {
+        List<DoublonCandidatDTO> candidats = doublonService.verifier("Atlas Soft", null, null, "Casablanca",
+                DoublonService.SEUIL_PAR_DEFAUT, 2);
+        assertEquals(List.of(1L, 2L), candidats.stream().map(DoublonCandidatDTO::getId).sorted().toList());
+        assertTrue(doublonService.verifier("Pâtisserie Lune", null, null, null, DoublonService.SEUIL_PAR_DEFAUT, 10).isEmpty());
+    }
+
+    @Test
+    void clustersParTransitivite() {
+        List<DoublonClusterDTO> clusters = doublonService.clusters(DoublonService.SEUIL_PAR_DEFAUT, 10);
+        assertEquals(1, clusters.size());
+        // 4 (même ICE que 1) et 5 (même IF que 3) rejoignent le groupe des « Atlas Soft »
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L),
+                clusters.get(0).getEntreprises().stream().map(DoublonCandidatDTO::getId).toList());
+        assertEquals(1.0, clusters.get(0).getScore());
+    }
+
+    @Test
+    void indexMisAJourParLesEvenements() {
+        Entreprise entreprise = new Entreprise();
+        entreprise.setId(7L);
+        entreprise.setDenomination("Pharmacie Centrale SARL");
+        entreprise.setVille("Agadir");
+        doublonService.onEntrepriseEvent(EntrepriseEvent.created(entreprise));
+        assertEquals(List.of(6L), doublonService.candidats(7L, DoublonService.SEUIL_PAR_DEFAUT, 10).stream()
+                .map(DoublonCandidatDTO::getId).toList());
+
+        doublonService.onEntrepriseEvent(EntrepriseEvent.deleted(6L));
+        assertTrue(doublonService.candidats(7L, DoublonService.SEUIL_PAR_DEFAUT, 10).isEmpty());
+        assertTrue(doublonService.candidats(6L, DoublonService.SEUIL_PAR_DEFAUT, 10).isEmpty());
+    }
+
+    private static DoublonCandidatDTO candidat(List<DoublonCandidatDTO> candidats, long id) {
+        return candidats.stream().filter(c -> c.getId() == id).findFirst()
+                .orElseThrow(() -> new AssertionError("candidat " + id + " absent"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.service.EntrepriseSnapshot.Accumulateur;
+import com.pfa.backend.service.EntrepriseSnapshot.Dimension;
+import com.pfa.backend.service.EntrepriseSnapshot.Filtre;
+import com.pfa.backend.service.EntrepriseSnapshot.Mesure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntrepriseSnapshotTest {
+
+    private EntrepriseSnapshot snapshot;
+
+    @BeforeEach
+    void remplir() {
+        snapshot = new EntrepriseSnapshot();
+        snapshot.upsert(1, 100f, 10, 2000, "Casablanca", 1L, 1L);
+        snapshot.upsert(2, 300f, 30, 2010, "Casablanca", 2L, 1L);
+        snapshot.upsert(3, 200f, null, 2010, "Rabat", 1L, null);
+        snapshot.upsert(4, null, 50, null, null, null, 2L);
+    }
+
+    @Test
+    void agregationParVille() {
+        Map<Object, Accumulateur> parVille = snapshot.agreger(Dimension.VILLE, Mesure.CAPITAL_SOCIAL, 0, new Filtre(), false);
+        assertEquals(3, parVille.size());
+        assertEquals(2, parVille.get("Casablanca").getNombre());
+        assertEquals(400.0, parVille.get("Casablanca").getSomme());
+        assertEquals(200.0, parVille.get("Casablanca").getMoyenne());
+        assertEquals(100.0, parVille.get("Casablanca").getMin());
+        assertEquals(300.0, parVille.get("Casablanca").getMax());
+        // Ville absente : groupe null ; capital absent : compté mais sans valeur
+        assertEquals(1, parVille.get(null).getNombre());
+        assertNull(parVille.get(null).getSomme());
+    }
+
+    @Test
+    void tranchesEtTotal() {
+        Map<Object, Accumulateur> tranches = snapshot.agreger(Dimension.TRANCHE_EMPLOYES, Mesure.NOMBRE_EMPLOYES, 20, new Filtre(), false);
+        assertEquals(1, tranches.get(0.0).getNombre());
+        assertEquals(1, tranches.get(20.0).getNombre());
+        assertEquals(1, tranches.get(40.0).getNombre());
+        assertEquals(1, tranches.get(null).getNombre());
+
+        Accumulateur total = snapshot.agreger(Dimension.AUCUNE, Mesure.NOMBRE_EMPLOYES, 0, new Filtre(), false).get("total");
+        assertEquals(4, total.getNombre());
+        assertEquals(90.0, total.getSomme());
+    }
+
+    @Test
+    void trancheNegativeDistincteDesAbsents() {
+        // Capital dans [-largeur, 0) : tranche -1, qui ne doit pas rejoindre les capitaux absents
+        snapshot.upsert(5, -50f, null, null, null, null, null);
+        Map<Object, Accumulateur> tranches = snapshot.agreger(Dimension.TRANCHE_CAPITAL, Mesure.CAPITAL_SOCIAL, 100, new Filtre(), false);
+        assertEquals(1, tranches.get(-100.0).getNombre());
+        assertEquals(1, tranches.get(null).getNombre());
+    }
+
+    @Test
+    void trancheDeCapitalAuDelaDUnInt() {
+        // 1e12f (999 999 995 904) / 100 : tranche 9 999 999 959, au-delà de Integer.MAX_VALUE
+        snapshot.upsert(5, 1e12f, null, null, null, null, null);
+        snapshot.upsert(6, -Float.MAX_VALUE, null, null, null, null, null);
+        Map<Object, Accumulateur> tranches = snapshot.agreger(Dimension.TRANCHE_CAPITAL, Mesure.CAPITAL_SOCIAL, 100, new Filtre(), false);
+        assertEquals(1, tranches.get(999_999_995_900.0).getNombre());
+        assertEquals(1, tranches.get(null).getNombre());
+        assertEquals(Long.MIN_VALUE + 1, EntrepriseSnapshot.tranche(-Float.MAX_VALUE, 100));
+    }
+
+    @Test
+    void filtres() {
+        Filtre filtre = new Filtre();
+        filtre.secteurId = 1L;
+        filtre.anneeMin = 2005;
+        Map<Object, Accumulateur> resultat = snapshot.agreger(Dimension.VILLE, Mesure.CAPITAL_SOCIAL, 0, filtre, false);
+        assertEquals(1, resultat.size());
+        assertEquals(1, resultat.get("Rabat").getNombre());
+
+        Filtre inconnu = new Filtre();
+        inconnu.ville = "Oujda";
+        assertTrue(snapshot.agreger(Dimension.AUCUNE, Mesure.CAPITAL_SOCIAL, 0, inconnu, false).isEmpty());
+    }
+
+    @Test
+    void miseAJourEtSuppression() {
+        snapshot.upsert(2, 500f, 30, 2010, "Rabat", 2L, 1L);
+        snapshot.supprimer(1);
+        snapshot.supprimer(99);
+        assertEquals(3, snapshot.taille());
+
+        Map<Object, Accumulateur> parVille = snapshot.agreger(Dimension.VILLE, Mesure.CAPITAL_SOCIAL, 0, new Filtre(), false);
+        assertNull(parVille.get("Casablanca"));
+        assertEquals(700.0, parVille.get("Rabat").getSomme());
+
+        // La ligne déplacée dans le trou reste adressable par son id
+        snapshot.supprimer(4);
+        assertNull(snapshot.agreger(Dimension.VILLE, Mesure.CAPITAL_SOCIAL, 0, new Filtre(), false).get(null));
+    }
+
+    @Test
+    void percentiles() {
+        Accumulateur total = snapshot.agreger(Dimension.AUCUNE, Mesure.CAPITAL_SOCIAL, 0, new Filtre(), true).get("total");
+        assertEquals(100.0, total.percentile(0));
+        assertEquals(200.0, total.percentile(50));
+        assertEquals(300.0, total.percentile(100));
+        assertNull(snapshot.agreger(Dimension.AUCUNE, Mesure.CAPITAL_SOCIAL, 0, new Filtre(), false).get("total").percentile(50));
+    }
+
+    // Au-delà du seuil, le scan est découpé en tâches fork-join : même résultat qu'en séquentiel
+    @Test
+    void scanParalleleIdentique() {
+        EntrepriseSnapshot grand = new EntrepriseSnapshot();
+        int lignes = EntrepriseSnapshot.SEUIL_PARALLELE * 3 + 7;
+        for (int i = 0; i < lignes; i++) {
+            grand.upsert(i, (float) (i % 100), i % 7, 1990 + i % 30, "ville" + i % 5, (long) (i % 3), null);
+        }
+        Map<Object, Accumulateur> parVille = grand.agreger(Dimension.VILLE, Mesure.NOMBRE_EMPLOYES, 0, new Filtre(), true);
+        long nombre = 0;
+        double somme = 0;
+        for (int i = 0; i < lignes; i++) {
+            if (i % 5 == 2) {
+                nombre++;
+                somme += i % 7;
+            }
+        }
+        assertEquals(nombre, parVille.get("ville2").getNombre());
+        assertEquals(somme, parVille.get("ville2").getSomme());
+        assertEquals(6.0, parVille.get("ville2").percentile(100));
+    }
+}
@@ -0,0 +1,124 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.DTO.ChangementEntrepriseDTO;
+import com.pfa.backend.entity.Entreprise;
+import com.pfa.backend.event.EntrepriseEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntrepriseStreamServiceTest {
+
+    private final EntrepriseStreamService streamService = new EntrepriseStreamService();
+
+    @AfterEach
+    void arreter() {
+        streamService.arreter();
+    }
+
+    @Test
+    void clientLentNeRetientPasLesAutres() throws Exception {
+        CountDownLatch liberer = new CountDownLatch(1);
+        Emetteur lent = new Emetteur(liberer);
+        Emetteur rapide = new Emetteur(null);
+        streamService.abonner(lent, new EntrepriseStreamService.Filtre(null, null, null), null);
+        streamService.abonner(rapide, new EntrepriseStreamService.Filtre(null, null, null), null);
+        attendreAbonnes(2);
+
+        // Le premier envoi bloque le client lent ; sa file se remplit puis déborde
+        int evenements = 300;
+        for (long id = 1; id <= evenements; id++) {
+            streamService.onEntrepriseEvent(EntrepriseEvent.created(entreprise(id, "Casablanca")));
+        }
+        for (long id = 1; id <= evenements; id++) {
+            assertEquals(id, rapide.suivant().getEntrepriseId());
+        }
+        attendreAbonnes(1);
+
+        liberer.countDown();
+        assertTrue(lent.termine.await(5, TimeUnit.SECONDS), "client lent non déconnecté");
+    }
+
+    @Test
+    void abonnesDeLAncienneVillePrevenusDuDepart() throws Exception {
+        Emetteur casablanca = new Emetteur(null);
+        Emetteur rabat = new Emetteur(null);
+        Emetteur fes = new Emetteur(null);
+        streamService.abonner(casablanca, new EntrepriseStreamService.Filtre("casablanca", null, null), null);
+        streamService.abonner(rabat, new EntrepriseStreamService.Filtre("Rabat", null, null), null);
+        streamService.abonner(fes, new EntrepriseStreamService.Filtre("Fès", null, null), null);
+        attendreAbonnes(3);
+
+        Entreprise entreprise = entreprise(7L, "Rabat");
+        Map<String, Object> avant = new HashMap<>();
+        avant.put("ville", "Casablanca");
+        streamService.onEntrepriseEvent(EntrepriseEvent.updated(entreprise, Set.of("ville"), avant));
+        streamService.onEntrepriseEvent(EntrepriseEvent.updated(entreprise(8L, "Fès"), Set.of("mail")));
+
+        assertEquals("Rabat", casablanca.suivant().getValeurs().get("ville"));
+        assertEquals(7L, rabat.suivant().getEntrepriseId());
+        assertEquals(8L, fes.suivant().getEntrepriseId());
+        assertNull(casablanca.recus.poll(200, TimeUnit.MILLISECONDS));
+        assertNull(rabat.recus.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    private void attendreAbonnes(int attendus) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (streamService.nombreAbonnes() != attendus) {
+            assertTrue(System.nanoTime() < limite, "abonnés : " + streamService.nombreAbonnes());
+            Thread.sleep(5);
+        }
+    }
+
+    private static Entreprise entreprise(Long id, String ville) {
+        Entreprise entreprise = new Entreprise();
+        entreprise.setId(id);
+        entreprise.setDenomination("Entreprise " + id);
+        entreprise.setVille(ville);
+        return entreprise;
+    }
+
+    // Émetteur sans connexion : les changements envoyés sont gardés, le premier envoi peut être bloqué
+    private static final class Emetteur extends SseEmitter {
+        private final BlockingQueue<ChangementEntrepriseDTO> recus = new LinkedBlockingQueue<>();
+        private final CountDownLatch termine = new CountDownLatch(1);
+        private final CountDownLatch bloquer;
+
+        private Emetteur(CountDownLatch bloquer) {
+            this.bloquer = bloquer;
+        }
+
+        @Override
+        public void send(SseEventBuilder evenement) throws IOException {
+            if (bloquer != null) {
+                try {
+                    bloquer.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            evenement.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(ChangementEntrepriseDTO.class::isInstance)
+                    .forEach(donnee -> recus.add((ChangementEntrepriseDTO) donnee));
+        }
+
+        @Override
+        public void complete() {
+            termine.countDown();
+        }
+
+        private ChangementEntrepriseDTO suivant() throws InterruptedException {
+            ChangementEntrepriseDTO changement = recus.poll(5, TimeUnit.SECONDS);
+            assertNotNull(changement, "aucun changement reçu");
+            return changement;
+        }
+    }
+}
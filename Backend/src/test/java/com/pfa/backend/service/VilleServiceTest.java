@@ -0,0 +1,30 @@
+package com.pfa.backend.service;
+
+import com.pfa.backend.util.Normalisation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VilleServiceTest {
+
+    // L'index des villes est indexé par clé normalisée : un alias non normalisé ne serait jamais trouvé
+    @Test
+    void aliasCourantsEnClesNormalisees() {
+        for (Map.Entry<String, String> alias : VilleService.ALIAS_COURANTS.entrySet()) {
+            assertEquals(alias.getKey(), Normalisation.cle(alias.getKey()));
+            assertEquals(alias.getValue(), Normalisation.cle(alias.getValue()));
+            assertNotEquals(alias.getKey(), alias.getValue());
+        }
+    }
+
+    @Test
+    void aliasCourantsVersUneVilleCanonique() {
+        // Pas de chaîne d'alias : la cible d'un alias n'est pas elle-même un alias
+        for (String cible : VilleService.ALIAS_COURANTS.values()) {
+            assertFalse(VilleService.ALIAS_COURANTS.containsKey(cible), cible);
+        }
+        assertEquals("casablanca", VilleService.ALIAS_COURANTS.get(Normalisation.cle("Casa")));
+    }
+}
@@ -0,0 +1,39 @@
+package com.pfa.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalisationTest {
+
+    @Test
+    void cleSansAccentsNiSeparateurs() {
+        assertEquals("fes boulemane", Normalisation.cle("  Fès-Boulemane "));
+        assertEquals("casablanca", Normalisation.cle("CASABLANCA"));
+        assertEquals("ksar el kebir", Normalisation.cle("Ksar-el-Kébir"));
+        assertEquals("sale", Normalisation.cle("Salé."));
+        assertEquals(Normalisation.cle("Meknès"), Normalisation.cle("meknes"));
+    }
+
+    @Test
+    void cleVide() {
+        assertNull(Normalisation.cle(null));
+        assertNull(Normalisation.cle(""));
+        assertNull(Normalisation.cle(" -- . "));
+    }
+
+    @Test
+    void clePersonneIndependanteDeLOrdre() {
+        assertEquals("amrani-el-youssef", Normalisation.clePersonne("El Amrani", "Youssef"));
+        assertEquals(Normalisation.clePersonne("El Amrani", "Youssef"), Normalisation.clePersonne("Youssef", "el-amrani"));
+        assertEquals("benani", Normalisation.clePersonne("Bénani", null));
+        assertNull(Normalisation.clePersonne(null, " "));
+    }
+
+    @Test
+    void nettoyerGardeCasseEtAccents() {
+        assertEquals("Fès Boulemane", Normalisation.nettoyer("  Fès \t Boulemane\n"));
+        assertNull(Normalisation.nettoyer("   "));
+        assertNull(Normalisation.nettoyer(null));
+    }
+}
@@ -0,0 +1,41 @@
+package com.pfa.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumeroTelephoneTest {
+
+    @Test
+    void formesNationalesEtInternationales() {
+        assertEquals("+212522123456", NumeroTelephone.normaliser("05 22-12.34.56"));
+        assertEquals("+212522123456", NumeroTelephone.normaliser("00212522123456"));
+        assertEquals("+212522123456", NumeroTelephone.normaliser("+212 522 12 34 56"));
+        assertEquals("+212522123456", NumeroTelephone.normaliser("522123456"));
+        // Le 0 national recopié après l'indicatif
+        assertEquals("+212522123456", NumeroTelephone.normaliser("+212 (0)5 22 12 34 56"));
+    }
+
+    @Test
+    void autresIndicatifsConserves() {
+        assertEquals("+33142685300", NumeroTelephone.normaliser("+33 1 42 68 53 00"));
+        assertEquals("+33142685300", NumeroTelephone.normaliser("0033 1 42 68 53 00"));
+    }
+
+    @Test
+    void numerosInexploitables() {
+        assertNull(NumeroTelephone.normaliser(null));
+        assertNull(NumeroTelephone.normaliser("poste 12"));
+        assertNull(NumeroTelephone.normaliser("+1234567890123456"));
+    }
+
+    @Test
+    void memeNumero() {
+        assertTrue(NumeroTelephone.memeNumero("0522 12 34 56", "+212522123456"));
+        assertFalse(NumeroTelephone.memeNumero("0522 12 34 56", "0522 12 34 57"));
+        // Non normalisables : comparaison exacte
+        assertTrue(NumeroTelephone.memeNumero("poste 12", "poste 12"));
+        assertFalse(NumeroTelephone.memeNumero("poste 12", "poste 13"));
+        assertFalse(NumeroTelephone.memeNumero(null, null));
+    }
+}
@@ -0,0 +1,29 @@
+package com.pfa.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilariteTest {
+
+    @Test
+    void valeursDeReference() {
+        assertEquals(0.961, Similarite.jaroWinkler("martha", "marhta"), 1e-3);
+        assertEquals(0.840, Similarite.jaroWinkler("dwayne", "duane"), 1e-3);
+        assertEquals(0.813, Similarite.jaroWinkler("dixon", "dicksonx"), 1e-3);
+    }
+
+    @Test
+    void bornes() {
+        assertEquals(1.0, Similarite.jaroWinkler("atlas", "atlas"));
+        assertEquals(0.0, Similarite.jaroWinkler("abc", "xyz"));
+        assertEquals(0.0, Similarite.jaroWinkler("", "atlas"));
+        assertEquals(0.0, Similarite.jaroWinkler(null, "atlas"));
+    }
+
+    @Test
+    void symetrique() {
+        assertEquals(Similarite.jaroWinkler("atlas soft", "atlas sofware"),
+                Similarite.jaroWinkler("atlas sofware", "atlas soft"), 1e-12);
+    }
+}
@@ -0,0 +1,108 @@
+package com.pfa.backend.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int APPELANTS = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService executeur = Executors.newFixedThreadPool(APPELANTS);
+
+    @AfterEach
+    void arreter() {
+        executeur.shutdownNow();
+    }
+
+    @Test
+    void appelsSimultanesPartagentUnSeulCalcul() throws Exception {
+        CountDownLatch liberer = new CountDownLatch(1);
+        AtomicInteger calculs = new AtomicInteger();
+        List<Future<String>> resultats = lancer(() -> {
+            calculs.incrementAndGet();
+            attendre(liberer);
+            return "valeur";
+        });
+        attendreRegroupes(APPELANTS - 1);
+        liberer.countDown();
+
+        for (Future<String> resultat : resultats) {
+            assertEquals("valeur", resultat.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calculs.get());
+        assertEquals((APPELANTS - 1) / (double) APPELANTS, meterRegistry.get("singleflight.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void exceptionTransmiseAuxAppelsRegroupes() throws Exception {
+        CountDownLatch liberer = new CountDownLatch(1);
+        List<Future<String>> resultats = lancer(() -> {
+            attendre(liberer);
+            throw new IllegalStateException("échec");
+        });
+        attendreRegroupes(APPELANTS - 1);
+        liberer.countDown();
+
+        for (Future<String> resultat : resultats) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> resultat.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals("relance", singleFlight.executer("cle", () -> "relance"));
+    }
+
+    // Une Error ne doit laisser ni appel regroupé bloqué, ni entrée orpheline qui bloquerait les suivants
+    @Test
+    void erreurTransmiseEtCleLiberee() throws Exception {
+        CountDownLatch liberer = new CountDownLatch(1);
+        List<Future<String>> resultats = lancer(() -> {
+            attendre(liberer);
+            throw new StackOverflowError();
+        });
+        attendreRegroupes(APPELANTS - 1);
+        liberer.countDown();
+
+        for (Future<String> resultat : resultats) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> resultat.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+        }
+        assertEquals("relance", singleFlight.executer("cle", () -> "relance"));
+    }
+
+    private List<Future<String>> lancer(Supplier<String> calcul) {
+        List<Future<String>> resultats = new ArrayList<>();
+        for (int i = 0; i < APPELANTS; i++) {
+            resultats.add(executeur.submit(() -> singleFlight.executer("cle", calcul)));
+        }
+        return resultats;
+    }
+
+    // Le calcul est bloqué tant que tous les autres appelants ne l'ont pas rejoint
+    private void attendreRegroupes(int attendus) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("singleflight.requetes").tag("role", "regroupe").counter().count() < attendus) {
+            assertTrue(System.nanoTime() < limite, "appels non regroupés");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void attendre(CountDownLatch liberer) {
+        try {
+            assertTrue(liberer.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.pfa.backend.util;
+
+import com.pfa.backend.entity.SecteurDactivite;
+import com.pfa.backend.entity.Telephone;
+import com.pfa.backend.util.ValeurHistorique.Changement;
+import com.pfa.backend.util.ValeurHistorique.Type;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValeurHistoriqueTest {
+
+    private static final int SEUIL = 256;
+
+    @Test
+    void valeursEquivalentesIgnorees() {
+        assertNull(ValeurHistorique.encoder("Atlas", "Atlas", SEUIL));
+        assertNull(ValeurHistorique.encoder(new byte[]{1, 2}, new byte[]{1, 2}, SEUIL));
+        // Timestamp lu par Hibernate et Date du formulaire pour le même instant
+        assertNull(ValeurHistorique.encoder(new Timestamp(1_000L), new Date(1_000L), SEUIL));
+        assertNull(ValeurHistorique.encoder(secteur(3L), secteur(3L), SEUIL));
+    }
+
+    @Test
+    void typesExplicites() {
+        assertEquals(new Changement(Type.NOMBRE, "10", "12", false), ValeurHistorique.encoder(10, 12, SEUIL));
+        assertEquals(new Changement(Type.BOOLEEN, null, "true", false), ValeurHistorique.encoder(null, true, SEUIL));
+        assertEquals(new Changement(Type.DATE, "1970-01-01T00:00:00Z", null, false),
+                ValeurHistorique.encoder(new Date(0L), null, SEUIL));
+        assertEquals(new Changement(Type.REFERENCE, "3", "4", false),
+                ValeurHistorique.encoder(secteur(3L), secteur(4L), SEUIL));
+    }
+
+    @Test
+    void binaireRemplaceParEmpreinte() {
+        Changement changement = ValeurHistorique.encoder(null, "abc".getBytes(), SEUIL);
+        assertEquals(Type.EMPREINTE, changement.type());
+        assertNull(changement.ancienne());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", changement.nouvelle());
+    }
+
+    @Test
+    void seuilDeCompression() {
+        String court = "a".repeat(SEUIL);
+        String long_ = "a".repeat(SEUIL + 1);
+        assertFalse(ValeurHistorique.encoder(null, court, SEUIL).compresse());
+
+        Changement compresse = ValeurHistorique.encoder(null, long_, SEUIL);
+        assertEquals(Type.TEXTE, compresse.type());
+        assertTrue(compresse.compresse());
+        assertTrue(compresse.nouvelle().length() < long_.length());
+        assertEquals(long_, ValeurHistorique.decoder(compresse.nouvelle(), compresse.compresse()));
+
+        // Seuil à 0 : jamais de compression
+        assertFalse(ValeurHistorique.encoder(null, long_, 0).compresse());
+    }
+
+    @Test
+    void compressionInutileConserveLeTexte() {
+        String aleatoire = aleatoire(SEUIL * 2);
+        Changement changement = ValeurHistorique.encoder(null, aleatoire, SEUIL);
+        assertEquals(new Changement(Type.TEXTE, null, aleatoire, false), changement);
+    }
+
+    @Test
+    void tropLongMemeCompresseDevientEmpreinte() {
+        String aleatoire = aleatoire(ValeurHistorique.LONGUEUR_MAX + 1);
+        Changement changement = ValeurHistorique.encoder("court", aleatoire, SEUIL);
+        assertEquals(Type.EMPREINTE, changement.type());
+        assertFalse(changement.compresse());
+        assertEquals(64, changement.ancienne().length());
+        assertEquals(64, changement.nouvelle().length());
+    }
+
+    @Test
+    void differenceDeCollection() {
+        Map<Long, String> avant = ValeurHistorique.instantane(List.of(
+                telephone(1L, "0522000001"), telephone(2L, "0522000002"), telephone(3L, "0522000003")));
+        Map<Long, String> apres = ValeurHistorique.instantane(List.of(
+                telephone(2L, "0522000002"), telephone(3L, "0522999999"), telephone(4L, "0522000004"),
+                telephone(null, "non enregistré")));
+
+        Changement changement = ValeurHistorique.encoder(avant, apres, SEUIL);
+        assertEquals(Type.DIFF, changement.type());
+        assertNull(changement.ancienne());
+        assertEquals("{\"+\":{\"4\":\"0522000004\"},\"-\":{\"1\":\"0522000001\"},"
+                + "\"~\":{\"3\":[\"0522000003\",\"0522999999\"]}}", changement.nouvelle());
+        assertNull(ValeurHistorique.encoder(avant, Map.copyOf(avant), SEUIL));
+    }
+
+    @Test
+    void anciennesLignesConverties() {
+        assertNull(ValeurHistorique.convertirAncienne("originalValues", "{}", "{a=1}", SEUIL));
+        assertEquals(new Changement(Type.EMPREINTE, null, null, false),
+                ValeurHistorique.convertirAncienne("logo", "[B@1a2b3c", "[B@4d5e6f", SEUIL));
+        assertEquals(new Changement(Type.DIFF, null, null, false),
+                ValeurHistorique.convertirAncienne("telephones", "[Telephone(id=1, ...)]", "[]", SEUIL));
+        assertEquals(new Changement(Type.NOMBRE, "5", "8", false),
+                ValeurHistorique.convertirAncienne("nombreEmployes", "5", "8", SEUIL));
+        assertEquals(new Changement(Type.TEXTE, "Fes", "Fès", false),
+                ValeurHistorique.convertirAncienne("ville", "Fes", "Fès", SEUIL));
+        // Attribut disparu de l'entité : conservé tel quel
+        assertEquals(Type.TEXTE, ValeurHistorique.convertirAncienne("inconnu", "a", "b", SEUIL).type());
+    }
+
+    @Test
+    void anciennesDatesReinterpretees() {
+        assertEquals(new Changement(Type.DATE, "2020-01-01T00:00:00Z", "2021-06-15T10:30:00Z", false),
+                ValeurHistorique.convertirAncienne("dateCreation",
+                        "Wed Jan 01 00:00:00 UTC 2020", "Tue Jun 15 10:30:00 GMT 2021", SEUIL));
+        assertEquals(Type.DATE,
+                ValeurHistorique.convertirAncienne("dateCreation", null, "2020-01-01 00:00:00.0", SEUIL).type());
+        // Format non reconnu : texte d'origine plutôt qu'une date perdue
+        assertEquals(new Changement(Type.TEXTE, "hier", null, false),
+                ValeurHistorique.convertirAncienne("dateCreation", "hier", null, SEUIL));
+    }
+
+    @Test
+    void anciennesReferencesReduitesALId() {
+        assertEquals(new Changement(Type.REFERENCE, "3", "12", false),
+                ValeurHistorique.convertirAncienne("secteurDactivite",
+                        "SecteurDactivite(id=3, nom=Textile, entreprises=[...])", "SecteurDactivite(id=12, nom=BTP)", SEUIL));
+        assertEquals(new Changement(Type.REFERENCE, "Textile", null, false),
+                ValeurHistorique.convertirAncienne("secteurDactivite", "Textile", null, SEUIL));
+    }
+
+    private static SecteurDactivite secteur(Long id) {
+        SecteurDactivite secteur = new SecteurDactivite();
+        secteur.setId(id);
+        secteur.setNom("secteur " + id);
+        return secteur;
+    }
+
+    private static Telephone telephone(Long id, String numero) {
+        Telephone telephone = new Telephone();
+        telephone.setId(id);
+        telephone.setNumero(numero);
+        return telephone;
+    }
+
+    private static String aleatoire(int longueur) {
+        Random random = new Random(42);
+        StringBuilder texte = new StringBuilder(longueur);
+        for (int i = 0; i < longueur; i++) {
+            texte.append((char) (33 + random.nextInt(94)));
+        }
+        return texte.toString();
+    }
+}
@@ -82,8 +82,9 @@ export function EntrepriseDetails({ onBackClick, selectedEntrepriseId }: Entrepr
             throw new Error('Failed to fetch entreprise details');
           }
           const data = await response.json();
-          setFormData(data);
-          setLogoPreview(data.logo ? `data:image/png;base64,${data.logo}` : null);
+          setFormData({ ...data, logo: null });
+          // Vignette 128 px (avatar de 100 px) servie par l'API, au lieu du logo complet en Base64
+          setLogoPreview(data.logoUrl ? `http://localhost:9192${data.logoUrl}?size=128` : null);
         } catch (error) {
           console.error('Error fetching entreprise details:', error);
         }